@@ -0,0 +1,80 @@
+package de.hibiscus.tr.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.timeline.SyntheticTimeline;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Realistic payloads for the benchmarks, generated by {@link SyntheticTimeline} with a fixed seed
+ * and the default mix of event kinds.
+ */
+final class BenchmarkFixtures {
+    
+    private static final long SEED = 42;
+    
+    private BenchmarkFixtures() {
+    }
+    
+    /**
+     * Event trees with details, newest first like the timeline feeds
+     */
+    static List<ObjectNode> items(int count) {
+        return new SyntheticTimeline(SEED).items(count);
+    }
+    
+    /**
+     * Bound events with details, as they arrive at the exporter
+     */
+    static List<TransactionEvent> events(int count) {
+        try {
+            return new SyntheticTimeline(SEED).events(count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Timeline page payload {"items": [...], "cursors": {"after": ...}} without the details
+     */
+    static String page(List<ObjectNode> items, String afterCursor) {
+        ObjectNode page = JsonCodec.mapper().createObjectNode();
+        ArrayNode pageItems = page.putArray("items");
+        for (ObjectNode item : items) {
+            pageItems.add(SyntheticTimeline.listItem(item));
+        }
+        ObjectNode cursors = page.putObject("cursors");
+        if (afterCursor != null) {
+            cursors.put("after", afterCursor);
+        }
+        return write(page);
+    }
+    
+    /**
+     * Detail payload of an item, as received for timelineDetailV2
+     */
+    static String details(ObjectNode item) {
+        return write(item.path("details"));
+    }
+    
+    /**
+     * WebSocket data frame "subscriptionId A payload"
+     */
+    static String frame(int subscriptionId, String payload) {
+        return subscriptionId + " A " + payload;
+    }
+    
+    private static String write(JsonNode node) {
+        try {
+            return JsonCodec.writer().writeValueAsString(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
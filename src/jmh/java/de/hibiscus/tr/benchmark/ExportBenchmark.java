@@ -0,0 +1,72 @@
+package de.hibiscus.tr.benchmark;
+
+import de.hibiscus.tr.export.HibiscusExporter;
+import de.hibiscus.tr.model.TradeRepublicError;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * A full export run per format: filtering, derived fields, sorting and writing the output file.
+ * The history is ignored, so every invocation exports all events.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+    
+    @Param({"hibiscus", "csv", "camt053", "mt940"})
+    public String format;
+    
+    @Param({"1000"})
+    public int events;
+    
+    private Path outputPath;
+    private List<TransactionEvent> transactionEvents;
+    
+    @Setup
+    public void setUp() throws IOException {
+        outputPath = Files.createTempDirectory("tr-hibiscus-export-bench");
+        transactionEvents = BenchmarkFixtures.events(events);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(outputPath)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    public HibiscusExporter export() throws TradeRepublicError {
+        HibiscusExporter exporter = new HibiscusExporter(outputPath, true, false, false);
+        exporter.setIgnoreHistory(true);
+        exporter.setFormats(List.of(format));
+        exporter.exportTransactions(transactionEvents);
+        exporter.close();
+        return exporter;
+    }
+}
\ No newline at end of file
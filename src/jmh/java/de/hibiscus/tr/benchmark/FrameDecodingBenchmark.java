@@ -0,0 +1,69 @@
+package de.hibiscus.tr.benchmark;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.DetailIndex;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.timeline.TimelinePage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of WebSocket data frames as done by TradeRepublicApi and its callers: splitting the
+ * "subscriptionId A payload" frame, then binding a timeline page or reading and indexing a detail payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameDecodingBenchmark {
+    
+    /** Items per timeline page, as sent by Trade Republic */
+    private static final int PAGE_SIZE = 50;
+    
+    /** Keep the raw item trees, as with an archive */
+    @Param({"false", "true"})
+    public boolean keepItems;
+    
+    private String pageFrame;
+    private String detailFrame;
+    
+    @Setup
+    public void setUp() {
+        List<ObjectNode> items = BenchmarkFixtures.items(PAGE_SIZE);
+        pageFrame = BenchmarkFixtures.frame(7, BenchmarkFixtures.page(items, "cursor-after-page"));
+        detailFrame = BenchmarkFixtures.frame(8, BenchmarkFixtures.details(items.get(0)));
+    }
+    
+    @Benchmark
+    public TimelinePage timelinePage() throws IOException {
+        return TimelinePage.parse(payload(pageFrame), keepItems);
+    }
+    
+    @Benchmark
+    public DetailIndex detailPayload() throws IOException {
+        return DetailIndex.of(JsonCodec.readTree(payload(detailFrame)));
+    }
+    
+    /**
+     * Payload of a data frame, split like TradeRepublicApi.handleWebSocketMessage
+     */
+    private static String payload(String frame) {
+        String[] parts = frame.split(" ", 3);
+        return parts.length > 2 ? parts[2] : "";
+    }
+}
\ No newline at end of file
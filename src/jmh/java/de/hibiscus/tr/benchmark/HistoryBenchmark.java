@@ -0,0 +1,116 @@
+package de.hibiscus.tr.benchmark;
+
+import de.hibiscus.tr.export.HistoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Loading and saving the export history for a given number of known ids: opening the index,
+ * looking up the ids of an export run and committing the new ones to the journal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark {
+    
+    /** Ids looked up and added per export run */
+    private static final int RUN_SIZE = 100;
+    
+    @Param({"1000", "10000", "100000"})
+    public int ids;
+    
+    private Path directory;
+    private HistoryStore store;
+    private String[] knownIds;
+    private String[] missingIds;
+    private int run = 0;
+    
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("tr-hibiscus-history-bench");
+        HistoryStore initial = HistoryStore.open(directory);
+        for (int i = 0; i < ids; i++) {
+            initial.add(id(i));
+        }
+        initial.commit();
+        // Compacts the journal into the index
+        HistoryStore.open(directory);
+        
+        knownIds = new String[RUN_SIZE];
+        for (int i = 0; i < RUN_SIZE; i++) {
+            knownIds[i] = id((int) ((long) i * ids / RUN_SIZE));
+        }
+        missingIds = new String[RUN_SIZE];
+        for (int i = 0; i < RUN_SIZE; i++) {
+            missingIds[i] = id(ids + i);
+        }
+    }
+    
+    /**
+     * Fresh store per iteration, so the journal only holds the ids committed in that iteration
+     */
+    @Setup(Level.Iteration)
+    public void openStore() throws IOException {
+        Files.deleteIfExists(directory.resolve(HistoryStore.JOURNAL_FILE));
+        store = HistoryStore.open(directory);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+    
+    @Benchmark
+    public HistoryStore load() throws IOException {
+        return HistoryStore.open(directory);
+    }
+    
+    @Benchmark
+    public void lookup(Blackhole blackhole) {
+        for (String id : knownIds) {
+            blackhole.consume(store.contains(id));
+        }
+        for (String id : missingIds) {
+            blackhole.consume(store.contains(id));
+        }
+    }
+    
+    @Benchmark
+    public void save() throws IOException {
+        for (int i = 0; i < RUN_SIZE; i++) {
+            store.add("new-" + run + "-" + i);
+        }
+        store.commit();
+        run++;
+    }
+    
+    private static String id(int i) {
+        return String.format("%08x-4c1e-9c1a-%012d", i * 2654435761L & 0xffffffffL, i);
+    }
+}
\ No newline at end of file
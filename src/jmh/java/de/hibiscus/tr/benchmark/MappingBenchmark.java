@@ -0,0 +1,60 @@
+package de.hibiscus.tr.benchmark;
+
+import de.hibiscus.tr.export.FieldMapping;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field mapping per event: column lookups through the detail sections and the comment lines,
+ * over a batch with the default mix of event kinds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+    
+    private static final String[] COLUMNS = {"zweck", "empfaenger_name", "empfaenger_konto"};
+    private static final int EVENTS = 100;
+    
+    private FieldMapping fieldMapping;
+    private List<TransactionEvent> events;
+    
+    @Setup
+    public void setUp() {
+        fieldMapping = FieldMapping.builtIn();
+        events = BenchmarkFixtures.events(EVENTS);
+    }
+    
+    @Benchmark
+    public void columns(Blackhole blackhole) {
+        for (TransactionEvent event : events) {
+            FieldMapping.EventMapping mapping = fieldMapping.forEventType(event.getEventType());
+            for (String column : COLUMNS) {
+                blackhole.consume(mapping.getColumn(column, event));
+            }
+        }
+    }
+    
+    @Benchmark
+    public void comments(Blackhole blackhole) {
+        for (TransactionEvent event : events) {
+            blackhole.consume(fieldMapping.forEventType(event.getEventType()).buildComment(event));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package de.hibiscus.tr.benchmark;
+
+import de.hibiscus.tr.api.ReplayApi;
+import de.hibiscus.tr.export.FieldMapping;
+import de.hibiscus.tr.export.HibiscusExporter;
+import de.hibiscus.tr.model.TradeRepublicError;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.timeline.TimelineProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeline processing against canned payloads: paginating the transaction feed, binding every page,
+ * then decoding and projecting the details of each event. No network is involved.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimelineIngestionBenchmark {
+    
+    private static final int PAGE_SIZE = 50;
+    
+    @Param({"1000", "10000"})
+    public int events;
+    
+    private ReplayApi api;
+    private FieldMapping fieldMapping;
+    
+    @Setup
+    public void setUp() throws IOException {
+        api = new ReplayApi(BenchmarkFixtures.items(events), PAGE_SIZE);
+        fieldMapping = FieldMapping.builtIn();
+    }
+    
+    @Benchmark
+    public List<TransactionEvent> processTimeline() throws TradeRepublicError {
+        TimelineProcessor processor = new TimelineProcessor(api, 0, true);
+        processor.setDetailProjection(HibiscusExporter.detailProjection(fieldMapping));
+        return processor.processTimeline();
+    }
+}
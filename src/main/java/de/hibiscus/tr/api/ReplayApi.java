@@ -0,0 +1,110 @@
+package de.hibiscus.tr.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.JsonCodec;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Answers the timeline subscriptions from recorded or synthetic payloads instead of the WebSocket, so the
+ * whole pipeline can run without login. Items (with their detail payload under "details") are served
+ * as transaction pages of a fixed size; the activity log is empty. Payloads are kept as JSON text and
+ * parsed on every request like real frames.
+ */
+public class ReplayApi extends TradeRepublicApi {
+    
+    private static final String EMPTY_PAGE = "{\"items\":[],\"cursors\":{}}";
+    
+    private final int pageSize;
+    private final List<String> items = new ArrayList<>();
+    private final Map<String, String> pages = new HashMap<>();
+    private final Map<String, String> details = new HashMap<>();
+    private int detailRequests = 0;
+    
+    /**
+     * @param items    timeline items, newest first, each optionally with "details"
+     * @param pageSize items per transaction page
+     */
+    public ReplayApi(List<? extends JsonNode> items, int pageSize) throws IOException {
+        super(JsonCodec.mapper());
+        this.pageSize = pageSize;
+        prepend(items);
+    }
+    
+    /**
+     * Add items in front of the timeline, as if they arrived since the last request; pages are cut again from the head
+     */
+    public synchronized void prepend(List<? extends JsonNode> newItems) throws IOException {
+        List<String> listItems = new ArrayList<>();
+        for (JsonNode item : newItems) {
+            ObjectNode listItem = item.deepCopy();
+            JsonNode itemDetails = listItem.remove("details");
+            if (itemDetails != null && itemDetails.isObject()) {
+                details.put(item.path("id").asText(), JsonCodec.writer().writeValueAsString(itemDetails));
+            }
+            listItems.add(JsonCodec.writer().writeValueAsString(listItem));
+        }
+        items.addAll(0, listItems);
+        
+        pages.clear();
+        for (int from = 0; from < items.size(); from += pageSize) {
+            int to = Math.min(from + pageSize, items.size());
+            StringBuilder page = new StringBuilder("{\"items\":[");
+            page.append(String.join(",", items.subList(from, to))).append("],\"cursors\":{");
+            if (to < items.size()) {
+                page.append("\"after\":\"page-").append(to).append('"');
+            }
+            pages.put(from == 0 ? null : "page-" + from, page.append("}}").toString());
+        }
+    }
+    
+    @Override
+    public synchronized CompletableFuture<String> getTimelineTransactionsPage(String cursor) {
+        return CompletableFuture.completedFuture(pages.getOrDefault(cursor, EMPTY_PAGE));
+    }
+    
+    @Override
+    public CompletableFuture<String> getTimelineActivityLogPage(String cursor) {
+        return CompletableFuture.completedFuture(EMPTY_PAGE);
+    }
+    
+    /**
+     * Detail payload wrapped like {@link #subscribe}; without recorded details the response has no data
+     */
+    @Override
+    public CompletableFuture<JsonNode> getTimelineDetail(String eventId) {
+        String payload;
+        synchronized (this) {
+            detailRequests++;
+            payload = details.get(eventId);
+        }
+        ObjectNode response = JsonCodec.mapper().createObjectNode();
+        if (payload != null) {
+            try {
+                response.set("data", JsonCodec.readTree(payload));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }
+        return CompletableFuture.completedFuture(response);
+    }
+    
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+    
+    /**
+     * Number of detail requests answered so far
+     */
+    public synchronized int getDetailRequests() {
+        return detailRequests;
+    }
+}
\ No newline at end of file
@@ -2,6 +2,8 @@ package de.hibiscus.tr.api;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.JsonCodec;
 import de.hibiscus.tr.model.TradeRepublicError;
 import okhttp3.*;
 import org.java_websocket.client.WebSocketClient;
@@ -36,7 +38,8 @@ public class TradeRepublicApi {
     private final Path cookiesFile;
     
     private WebSocketClient webSocketClient;
-    private final Map<String, CompletableFuture<JsonNode>> pendingRequests = new ConcurrentHashMap<>();
+    // Raw payloads by subscription id; parsed by the caller, see subscribe and subscribeRaw
+    private final Map<String, CompletableFuture<String>> pendingRequests = new ConcurrentHashMap<>();
     private final AtomicLong subscriptionIdCounter = new AtomicLong(1);
     
     private boolean webLogin = true;
@@ -44,12 +47,20 @@ public class TradeRepublicApi {
     private String sessionToken;
     
     public TradeRepublicApi() {
-        this.objectMapper = new ObjectMapper();
-        this.httpClient = new OkHttpClient.Builder()
+        this(new OkHttpClient.Builder()
                 .connectTimeout(Duration.ofSeconds(30))
                 .readTimeout(Duration.ofSeconds(30))
                 .writeTimeout(Duration.ofSeconds(30))
-                .build();
+                .build());
+    }
+    
+    /**
+     * Create an API client using the given HTTP client, e.g. one sharing connection pool and dispatcher
+     * with other accounts
+     */
+    public TradeRepublicApi(OkHttpClient httpClient) {
+        this.objectMapper = JsonCodec.mapper();
+        this.httpClient = httpClient;
         
         // Set up directories similar to Python version
         String homeDir = System.getProperty("user.home");
@@ -63,6 +74,17 @@ public class TradeRepublicApi {
         }
     }
     
+    /**
+     * For subclasses that answer the subscriptions themselves without a connection, see {@link ReplayApi}:
+     * no HTTP client is created and nothing is written to the home directory
+     */
+    protected TradeRepublicApi(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.httpClient = null;
+        this.baseDir = null;
+        this.cookiesFile = null;
+    }
+    
     /**
      * Connect to Trade Republic WebSocket
      */
@@ -106,6 +128,13 @@ public class TradeRepublicApi {
                 @Override
                 public void onClose(int code, String reason, boolean remote) {
                     logger.info("WebSocket closed: {} - {}", code, reason);
+                    if (!future.isDone()) {
+                        future.completeExceptionally(new TradeRepublicError("WebSocket closed before connecting: " + reason));
+                    }
+                    if (TradeRepublicApi.this.webSocketClient == this) {
+                        // Requests of a dropped connection are never answered, let their callers fail instead of waiting
+                        failPendingRequests(new TradeRepublicError("WebSocket closed: " + code + " " + reason));
+                    }
                 }
                 
                 @Override
@@ -126,6 +155,15 @@ public class TradeRepublicApi {
         return future;
     }
     
+    private void failPendingRequests(TradeRepublicError error) {
+        for (String subscriptionId : pendingRequests.keySet()) {
+            CompletableFuture<String> future = pendingRequests.remove(subscriptionId);
+            if (future != null) {
+                future.completeExceptionally(error);
+            }
+        }
+    }
+    
     /**
      * Send initial connection message
      */
@@ -179,35 +217,27 @@ public class TradeRepublicApi {
             // Handle different response codes
             switch (code) {
                 case "A": // Data response
-                    JsonNode payload = objectMapper.readTree(payloadStr);
-                    logger.info("Received data for subscription {}: {}", subscriptionId, payload.toString());
-                    CompletableFuture<JsonNode> future = pendingRequests.remove(subscriptionId);
+                    logger.debug("Received data for subscription {} ({} chars)", subscriptionId, payloadStr.length());
+                    CompletableFuture<String> future = pendingRequests.remove(subscriptionId);
                     if (future != null) {
-                        // Create response object similar to Python version
-                        Map<String, Object> response = Map.of(
-                            "subscription_id", subscriptionId,
-                            "data", payload
-                        );
-                        future.complete(objectMapper.valueToTree(response));
+                        // One-shot request: stop further updates for this subscription
+                        unsubscribe(subscriptionId);
+                        future.complete(payloadStr);
                     }
                     break;
                     
                 case "C": // Connection/completion
                     logger.info("Subscription {} completed with no data", subscriptionId);
-                    CompletableFuture<JsonNode> completionFuture = pendingRequests.remove(subscriptionId);
+                    CompletableFuture<String> completionFuture = pendingRequests.remove(subscriptionId);
                     if (completionFuture != null) {
                         // For "C" messages, complete with empty data
-                        Map<String, Object> response = Map.of(
-                            "subscription_id", subscriptionId,
-                            "data", objectMapper.createArrayNode()
-                        );
-                        completionFuture.complete(objectMapper.valueToTree(response));
+                        completionFuture.complete("");
                     }
                     break;
                     
                 case "E": // Error
                     logger.error("Subscription {} error: {}", subscriptionId, payloadStr);
-                    CompletableFuture<JsonNode> errorFuture = pendingRequests.remove(subscriptionId);
+                    CompletableFuture<String> errorFuture = pendingRequests.remove(subscriptionId);
                     if (errorFuture != null) {
                         errorFuture.completeExceptionally(new TradeRepublicError("Subscription error: " + payloadStr));
                     }
@@ -223,9 +253,39 @@ public class TradeRepublicApi {
     }
     
     /**
-     * Send subscription request
+     * Send subscription request; the response is {"subscription_id": ..., "data": payload} like in pytr,
+     * with an empty array as data if the subscription completed without payload
      */
     public CompletableFuture<JsonNode> subscribe(String type, Map<String, Object> parameters) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        String subscriptionId = sendSubscription(type, parameters, future);
+        return future.thenApply(payload -> {
+            ObjectNode response = objectMapper.createObjectNode();
+            response.put("subscription_id", subscriptionId);
+            try {
+                response.set("data", payload.isEmpty() ? objectMapper.createArrayNode() : JsonCodec.readTree(payload));
+            } catch (IOException e) {
+                throw new java.util.concurrent.CompletionException(new TradeRepublicError("Invalid payload for " + type, e));
+            }
+            return response;
+        });
+    }
+    
+    /**
+     * Send subscription request and return the raw payload text, empty if the subscription completed
+     * without payload. Lets callers bind the payload directly instead of building a tree first.
+     */
+    public CompletableFuture<String> subscribeRaw(String type, Map<String, Object> parameters) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        sendSubscription(type, parameters, future);
+        return future;
+    }
+    
+    /**
+     * Register the future for the payload and send the subscription
+     * @return the subscription id
+     */
+    private String sendSubscription(String type, Map<String, Object> parameters, CompletableFuture<String> future) {
         String subscriptionId = String.valueOf(subscriptionIdCounter.getAndIncrement());
         
         Map<String, Object> subscription = new java.util.HashMap<>();
@@ -240,7 +300,6 @@ public class TradeRepublicApi {
             subscription.put("token", sessionToken);
         }
         
-        CompletableFuture<JsonNode> future = new CompletableFuture<>();
         pendingRequests.put(subscriptionId, future);
         
         try {
@@ -253,7 +312,19 @@ public class TradeRepublicApi {
             future.completeExceptionally(new TradeRepublicError("Failed to send subscription", e));
         }
         
-        return future;
+        return subscriptionId;
+    }
+    
+    /**
+     * Cancel a subscription
+     */
+    public void unsubscribe(String subscriptionId) {
+        try {
+            webSocketClient.send("unsub " + subscriptionId);
+            logger.debug("Sent unsubscribe: {}", subscriptionId);
+        } catch (Exception e) {
+            logger.warn("Failed to unsubscribe {}: {}", subscriptionId, e.getMessage());
+        }
     }
     
     /**
@@ -278,6 +349,17 @@ public class TradeRepublicApi {
         return subscribe("timelineTransactions", params);
     }
     
+    /**
+     * Raw payload of a timeline transactions page, see {@link #subscribeRaw}
+     */
+    public CompletableFuture<String> getTimelineTransactionsPage(String cursor) {
+        Map<String, Object> params = new java.util.HashMap<>();
+        if (cursor != null && !cursor.isEmpty()) {
+            params.put("after", cursor);
+        }
+        return subscribeRaw("timelineTransactions", params);
+    }
+    
     /**
      * Get timeline activity log
      */
@@ -300,6 +382,17 @@ public class TradeRepublicApi {
         return subscribe("timelineActivityLog", params);
     }
     
+    /**
+     * Raw payload of a timeline activity log page, see {@link #subscribeRaw}
+     */
+    public CompletableFuture<String> getTimelineActivityLogPage(String cursor) {
+        Map<String, Object> params = new java.util.HashMap<>();
+        if (cursor != null && !cursor.isEmpty()) {
+            params.put("after", cursor);
+        }
+        return subscribeRaw("timelineActivityLog", params);
+    }
+    
     /**
      * Get timeline detail
      */
@@ -308,6 +401,13 @@ public class TradeRepublicApi {
         return subscribe("timelineDetailV2", params);
     }
     
+    /**
+     * Check if the WebSocket connection is open
+     */
+    public boolean isConnected() {
+        return webSocketClient != null && webSocketClient.isOpen();
+    }
+    
     /**
      * Close WebSocket connection
      */
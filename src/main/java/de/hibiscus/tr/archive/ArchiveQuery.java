@@ -0,0 +1,62 @@
+package de.hibiscus.tr.archive;
+
+/**
+ * Criteria for {@link EventArchive#query}; unset criteria match every event
+ */
+public class ArchiveQuery {
+    
+    private String eventType;
+    private String isin;
+    private String counterparty;
+    private long fromMillis = Long.MIN_VALUE;
+    private long toMillis = Long.MAX_VALUE;
+    
+    public String getEventType() {
+        return eventType;
+    }
+    
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+    
+    public String getIsin() {
+        return isin;
+    }
+    
+    public void setIsin(String isin) {
+        this.isin = isin;
+    }
+    
+    /**
+     * Counterparty as shown in the timeline title, matched case-insensitively
+     */
+    public String getCounterparty() {
+        return counterparty;
+    }
+    
+    public void setCounterparty(String counterparty) {
+        this.counterparty = counterparty;
+    }
+    
+    /**
+     * Inclusive start of the time range in epoch milliseconds
+     */
+    public long getFromMillis() {
+        return fromMillis;
+    }
+    
+    public void setFromMillis(long fromMillis) {
+        this.fromMillis = fromMillis;
+    }
+    
+    /**
+     * Exclusive end of the time range in epoch milliseconds
+     */
+    public long getToMillis() {
+        return toMillis;
+    }
+    
+    public void setToMillis(long toMillis) {
+        this.toMillis = toMillis;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,473 @@
+package de.hibiscus.tr.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.DetailIndex;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Local archive of raw timeline items and detail payloads. Records are appended to NDJSON segments
+ * partitioned by month ({@code archive/2024-06/segment-00001.ndjson}); an append-only index file maps
+ * each id to the latest item and details record and is loaded into an id and a timestamp index on open,
+ * plus secondary indexes on event type, ISIN and counterparty for {@link #query}.
+ * Records that did not change since they were last archived are not written again.
+ */
+public class EventArchive implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(EventArchive.class);
+    
+    public static final String DIRECTORY = "archive";
+    public static final String INDEX_FILE = "index.tsv";
+    
+    static final long SEGMENT_BYTES = 16L * 1024 * 1024;
+    private static final int FLUSH_INTERVAL = 1000;
+    private static final String ITEM = "item";
+    private static final String DETAILS = "details";
+    
+    private static final ObjectMapper objectMapper = JsonCodec.mapper();
+    
+    private final Path directory;
+    private final Path indexFile;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<Long, Set<String>> byTime = new TreeMap<>();
+    private final Map<String, Set<String>> byEventType = new HashMap<>();
+    private final Map<String, Set<String>> byIsin = new HashMap<>();
+    private final Map<String, Set<String>> byCounterparty = new HashMap<>();
+    private final Map<String, Segment> segments = new HashMap<>();
+    private final StringBuilder pendingIndexLines = new StringBuilder();
+    private int pendingRecords = 0;
+    
+    private EventArchive(Path directory) {
+        this.directory = directory;
+        this.indexFile = directory.resolve(INDEX_FILE);
+    }
+    
+    /**
+     * Open or create the archive below the output directory and load its index
+     */
+    public static EventArchive open(Path outputPath) throws IOException {
+        EventArchive archive = new EventArchive(outputPath.resolve(DIRECTORY));
+        Files.createDirectories(archive.directory);
+        archive.loadIndex();
+        return archive;
+    }
+    
+    /**
+     * Archive the raw timeline item of an event unless it is unchanged
+     */
+    public synchronized void putItem(TransactionEvent event, JsonNode item) throws IOException {
+        Entry entry = entries.get(event.getId());
+        String timestamp = event.getTimestamp();
+        String month = timestamp != null && timestamp.length() >= 7 ? timestamp.substring(0, 7) : "unknown";
+        Location location = append(event.getId(), ITEM, item, month, entry != null ? entry.item : null);
+        if (location != null) {
+            indexRecord(event.getId(), event.getEpochMillis(), ITEM, location, event.getEventType(), event.getTitle(), null);
+        }
+    }
+    
+    /**
+     * Archive the raw detail payload of an event unless it is unchanged; stored in the month of its item
+     */
+    public synchronized void putDetails(String id, JsonNode details) throws IOException {
+        Entry entry = entries.get(id);
+        String month = entry != null && entry.item != null ? monthOf(entry.item.segment) : "unknown";
+        long epochMillis = entry != null ? entry.epochMillis : TransactionEvent.UNKNOWN_TIME;
+        Location location = append(id, DETAILS, details, month, entry != null ? entry.details : null);
+        if (location != null) {
+            indexRecord(id, epochMillis, DETAILS, location, null, null, DetailIndex.of(details).getHeaderIsin());
+        }
+    }
+    
+    public synchronized boolean contains(String id) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.item != null;
+    }
+    
+    public synchronized boolean hasDetails(String id) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.details != null;
+    }
+    
+    /**
+     * Number of archived events
+     */
+    public synchronized int size() {
+        return (int) entries.values().stream().filter(entry -> entry.item != null).count();
+    }
+    
+    /**
+     * Ids of archived events with a time in [fromMillis, toMillis), in chronological order
+     */
+    public synchronized List<String> idsBetween(long fromMillis, long toMillis) {
+        List<String> ids = new ArrayList<>();
+        for (Set<String> sameTime : byTime.subMap(fromMillis, true, toMillis, false).values()) {
+            ids.addAll(sameTime);
+        }
+        return ids;
+    }
+    
+    /**
+     * Ids matching all criteria of the query, in chronological order. Starts from the smallest
+     * matching secondary index (or the timestamp index) instead of scanning all events.
+     */
+    public synchronized List<String> query(ArchiveQuery query) {
+        List<Set<String>> candidates = new ArrayList<>();
+        if (query.getEventType() != null) {
+            candidates.add(byEventType.getOrDefault(query.getEventType(), Set.of()));
+        }
+        if (query.getIsin() != null) {
+            candidates.add(byIsin.getOrDefault(query.getIsin(), Set.of()));
+        }
+        if (query.getCounterparty() != null) {
+            candidates.add(byCounterparty.getOrDefault(counterpartyKey(query.getCounterparty()), Set.of()));
+        }
+        if (candidates.isEmpty()) {
+            return idsBetween(query.getFromMillis(), query.getToMillis());
+        }
+        
+        candidates.sort(Comparator.comparingInt(Set::size));
+        List<String> ids = new ArrayList<>();
+        for (String id : candidates.get(0)) {
+            Entry entry = entries.get(id);
+            if (entry.item == null || entry.epochMillis < query.getFromMillis() || entry.epochMillis >= query.getToMillis()) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 1; i < candidates.size() && matches; i++) {
+                matches = candidates.get(i).contains(id);
+            }
+            if (matches) {
+                ids.add(id);
+            }
+        }
+        ids.sort(Comparator.comparingLong((String id) -> entries.get(id).epochMillis).thenComparing(id -> id));
+        return ids;
+    }
+    
+    /**
+     * ISIN from the header of the archived details, or null
+     */
+    public synchronized String getIsin(String id) {
+        Entry entry = entries.get(id);
+        return entry != null ? entry.isin : null;
+    }
+    
+    public synchronized JsonNode getItem(String id) throws IOException {
+        Entry entry = entries.get(id);
+        return entry != null && entry.item != null ? read(entry.item) : null;
+    }
+    
+    public synchronized JsonNode getDetails(String id) throws IOException {
+        Entry entry = entries.get(id);
+        return entry != null && entry.details != null ? read(entry.details) : null;
+    }
+    
+    /**
+     * Rebuild the events since the given time from their archived items and details, in chronological order
+     */
+    public synchronized List<TransactionEvent> loadEvents(long sinceMillis) throws IOException {
+        List<TransactionEvent> events = new ArrayList<>();
+        for (String id : idsBetween(sinceMillis > 0 ? sinceMillis : Long.MIN_VALUE, Long.MAX_VALUE)) {
+            TransactionEvent event = JsonCodec.readEvent(getItem(id));
+            event.setDetails(getDetails(id));
+            events.add(event);
+        }
+        return events;
+    }
+    
+    public Path getDirectory() {
+        return directory;
+    }
+    
+    /**
+     * Write buffered records, then the index lines referencing them
+     */
+    public synchronized void flush() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.out.flush();
+        }
+        if (pendingIndexLines.length() > 0) {
+            try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(pendingIndexLines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            pendingIndexLines.setLength(0);
+        }
+        pendingRecords = 0;
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (Segment segment : segments.values()) {
+            segment.out.close();
+        }
+        segments.clear();
+    }
+    
+    /**
+     * Append a record to the current segment of the month, or return null if it equals the previous record
+     */
+    private Location append(String id, String type, JsonNode data, String month, Location previous) throws IOException {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("id", id);
+        record.put("type", type);
+        record.set("data", data);
+        byte[] line = JsonCodec.writer().writeValueAsBytes(record);
+        long hash = hash(line);
+        if (previous != null && previous.hash == hash) {
+            return null;
+        }
+        
+        Segment segment = segment(month, line.length + 1);
+        long offset = segment.size;
+        segment.out.write(line);
+        segment.out.write('\n');
+        segment.size += line.length + 1;
+        return new Location(month + "/" + segment.name, offset, line.length, hash);
+    }
+    
+    /**
+     * Open segment of the month with room for the record, rolling over to a new segment when full
+     */
+    private Segment segment(String month, int recordLength) throws IOException {
+        Segment segment = segments.get(month);
+        if (segment != null && segment.size + recordLength > SEGMENT_BYTES && segment.size > 0) {
+            segment.out.close();
+            segment = null;
+        }
+        if (segment == null) {
+            Path monthDirectory = directory.resolve(month);
+            Files.createDirectories(monthDirectory);
+            int number = lastSegmentNumber(monthDirectory);
+            if (number == 0 || Files.size(monthDirectory.resolve(segmentName(number))) + recordLength > SEGMENT_BYTES) {
+                number++;
+            }
+            String name = segmentName(number);
+            Path file = monthDirectory.resolve(name);
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND), 64 * 1024);
+            segment = new Segment(name, out, size);
+            segments.put(month, segment);
+        }
+        return segment;
+    }
+    
+    private static int lastSegmentNumber(Path monthDirectory) throws IOException {
+        try (Stream<Path> files = Files.list(monthDirectory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.matches("segment-\\d{5}\\.ndjson"))
+                    .mapToInt(name -> Integer.parseInt(name.substring(8, 13)))
+                    .max().orElse(0);
+        }
+    }
+    
+    private static String segmentName(int number) {
+        return String.format("segment-%05d.ndjson", number);
+    }
+    
+    private static String monthOf(String segmentPath) {
+        return segmentPath.substring(0, segmentPath.indexOf('/'));
+    }
+    
+    private void indexRecord(String id, long epochMillis, String type, Location location,
+                             String eventType, String counterparty, String isin) throws IOException {
+        apply(id, epochMillis, type, location, eventType, counterparty, isin);
+        pendingIndexLines.append(id).append('\t').append(epochMillis).append('\t').append(type).append('\t')
+                .append(location.segment).append('\t').append(location.offset).append('\t')
+                .append(location.length).append('\t').append(Long.toHexString(location.hash)).append('\t')
+                .append(indexField(eventType)).append('\t').append(indexField(counterparty)).append('\t')
+                .append(indexField(isin)).append('\n');
+        if (++pendingRecords >= FLUSH_INTERVAL) {
+            flush();
+        }
+    }
+    
+    /**
+     * Update the id, timestamp and secondary indexes; a later record for the same id replaces the earlier one
+     */
+    private void apply(String id, long epochMillis, String type, Location location,
+                       String eventType, String counterparty, String isin) {
+        Entry entry = entries.computeIfAbsent(id, key -> new Entry());
+        if (ITEM.equals(type)) {
+            if (entry.item != null && entry.epochMillis != epochMillis) {
+                removeFromTimeIndex(id, entry.epochMillis);
+            }
+            entry.item = location;
+            entry.epochMillis = epochMillis;
+            byTime.computeIfAbsent(epochMillis, key -> new LinkedHashSet<>()).add(id);
+            entry.eventType = reindex(byEventType, id, entry.eventType, eventType);
+            entry.counterparty = reindex(byCounterparty, id, entry.counterparty, counterpartyKey(counterparty));
+        } else {
+            entry.details = location;
+            entry.isin = reindex(byIsin, id, entry.isin, isin);
+        }
+    }
+    
+    /**
+     * Move an id from its previous key to the new key of a secondary index
+     */
+    private static String reindex(Map<String, Set<String>> index, String id, String previous, String key) {
+        if (previous != null && !previous.equals(key)) {
+            Set<String> ids = index.get(previous);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                index.remove(previous);
+            }
+        }
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+        return key;
+    }
+    
+    /**
+     * Counterparties are matched case-insensitively
+     */
+    private static String counterpartyKey(String counterparty) {
+        return counterparty == null || counterparty.isBlank() ? null : counterparty.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Index fields are tab separated; tabs and line breaks in values become spaces, null becomes empty
+     */
+    private static String indexField(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+    
+    private static String fieldValue(String field) {
+        return field.isEmpty() ? null : field;
+    }
+    
+    private void removeFromTimeIndex(String id, long epochMillis) {
+        Set<String> sameTime = byTime.get(epochMillis);
+        if (sameTime != null && sameTime.remove(id) && sameTime.isEmpty()) {
+            byTime.remove(epochMillis);
+        }
+    }
+    
+    /**
+     * Load the index file; an incomplete last line from an interrupted run is ignored
+     */
+    private void loadIndex() throws IOException {
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        String content = Files.readString(indexFile, StandardCharsets.UTF_8);
+        int start = 0;
+        int lines = 0;
+        for (int end = content.indexOf('\n'); end >= 0; start = end + 1, end = content.indexOf('\n', start)) {
+            lines++;
+            String[] fields = content.substring(start, end).split("\t", -1);
+            if (fields.length != 10) {
+                logger.warn("Skipping malformed archive index line {}", lines);
+                continue;
+            }
+            apply(fields[0], Long.parseLong(fields[1]), fields[2], new Location(fields[3], Long.parseLong(fields[4]),
+                    Integer.parseInt(fields[5]), Long.parseUnsignedLong(fields[6], 16)),
+                    fieldValue(fields[7]), fieldValue(fields[8]), fieldValue(fields[9]));
+        }
+        logger.debug("Loaded archive index with {} records for {} events", lines, entries.size());
+    }
+    
+    private JsonNode read(Location location) throws IOException {
+        if (segments.containsKey(monthOf(location.segment))) {
+            // The record may still be buffered
+            segments.get(monthOf(location.segment)).out.flush();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(location.length);
+        try (FileChannel channel = FileChannel.open(directory.resolve(location.segment), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, location.offset + buffer.position()) < 0) {
+                    throw new IOException("Archive segment " + location.segment + " is truncated");
+                }
+            }
+        }
+        return JsonCodec.treeReader().readTree(buffer.array()).get("data");
+    }
+    
+    /**
+     * 64-bit FNV-1a
+     */
+    private static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * Latest item and details record of an event
+     */
+    private static class Entry {
+        private long epochMillis = TransactionEvent.UNKNOWN_TIME;
+        private Location item;
+        private Location details;
+        private String eventType;
+        private String counterparty;
+        private String isin;
+    }
+    
+    /**
+     * Position of a record in a segment, relative to the archive directory
+     */
+    private static class Location {
+        private final String segment;
+        private final long offset;
+        private final int length;
+        private final long hash;
+        
+        private Location(String segment, long offset, int length, long hash) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+    
+    /**
+     * Segment file open for appending
+     */
+    private static class Segment {
+        private final String name;
+        private final OutputStream out;
+        private long size;
+        
+        private Segment(String name, OutputStream out, long size) {
+            this.name = name;
+            this.out = out;
+            this.size = size;
+        }
+    }
+}
\ No newline at end of file
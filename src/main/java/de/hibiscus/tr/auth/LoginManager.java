@@ -3,16 +3,20 @@ package de.hibiscus.tr.auth;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.hibiscus.tr.api.TradeRepublicApi;
+import de.hibiscus.tr.model.JsonCodec;
 import de.hibiscus.tr.model.TradeRepublicError;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles authentication and login for Trade Republic
@@ -22,12 +26,28 @@ public class LoginManager {
     private static final Logger logger = LoggerFactory.getLogger(LoginManager.class);
     
     private static final String API_HOST = "https://api.traderepublic.com";
+    private static final int CONNECT_TIMEOUT_SECONDS = 30;
+    
+    // Shared console input; concurrent logins (batch mode) prompt for their codes one at a time
+    private static final Object CODE_PROMPT_LOCK = new Object();
+    private static BufferedReader consoleReader;
     
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
     private CookieJar cookieJar;
     
     public LoginManager() {
+        this(new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .readTimeout(Duration.ofSeconds(30))
+                .writeTimeout(Duration.ofSeconds(30))
+                .build());
+    }
+    
+    /**
+     * Create a login manager sharing connection pool and dispatcher of the given client
+     */
+    public LoginManager(OkHttpClient sharedClient) {
         
         // Add cookie jar for session management
         this.cookieJar = new CookieJar() {
@@ -45,14 +65,11 @@ public class LoginManager {
             }
         };
         
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(Duration.ofSeconds(30))
-                .readTimeout(Duration.ofSeconds(30))
-                .writeTimeout(Duration.ofSeconds(30))
+        this.httpClient = sharedClient.newBuilder()
                 .cookieJar(this.cookieJar)
                 .build();
         
-        this.objectMapper = new ObjectMapper();
+        this.objectMapper = JsonCodec.mapper();
     }
     
     /**
@@ -65,7 +82,7 @@ public class LoginManager {
         // Get credentials from parameters
         Credentials credentials = getCredentials(phoneNo, pin);
         
-        TradeRepublicApi api = new TradeRepublicApi();
+        TradeRepublicApi api = new TradeRepublicApi(httpClient);
         api.setWebLogin(true);
         
         try {
@@ -82,6 +99,32 @@ public class LoginManager {
         }
     }
     
+    /**
+     * Reconnect the WebSocket of an API client after the connection dropped, e.g. in watch mode. The
+     * session cookies of the last login are tried first; if they are no longer accepted the web login
+     * is repeated, which asks for a new code on the console.
+     */
+    public void reconnect(TradeRepublicApi api, String phoneNo, String pin) throws TradeRepublicError {
+        api.close();
+        try {
+            api.connect(getCookieHeader()).get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            logger.info("Reconnected with existing session");
+            return;
+        } catch (Exception e) {
+            logger.info("Could not reconnect with existing session, logging in again: {}", e.getMessage());
+        }
+        
+        api.close();
+        Credentials credentials = getCredentials(phoneNo, pin);
+        try {
+            performWebLogin(api, credentials);
+            api.connect(getCookieHeader()).get(CONNECT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            logger.info("Login successful");
+        } catch (Exception e) {
+            throw new TradeRepublicError("Login failed", e);
+        }
+    }
+    
     /**
      * Get credentials from parameters (mandatory)
      */
@@ -148,10 +191,7 @@ public class LoginManager {
             String processId = responseJson.get("processId").asText();
             
             logger.info("Login initiated, waiting for 4-digit code...");
-            System.out.println("Please enter the 4-digit code from your TradeRepublic app or SMS:");
-            
-            Scanner scanner = new Scanner(System.in);
-            String code = scanner.nextLine().trim();
+            String code = readLoginCode(credentials.getPhoneNo());
             
             // Step 2: Complete login with code
             
@@ -197,6 +237,34 @@ public class LoginManager {
         }
     }
     
+    /**
+     * Prompt for the 4-digit login code on the console
+     */
+    private String readLoginCode(String phoneNo) throws IOException, TradeRepublicError {
+        synchronized (CODE_PROMPT_LOCK) {
+            if (consoleReader == null) {
+                consoleReader = new BufferedReader(new InputStreamReader(System.in));
+            }
+            
+            System.out.println("Please enter the 4-digit code from your TradeRepublic app or SMS for " + maskPhoneNo(phoneNo) + ":");
+            String line = consoleReader.readLine();
+            if (line == null) {
+                throw new TradeRepublicError("No login code entered");
+            }
+            return line.trim();
+        }
+    }
+    
+    /**
+     * Mask phone number for console output, keeping the last 3 digits
+     */
+    private String maskPhoneNo(String phoneNo) {
+        if (phoneNo.length() <= 6) {
+            return phoneNo;
+        }
+        return phoneNo.substring(0, 3) + "*".repeat(phoneNo.length() - 6) + phoneNo.substring(phoneNo.length() - 3);
+    }
+    
     /**
      * Extract cookies as header string for WebSocket
      */
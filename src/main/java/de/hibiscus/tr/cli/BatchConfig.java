@@ -0,0 +1,129 @@
+package de.hibiscus.tr.cli;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for exporting several Trade Republic accounts in one run
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchConfig {
+    
+    @JsonProperty("parallelism")
+    private int parallelism = 2;
+    
+    @JsonProperty("accounts")
+    private List<Account> accounts = new ArrayList<>();
+    
+    public BatchConfig() {}
+    
+    // Getters and Setters
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+    
+    public void setAccounts(List<Account> accounts) {
+        this.accounts = accounts;
+    }
+    
+    /**
+     * Export settings for a single account
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Account {
+        @JsonProperty("name")
+        private String name;
+        
+        @JsonProperty("phoneNo")
+        private String phoneNo;
+        
+        @JsonProperty("pin")
+        private String pin;
+        
+        @JsonProperty("outputDir")
+        private String outputDir;
+        
+        @JsonProperty("lastDays")
+        private int lastDays = 0;
+        
+        @JsonProperty("includePending")
+        private boolean includePending = false;
+        
+        @JsonProperty("saveDetails")
+        private boolean saveDetails = false;
+        
+        public Account() {}
+        
+        public String getName() {
+            return name != null ? name : phoneNo;
+        }
+        
+        public void setName(String name) {
+            this.name = name;
+        }
+        
+        public String getPhoneNo() {
+            return phoneNo;
+        }
+        
+        public void setPhoneNo(String phoneNo) {
+            this.phoneNo = phoneNo;
+        }
+        
+        public String getPin() {
+            return pin;
+        }
+        
+        public void setPin(String pin) {
+            this.pin = pin;
+        }
+        
+        public String getOutputDir() {
+            return outputDir;
+        }
+        
+        public void setOutputDir(String outputDir) {
+            this.outputDir = outputDir;
+        }
+        
+        public int getLastDays() {
+            return lastDays;
+        }
+        
+        public void setLastDays(int lastDays) {
+            this.lastDays = lastDays;
+        }
+        
+        public boolean isIncludePending() {
+            return includePending;
+        }
+        
+        public void setIncludePending(boolean includePending) {
+            this.includePending = includePending;
+        }
+        
+        public boolean isSaveDetails() {
+            return saveDetails;
+        }
+        
+        public void setSaveDetails(boolean saveDetails) {
+            this.saveDetails = saveDetails;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Account{name='%s', outputDir='%s'}", getName(), outputDir);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,234 @@
+package de.hibiscus.tr.cli;
+
+import de.hibiscus.tr.api.TradeRepublicApi;
+import de.hibiscus.tr.archive.EventArchive;
+import de.hibiscus.tr.auth.LoginManager;
+import de.hibiscus.tr.export.AsyncDetailWriter;
+import de.hibiscus.tr.export.ExportSinks;
+import de.hibiscus.tr.export.FieldMapping;
+import de.hibiscus.tr.export.HibiscusExporter;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.ValidationException;
+import de.hibiscus.tr.timeline.PendingTracker;
+import de.hibiscus.tr.timeline.TimelineProcessor;
+import okhttp3.OkHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports several Trade Republic accounts listed in a config file within one process
+ */
+@Command(
+    name = "batch",
+    mixinStandardHelpOptions = true,
+    description = "Export several accounts listed in a JSON config file with bounded parallelism"
+)
+public class BatchExportCommand implements Callable<Integer> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchExportCommand.class);
+    
+    private static final String CHECKPOINT_FILE = "tr2hibiscus-checkpoint.json";
+    
+    @Parameters(index = "0", description = "Batch config file (JSON) listing accounts and output directories")
+    private Path configFile;
+    
+    @Option(names = {"--parallelism"}, description = "Number of accounts exported concurrently (overrides config)")
+    private Integer parallelism;
+    
+    @Option(names = {"--resume"}, description = "Resume interrupted syncs from their last checkpoint")
+    private boolean resume = false;
+    
+    @Option(names = {"--mapping"}, description = "Field mapping file (JSON) used for all accounts")
+    private Path mappingFile;
+    
+    @Option(names = {"--format"}, split = ",", description = "Export formats, comma separated: hibiscus, csv, camt053, mt940 (default: hibiscus)", defaultValue = "hibiscus")
+    private List<String> formats;
+    
+    @Option(names = {"--roll-by-month"}, description = "Write one XML file per calendar month")
+    private boolean rollByMonth = false;
+    
+    @Option(names = {"--max-objects-per-file"}, description = "Start a new XML file after this many transactions (0 = no limit)", defaultValue = "0")
+    private int maxObjectsPerFile;
+    
+    @Option(names = {"--details-format"}, description = "Layout of detail and debug files: ${COMPLETION-CANDIDATES}", defaultValue = "FILES")
+    private AsyncDetailWriter.Format detailsFormat;
+    
+    @Option(names = {"--archive"}, description = "Keep raw timeline items and details in a local archive below each output directory")
+    private boolean archive = false;
+    
+    @Option(names = {"--debug"}, description = "Enable debug logging")
+    private boolean debug = false;
+    
+    @Override
+    public Integer call() throws Exception {
+        BatchConfig config;
+        FieldMapping fieldMapping;
+        try {
+            config = JsonCodec.mapper().readValue(configFile.toFile(), BatchConfig.class);
+            validate(config);
+            fieldMapping = mappingFile != null ? FieldMapping.load(mappingFile) : FieldMapping.builtIn();
+            formats.forEach(ExportSinks::get);
+        } catch (java.io.IOException | ValidationException | IllegalArgumentException e) {
+            logger.error("Could not load batch config: {}", e.getMessage());
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+        
+        int threads = Math.max(1, parallelism != null ? parallelism : config.getParallelism());
+        logger.info("Starting batch export of {} accounts with parallelism {}", config.getAccounts().size(), threads);
+        
+        // Shared across all accounts: HTTP connection pool and dispatcher threads, account worker pool
+        OkHttpClient sharedHttpClient = new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .readTimeout(Duration.ofSeconds(30))
+                .writeTimeout(Duration.ofSeconds(30))
+                .build();
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-account-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        long start = System.currentTimeMillis();
+        List<Future<String>> results = new ArrayList<>();
+        try {
+            for (BatchConfig.Account account : config.getAccounts()) {
+                results.add(executor.submit(() -> exportAccount(account, sharedHttpClient, fieldMapping)));
+            }
+            
+            int failed = 0;
+            System.out.println("\n=== BATCH SUMMARY ===");
+            for (int i = 0; i < results.size(); i++) {
+                BatchConfig.Account account = config.getAccounts().get(i);
+                try {
+                    System.out.println(account.getName() + ": " + results.get(i).get());
+                } catch (java.util.concurrent.ExecutionException e) {
+                    failed++;
+                    logger.error("Export failed for account {}", account.getName(), e.getCause());
+                    System.out.println(account.getName() + ": FAILED - " + e.getCause().getMessage());
+                }
+            }
+            System.out.println("Accounts exported: " + (results.size() - failed) + "/" + results.size()
+                    + " in " + (System.currentTimeMillis() - start) / 1000 + "s");
+            System.out.println("=====================");
+            
+            return failed == 0 ? 0 : 1;
+            
+        } finally {
+            executor.shutdownNow();
+            sharedHttpClient.dispatcher().executorService().shutdown();
+            sharedHttpClient.connectionPool().evictAll();
+        }
+    }
+    
+    /**
+     * Run login, timeline processing and export for a single account
+     */
+    private String exportAccount(BatchConfig.Account account, OkHttpClient sharedHttpClient,
+                                 FieldMapping fieldMapping) throws Exception {
+        long start = System.currentTimeMillis();
+        Path outputPath = Paths.get(account.getOutputDir());
+        logger.info("Exporting account {} to {}", account.getName(), outputPath);
+        
+        // Accounts run in parallel, so each account's export report is printed with the batch summary
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        
+        TradeRepublicApi api = new LoginManager(sharedHttpClient).login(account.getPhoneNo(), account.getPin());
+        try (HibiscusExporter exporter = new HibiscusExporter(outputPath, account.isIncludePending(),
+                account.isSaveDetails(), debug, fieldMapping);
+             EventArchive eventArchive = archive ? EventArchive.open(outputPath) : null) {
+            exporter.setReport(new PrintStream(report, true, StandardCharsets.UTF_8));
+            exporter.setDetailsFormat(detailsFormat);
+            exporter.setRolling(rollByMonth, maxObjectsPerFile);
+            exporter.setFormats(formats);
+            
+            TimelineProcessor processor = new TimelineProcessor(api, calculateSinceTimestamp(account.getLastDays()),
+                    account.isIncludePending());
+            processor.enableCheckpoints(outputPath.resolve(CHECKPOINT_FILE), resume);
+            processor.setPendingTracker(PendingTracker.open(outputPath));
+            processor.setArchive(eventArchive);
+            if (!debug) {
+                // Skip details of exported and unchanged pending transactions
+                processor.setDetailFilter(exporter::needsDetails);
+            }
+            if (!debug && !account.isSaveDetails()) {
+                // Raw detail trees are only needed for debug and detail files
+                processor.setDetailProjection(HibiscusExporter.detailProjection(fieldMapping));
+            }
+            List<TransactionEvent> events = processor.processTimeline();
+            logger.info("Processing completed for account {}: {}", account.getName(), processor.getStatistics());
+            
+            exporter.exportTransactions(events);
+            
+            String details = report.toString(StandardCharsets.UTF_8).strip();
+            return String.format("OK - %d events in %ds", events.size(), (System.currentTimeMillis() - start) / 1000)
+                    + (details.isEmpty() ? "" : "\n  " + details.replace("\n", "\n  "));
+        } finally {
+            api.close();
+        }
+    }
+    
+    /**
+     * Calculate timestamp for filtering transactions of an account
+     */
+    private long calculateSinceTimestamp(int lastDays) {
+        if (lastDays <= 0) {
+            return 0; // Include all transactions
+        }
+        return LocalDateTime.now().minusDays(lastDays).atZone(ZoneId.systemDefault()).toEpochSecond();
+    }
+    
+    /**
+     * Validate batch config before any login is attempted
+     */
+    private void validate(BatchConfig config) throws ValidationException {
+        List<String> errors = new ArrayList<>();
+        if (config.getAccounts() == null || config.getAccounts().isEmpty()) {
+            errors.add("No accounts configured");
+        } else {
+            Map<Path, Integer> outputDirs = new HashMap<>();
+            for (int i = 0; i < config.getAccounts().size(); i++) {
+                BatchConfig.Account account = config.getAccounts().get(i);
+                if (account.getPhoneNo() == null || account.getPin() == null) {
+                    errors.add("Account " + (i + 1) + ": phoneNo and pin are required");
+                }
+                if (account.getOutputDir() == null) {
+                    errors.add("Account " + (i + 1) + ": outputDir is required");
+                } else {
+                    // Accounts sharing a directory would overwrite each other's history and checkpoint
+                    Integer other = outputDirs.putIfAbsent(Paths.get(account.getOutputDir()).toAbsolutePath().normalize(), i + 1);
+                    if (other != null) {
+                        errors.add("Account " + (i + 1) + ": outputDir is already used by account " + other);
+                    }
+                }
+            }
+        }
+        
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Invalid batch config " + configFile, errors);
+        }
+    }
+}
\ No newline at end of file
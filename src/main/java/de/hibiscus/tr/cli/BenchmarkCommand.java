@@ -0,0 +1,320 @@
+package de.hibiscus.tr.cli;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.api.ReplayApi;
+import de.hibiscus.tr.export.ExportSinks;
+import de.hibiscus.tr.export.FieldMapping;
+import de.hibiscus.tr.export.HibiscusExporter;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.PhaseTimer;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.ValidationException;
+import de.hibiscus.tr.timeline.PytrImporter;
+import de.hibiscus.tr.timeline.SyntheticTimeline;
+import de.hibiscus.tr.timeline.TimelineProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * Runs the login-free export pipeline against synthetic or recorded data and reports the time,
+ * throughput, allocation and peak heap of each phase as JSON
+ */
+@Command(
+    name = "benchmark",
+    mixinStandardHelpOptions = true,
+    description = "Run the export pipeline on synthetic or pytr data without login and report phase timings as JSON"
+)
+public class BenchmarkCommand implements Callable<Integer> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BenchmarkCommand.class);
+    
+    /** Items per timeline page, as sent by Trade Republic */
+    private static final int PAGE_SIZE = 50;
+    private static final double MB = 1024.0 * 1024.0;
+    
+    @Option(names = {"--events"}, description = "Number of synthetic events (default: ${DEFAULT-VALUE})", defaultValue = "10000")
+    private int eventCount;
+    
+    @Option(names = {"--seed"}, description = "Seed of the synthetic timeline (default: ${DEFAULT-VALUE})", defaultValue = "1")
+    private long seed;
+    
+    @Option(names = {"--mix"}, description = "Synthetic event mix, e.g. card-payment=10,dividend=2 (default: a typical account)")
+    private String mix;
+    
+    @Option(names = {"--import-pytr"}, description = "Replay pytr JSON dumps (all_events.json or a directory of dumps) instead of synthetic data")
+    private Path pytrDump;
+    
+    @Option(names = {"--format"}, split = ",", description = "Export formats, comma separated: hibiscus, csv, camt053, mt940 (default: hibiscus)", defaultValue = "hibiscus")
+    private List<String> formats;
+    
+    @Option(names = {"--include-pending"}, description = "Include pending transactions")
+    private boolean includePending = false;
+    
+    @Option(names = {"--mapping"}, description = "Field mapping file (JSON) overriding the built-in column and comment mapping")
+    private Path mappingFile;
+    
+    @Option(names = {"--warmup"}, description = "Unreported runs before measuring (default: ${DEFAULT-VALUE})", defaultValue = "1")
+    private int warmupRuns;
+    
+    @Option(names = {"--runs"}, description = "Measured runs (default: ${DEFAULT-VALUE})", defaultValue = "3")
+    private int runs;
+    
+    @Option(names = {"--report"}, description = "Write the JSON report to this file instead of standard output")
+    private Path reportFile;
+    
+    @Option(names = {"--work-dir"}, description = "Keep the exported files of each run in this directory (default: temporary, deleted)")
+    private Path workDir;
+    
+    @Option(names = {"-v", "--verbose"}, description = "Keep logging and export output during the runs")
+    private boolean verbose = false;
+    
+    @Override
+    public Integer call() throws Exception {
+        if (runs < 1 || warmupRuns < 0) {
+            System.err.println("Error: --runs must be at least 1 and --warmup at least 0");
+            return 1;
+        }
+        
+        FieldMapping fieldMapping;
+        try {
+            fieldMapping = mappingFile != null ? FieldMapping.load(mappingFile) : FieldMapping.builtIn();
+            formats.forEach(ExportSinks::get);
+        } catch (IOException | ValidationException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+        
+        // Logging and the export summary go to standard output and would be measured along with the pipeline
+        ch.qos.logback.classic.Logger appLogger = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger("de.hibiscus.tr");
+        Level level = appLogger.getLevel();
+        PrintStream out = System.out;
+        if (!verbose) {
+            appLogger.setLevel(Level.WARN);
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+        
+        ObjectNode report;
+        try {
+            List<JsonNode> items;
+            try {
+                items = pytrDump != null ? recordedItems() : syntheticItems();
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: " + e.getMessage());
+                return 1;
+            } catch (IOException e) {
+                logger.error("Could not read pytr dump", e);
+                System.err.println("Error: Could not read pytr dump: " + e.getMessage());
+                return 1;
+            }
+            if (items.isEmpty()) {
+                System.err.println("Error: No events to replay");
+                return 1;
+            }
+            
+            report = createReport(items.size());
+            ArrayNode runReports = report.putArray("runs");
+            boolean temporary = workDir == null;
+            Path directory = temporary ? Files.createTempDirectory("tr-hibiscus-benchmark") : workDir;
+            try {
+                for (int run = 1; run <= warmupRuns + runs; run++) {
+                    boolean warmup = run <= warmupRuns;
+                    System.err.println((warmup ? "Warmup run " + run : "Run " + (run - warmupRuns)) + " with " + items.size() + " events...");
+                    ObjectNode runReport = runPipeline(items, fieldMapping, directory.resolve("run-" + run));
+                    if (!warmup) {
+                        runReport.put("run", run - warmupRuns);
+                        runReports.add(runReport);
+                    }
+                }
+            } finally {
+                if (temporary) {
+                    deleteRecursively(directory);
+                }
+            }
+            report.set("median", median(runReports));
+        } finally {
+            System.setOut(out);
+            appLogger.setLevel(level);
+        }
+        
+        if (reportFile != null) {
+            JsonCodec.prettyWriter().writeValue(reportFile.toFile(), report);
+            System.err.println("Benchmark report written to " + reportFile);
+        } else {
+            System.out.println(JsonCodec.prettyWriter().writeValueAsString(report));
+        }
+        return 0;
+    }
+    
+    /**
+     * One pass of page ingestion, detail resolution and export into a fresh directory, so every run
+     * starts without history and exports all events
+     */
+    private ObjectNode runPipeline(List<JsonNode> items, FieldMapping fieldMapping, Path outputPath) throws Exception {
+        ReplayApi api = new ReplayApi(items, PAGE_SIZE);
+        PhaseTimer timer = new PhaseTimer();
+        
+        // Start each run from a collected heap, so peaks and allocations of earlier runs do not leak in
+        System.gc();
+        long start = System.nanoTime();
+        int loaded;
+        try (HibiscusExporter exporter = new HibiscusExporter(outputPath, includePending, false, false, fieldMapping)) {
+            exporter.setFormats(formats);
+            exporter.setPhaseTimer(timer);
+            
+            TimelineProcessor processor = new TimelineProcessor(api, 0, includePending);
+            processor.setDetailFilter(exporter::needsDetails);
+            processor.setDetailProjection(HibiscusExporter.detailProjection(fieldMapping));
+            processor.setPhaseTimer(timer);
+            
+            List<TransactionEvent> events = processor.processTimeline();
+            loaded = events.size();
+            exporter.exportTransactions(events);
+            timer.stop();
+        }
+        long wallNanos = System.nanoTime() - start;
+        
+        ObjectNode runReport = JsonCodec.mapper().createObjectNode();
+        long allocated = 0;
+        long peak = 0;
+        ObjectNode phases = JsonCodec.mapper().createObjectNode();
+        for (PhaseTimer.Phase phase : timer.getPhases()) {
+            allocated += phase.getAllocatedBytes();
+            peak = Math.max(peak, phase.getPeakHeapBytes());
+            putMeasurements(phases.putObject(phase.getName()), items.size(), phase.getWallNanos(),
+                    phase.getAllocatedBytes(), phase.getPeakHeapBytes());
+        }
+        putMeasurements(runReport, items.size(), wallNanos, allocated, peak);
+        runReport.put("loadedEvents", loaded);
+        runReport.put("detailRequests", api.getDetailRequests());
+        runReport.set("phases", phases);
+        return runReport;
+    }
+    
+    private static void putMeasurements(ObjectNode node, int events, long wallNanos, long allocatedBytes, long peakHeapBytes) {
+        double seconds = Math.max(wallNanos, 1) / 1e9;
+        node.put("wallMillis", round(wallNanos / 1e6));
+        node.put("eventsPerSecond", round(events / seconds));
+        node.put("allocatedBytes", allocatedBytes);
+        node.put("allocationMBPerSecond", round(allocatedBytes / MB / seconds));
+        node.put("peakHeapBytes", peakHeapBytes);
+    }
+    
+    /**
+     * Median of each measurement over the runs, for the run totals and per phase
+     */
+    private static ObjectNode median(ArrayNode runReports) {
+        ObjectNode median = JsonCodec.mapper().createObjectNode();
+        Map<String, List<JsonNode>> phases = new LinkedHashMap<>();
+        List<JsonNode> totals = new ArrayList<>();
+        for (JsonNode runReport : runReports) {
+            totals.add(runReport);
+            runReport.path("phases").fields().forEachRemaining(phase ->
+                    phases.computeIfAbsent(phase.getKey(), name -> new ArrayList<>()).add(phase.getValue()));
+        }
+        putMedians(median, totals);
+        ObjectNode medianPhases = median.putObject("phases");
+        phases.forEach((name, values) -> putMedians(medianPhases.putObject(name), values));
+        return median;
+    }
+    
+    private static void putMedians(ObjectNode node, List<JsonNode> values) {
+        for (String field : new String[] {"wallMillis", "eventsPerSecond", "allocationMBPerSecond"}) {
+            node.put(field, medianOf(values, field));
+        }
+        for (String field : new String[] {"allocatedBytes", "peakHeapBytes"}) {
+            node.put(field, (long) medianOf(values, field));
+        }
+    }
+    
+    private static double medianOf(List<JsonNode> values, String field) {
+        double[] sorted = values.stream().mapToDouble(value -> value.path(field).asDouble()).sorted().toArray();
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : round((sorted[middle - 1] + sorted[middle]) / 2);
+    }
+    
+    private ObjectNode createReport(int events) {
+        ObjectNode report = JsonCodec.mapper().createObjectNode();
+        report.put("created", LocalDateTime.now().toString());
+        
+        ObjectNode environment = report.putObject("environment");
+        environment.put("java", System.getProperty("java.version"));
+        environment.put("vm", System.getProperty("java.vm.name"));
+        environment.put("os", System.getProperty("os.name") + " " + System.getProperty("os.arch"));
+        environment.put("processors", Runtime.getRuntime().availableProcessors());
+        environment.put("maxHeapBytes", Runtime.getRuntime().maxMemory());
+        environment.put("allocationMeasured", new PhaseTimer().isAllocationSupported());
+        
+        ObjectNode configuration = report.putObject("configuration");
+        if (pytrDump != null) {
+            configuration.put("source", "pytr");
+            configuration.put("dump", pytrDump.toString());
+        } else {
+            configuration.put("source", "synthetic");
+            configuration.put("seed", seed);
+            configuration.put("mix", mix);
+        }
+        configuration.put("events", events);
+        configuration.put("pageSize", PAGE_SIZE);
+        ArrayNode formatList = configuration.putArray("formats");
+        formats.forEach(formatList::add);
+        configuration.put("includePending", includePending);
+        configuration.put("mapping", mappingFile != null ? mappingFile.toString() : null);
+        configuration.put("warmupRuns", warmupRuns);
+        configuration.put("runs", runs);
+        return report;
+    }
+    
+    private List<JsonNode> syntheticItems() {
+        SyntheticTimeline timeline = new SyntheticTimeline(seed);
+        if (mix != null) {
+            timeline.setMix(SyntheticTimeline.parseMix(mix));
+        }
+        return new ArrayList<>(timeline.items(eventCount));
+    }
+    
+    /**
+     * Events of the pytr dumps as timeline items with details, newest first like the timeline feed
+     */
+    private List<JsonNode> recordedItems() throws IOException {
+        List<TransactionEvent> events = new ArrayList<>(new PytrImporter(0).importEvents(pytrDump));
+        events.sort(Comparator.comparingLong(TransactionEvent::getEpochMillis).reversed());
+        List<JsonNode> items = new ArrayList<>(events.size());
+        for (TransactionEvent event : events) {
+            items.add(JsonCodec.mapper().valueToTree(event));
+        }
+        return items;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+    
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete benchmark directory {}", directory, e);
+        }
+    }
+}
\ No newline at end of file
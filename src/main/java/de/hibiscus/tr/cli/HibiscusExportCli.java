@@ -1,17 +1,27 @@
 package de.hibiscus.tr.cli;
 
 import de.hibiscus.tr.api.TradeRepublicApi;
+import de.hibiscus.tr.archive.EventArchive;
 import de.hibiscus.tr.auth.LoginManager;
+import de.hibiscus.tr.export.AsyncDetailWriter;
+import de.hibiscus.tr.export.ExportSinks;
+import de.hibiscus.tr.export.FieldMapping;
 import de.hibiscus.tr.export.HibiscusExporter;
 import de.hibiscus.tr.model.TradeRepublicError;
 import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.ValidationException;
+import de.hibiscus.tr.timeline.PendingTracker;
+import de.hibiscus.tr.timeline.PytrImporter;
 import de.hibiscus.tr.timeline.TimelineProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
 
 import java.nio.file.Path;
 import java.time.LocalDateTime;
@@ -26,19 +36,27 @@ import java.util.concurrent.Callable;
     name = "tr-hibiscus",
     mixinStandardHelpOptions = true,
     version = "1.0.0",
-    description = "Export Trade Republic transaction data to Hibiscus banking software format"
+    description = "Export Trade Republic transaction data to Hibiscus banking software format",
+    subcommands = {BatchExportCommand.class, QueryCommand.class, BenchmarkCommand.class}
 )
 public class HibiscusExportCli implements Callable<Integer> {
     
     private static final Logger logger = LoggerFactory.getLogger(HibiscusExportCli.class);
     
-    @Parameters(index = "0", description = "Output directory for exported files")
+    private static final String CHECKPOINT_FILE = "tr2hibiscus-checkpoint.json";
+    private static final int MAX_RECONNECT_DELAY_SECONDS = 300;
+    
+    @Spec
+    private CommandSpec spec;
+    
+    // Not marked as required so that subcommands can run without them; checked in call()
+    @Parameters(index = "0", arity = "0..1", description = "Output directory for exported files")
     private Path outputPath;
     
-    @Option(names = {"-n", "--phone-no"}, description = "TradeRepublic phone number (international format)", required = true)
+    @Option(names = {"-n", "--phone-no"}, description = "TradeRepublic phone number (international format)")
     private String phoneNo;
     
-    @Option(names = {"-p", "--pin"}, description = "TradeRepublic pin", required = true)
+    @Option(names = {"-p", "--pin"}, description = "TradeRepublic pin")
     private String pin;
     
     
@@ -51,6 +69,39 @@ public class HibiscusExportCli implements Callable<Integer> {
     @Option(names = {"--save-details"}, description = "Save each transaction as JSON file")
     private boolean saveDetails = false;
     
+    @Option(names = {"--details-format"}, description = "Layout of --save-details and --debug files: ${COMPLETION-CANDIDATES}", defaultValue = "FILES")
+    private AsyncDetailWriter.Format detailsFormat;
+    
+    @Option(names = {"--format"}, split = ",", description = "Export formats, comma separated: hibiscus, csv, camt053, mt940 (default: hibiscus)", defaultValue = "hibiscus")
+    private List<String> formats;
+    
+    @Option(names = {"--roll-by-month"}, description = "Write one XML file per calendar month")
+    private boolean rollByMonth = false;
+    
+    @Option(names = {"--max-objects-per-file"}, description = "Start a new XML file after this many transactions (0 = no limit)", defaultValue = "0")
+    private int maxObjectsPerFile;
+    
+    @Option(names = {"--resume"}, description = "Resume an interrupted sync from the last checkpoint")
+    private boolean resume = false;
+    
+    @Option(names = {"--watch"}, description = "Keep running and export new transactions continuously")
+    private boolean watch = false;
+    
+    @Option(names = {"--poll-interval"}, description = "Seconds between timeline polls in watch mode", defaultValue = "60")
+    private int pollInterval;
+    
+    @Option(names = {"--archive"}, description = "Keep raw timeline items and details in a local archive below the output directory")
+    private boolean archive = false;
+    
+    @Option(names = {"--offline"}, description = "Export from the local archive without logging in, ignoring the history (see --archive)")
+    private boolean offline = false;
+    
+    @Option(names = {"--import-pytr"}, description = "Export from pytr JSON dumps (all_events.json or a directory of dumps) instead of logging in")
+    private Path pytrDump;
+    
+    @Option(names = {"--mapping"}, description = "Field mapping file (JSON) overriding the built-in column and comment mapping")
+    private Path mappingFile;
+    
     @Option(names = {"-v", "--verbose"}, description = "Enable verbose logging")
     private boolean verbose = false;
     
@@ -58,18 +109,48 @@ public class HibiscusExportCli implements Callable<Integer> {
     private boolean debug = false;
     
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new HibiscusExportCli()).execute(args);
+        int exitCode = new CommandLine(new HibiscusExportCli()).setCaseInsensitiveEnumValuesAllowed(true).execute(args);
         System.exit(exitCode);
     }
     
     @Override
     public Integer call() throws Exception {
+        validateExportArguments();
         setupLogging();
         
         logger.info("Starting Trade Republic to Hibiscus export");
         logger.info("Output path: {}", outputPath);
         logger.info("Include pending: {}", includePending);
         logger.info("Last days: {}", lastDays);
+        logger.info("Resume: {}", resume);
+        logger.info("Watch: {}", watch);
+        logger.info("Formats: {}", formats);
+        logger.info("Archive: {}", archive);
+        logger.info("Offline: {}", offline);
+        logger.info("pytr dump: {}", pytrDump);
+        
+        FieldMapping fieldMapping;
+        try {
+            fieldMapping = mappingFile != null ? FieldMapping.load(mappingFile) : FieldMapping.builtIn();
+        } catch (java.io.IOException | ValidationException e) {
+            logger.error("Could not load field mapping: {}", e.getMessage());
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+        
+        try {
+            formats.forEach(ExportSinks::get);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+        
+        if (offline) {
+            return exportOffline(fieldMapping);
+        }
+        if (pytrDump != null) {
+            return exportPytrDump(fieldMapping);
+        }
         
         try {
             // Calculate timestamp for filtering
@@ -79,20 +160,39 @@ public class HibiscusExportCli implements Callable<Integer> {
             LoginManager loginManager = new LoginManager();
             TradeRepublicApi api = loginManager.login(phoneNo, pin);
             
-            try {
+            try (HibiscusExporter exporter = new HibiscusExporter(outputPath, includePending, saveDetails, debug, fieldMapping);
+                 EventArchive eventArchive = archive ? EventArchive.open(outputPath) : null) {
+                exporter.setDetailsFormat(detailsFormat);
+                exporter.setRolling(rollByMonth, maxObjectsPerFile);
+                exporter.setFormats(formats);
+                
                 // Process timeline and get transactions
                 TimelineProcessor processor = new TimelineProcessor(api, sinceTimestamp, includePending);
+                processor.enableCheckpoints(outputPath.resolve(CHECKPOINT_FILE), resume);
+                processor.setPendingTracker(PendingTracker.open(outputPath));
+                processor.setArchive(eventArchive);
+                if (!debug) {
+                    // Skip details of exported and unchanged pending transactions
+                    processor.setDetailFilter(exporter::needsDetails);
+                }
+                if (!debug && !saveDetails) {
+                    // Raw detail trees are only needed for debug and detail files
+                    processor.setDetailProjection(HibiscusExporter.detailProjection(fieldMapping));
+                }
                 List<TransactionEvent> events = processor.processTimeline();
                 
                 logger.info("Processing completed: {}", processor.getStatistics());
                 
                 // Export to Hibiscus format
-                HibiscusExporter exporter = new HibiscusExporter(outputPath, includePending, saveDetails, debug);
                 exporter.exportTransactions(events);
                 
                 logger.info("Export completed successfully");
                 System.out.println("Export completed successfully");
                 
+                if (watch) {
+                    runWatchLoop(processor, exporter, api, loginManager);
+                }
+                
                 return 0;
                 
             } finally {
@@ -110,6 +210,136 @@ public class HibiscusExportCli implements Callable<Integer> {
         }
     }
     
+    /**
+     * Export the archived events of the selected time range again, e.g. after a mapping change
+     */
+    private int exportOffline(FieldMapping fieldMapping) {
+        try (EventArchive eventArchive = EventArchive.open(outputPath);
+             HibiscusExporter exporter = new HibiscusExporter(outputPath, includePending, saveDetails, debug, fieldMapping)) {
+            exporter.setDetailsFormat(detailsFormat);
+            exporter.setRolling(rollByMonth, maxObjectsPerFile);
+            exporter.setFormats(formats);
+            exporter.setIgnoreHistory(true);
+            
+            List<TransactionEvent> events = eventArchive.loadEvents(calculateSinceTimestamp() * 1000);
+            if (events.isEmpty()) {
+                System.err.println("Error: No archived events in " + eventArchive.getDirectory() + " (run an online export with --archive first)");
+                return 1;
+            }
+            System.out.println("Loaded " + events.size() + " events from archive " + eventArchive.getDirectory());
+            
+            exporter.exportTransactions(events);
+            System.out.println("Export completed successfully");
+            return 0;
+            
+        } catch (TradeRepublicError e) {
+            logger.error("Export error: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (java.io.IOException e) {
+            logger.error("Could not read archive", e);
+            System.err.println("Error: Could not read archive: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * Export the events of pytr dumps; exported ids enter the history like after an online sync
+     */
+    private int exportPytrDump(FieldMapping fieldMapping) {
+        try (HibiscusExporter exporter = new HibiscusExporter(outputPath, includePending, saveDetails, debug, fieldMapping)) {
+            exporter.setDetailsFormat(detailsFormat);
+            exporter.setRolling(rollByMonth, maxObjectsPerFile);
+            exporter.setFormats(formats);
+            
+            PytrImporter importer = new PytrImporter(calculateSinceTimestamp());
+            List<TransactionEvent> events = importer.importEvents(pytrDump);
+            logger.info("Import completed: {}", importer.getStatistics());
+            System.out.println("Imported " + events.size() + " events from " + pytrDump);
+            
+            exporter.exportTransactions(events);
+            System.out.println("Export completed successfully");
+            return 0;
+            
+        } catch (TradeRepublicError e) {
+            logger.error("Export error: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } catch (java.io.IOException e) {
+            logger.error("Could not read pytr dump", e);
+            System.err.println("Error: Could not read pytr dump: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * Follow the timeline and export new transactions as small delta files until interrupted.
+     * A dropped connection is reopened with exponential backoff, logging in again if the session expired.
+     */
+    private void runWatchLoop(TimelineProcessor processor, HibiscusExporter exporter, TradeRepublicApi api,
+                              LoginManager loginManager) throws InterruptedException {
+        logger.info("Watching timeline for new transactions every {} seconds", pollInterval);
+        System.out.println("Watching for new transactions (press Ctrl+C to stop)");
+        
+        int reconnectFailures = 0;
+        while (true) {
+            Thread.sleep(reconnectDelay(reconnectFailures) * 1000L);
+            
+            if (!api.isConnected()) {
+                logger.warn("Connection to Trade Republic closed, reconnecting");
+                try {
+                    loginManager.reconnect(api, phoneNo, pin);
+                    reconnectFailures = 0;
+                } catch (TradeRepublicError e) {
+                    reconnectFailures++;
+                    logger.warn("Reconnect failed, retrying in {} seconds: {}", reconnectDelay(reconnectFailures),
+                            e.getMessage());
+                    continue;
+                }
+            }
+            
+            try {
+                List<TransactionEvent> newEvents = processor.pollNewEvents();
+                if (!newEvents.isEmpty()) {
+                    logger.info("Found {} new or changed events", newEvents.size());
+                    exporter.exportTransactions(newEvents);
+                }
+            } catch (TradeRepublicError e) {
+                logger.warn("Watch poll failed, retrying in {} seconds: {}", pollInterval, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Seconds to wait before the next poll: the poll interval, doubled per failed reconnect up to a limit
+     */
+    private long reconnectDelay(int failures) {
+        return Math.min((long) pollInterval << Math.min(failures, 16), Math.max(pollInterval, MAX_RECONNECT_DELAY_SECONDS));
+    }
+    
+    /**
+     * Check the arguments required by the default export command
+     */
+    private void validateExportArguments() {
+        List<String> missing = new java.util.ArrayList<>();
+        boolean login = !offline && pytrDump == null;
+        if (phoneNo == null && login) {
+            missing.add("'--phone-no=<phoneNo>'");
+        }
+        if (pin == null && login) {
+            missing.add("'--pin=<pin>'");
+        }
+        if (outputPath == null) {
+            missing.add("'<outputPath>'");
+        }
+        if (!missing.isEmpty()) {
+            throw new ParameterException(spec.commandLine(), "Missing required options and parameters: " + String.join(", ", missing));
+        }
+        if (pollInterval < 1) {
+            throw new ParameterException(spec.commandLine(), "--poll-interval must be at least 1 second");
+        }
+    }
+    
     /**
      * Calculate timestamp for filtering transactions
      */
@@ -0,0 +1,186 @@
+package de.hibiscus.tr.cli;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.hibiscus.tr.archive.ArchiveQuery;
+import de.hibiscus.tr.archive.EventArchive;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.Money;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Queries the local archive by event type, ISIN, counterparty and date using its indexes
+ */
+@Command(
+    name = "query",
+    mixinStandardHelpOptions = true,
+    description = "Query transactions in the local archive (see --archive) and print them as CSV or JSON"
+)
+public class QueryCommand implements Callable<Integer> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(QueryCommand.class);
+    
+    private static final String[] HEADER = {
+        "Zeitstempel", "ID", "Art", "Status", "Titel", "Untertitel", "Betrag", "Währung", "ISIN"
+    };
+    private static final char SEPARATOR = ';';
+    
+    /**
+     * Output format of the results
+     */
+    public enum Format { CSV, JSON }
+    
+    @Parameters(index = "0", description = "Output directory containing the archive")
+    private Path outputPath;
+    
+    @Option(names = {"--type"}, description = "Event type, e.g. CREDIT or card_successful_transaction")
+    private String eventType;
+    
+    @Option(names = {"--isin"}, description = "ISIN from the transaction details")
+    private String isin;
+    
+    @Option(names = {"--counterparty"}, description = "Counterparty or merchant as shown in the timeline (case-insensitive)")
+    private String counterparty;
+    
+    @Option(names = {"--from"}, description = "First day to include (yyyy-MM-dd)")
+    private LocalDate from;
+    
+    @Option(names = {"--to"}, description = "Last day to include (yyyy-MM-dd)")
+    private LocalDate to;
+    
+    @Option(names = {"--format"}, description = "Output format: ${COMPLETION-CANDIDATES}", defaultValue = "CSV")
+    private Format format;
+    
+    @Option(names = {"--output"}, description = "Write results to this file instead of standard output")
+    private Path output;
+    
+    @Override
+    public Integer call() throws Exception {
+        if (!Files.isDirectory(outputPath.resolve(EventArchive.DIRECTORY))) {
+            System.err.println("Error: No archive in " + outputPath + " (run an export with --archive first)");
+            return 1;
+        }
+        
+        ArchiveQuery query = new ArchiveQuery();
+        query.setEventType(eventType);
+        query.setIsin(isin);
+        query.setCounterparty(counterparty);
+        if (from != null) {
+            query.setFromMillis(from.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        if (to != null) {
+            query.setToMillis(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        
+        try (EventArchive archive = EventArchive.open(outputPath)) {
+            List<String> ids = archive.query(query);
+            logger.debug("Query matched {} archived events", ids.size());
+            
+            Writer out = output != null ? Files.newBufferedWriter(output, StandardCharsets.UTF_8)
+                    : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            try {
+                if (format == Format.JSON) {
+                    writeJson(archive, ids, out);
+                } else {
+                    writeCsv(archive, ids, out);
+                }
+            } finally {
+                if (output != null) {
+                    out.close();
+                } else {
+                    out.flush();
+                }
+            }
+            return 0;
+            
+        } catch (IOException e) {
+            logger.error("Query failed", e);
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+    
+    /**
+     * Write one CSV row per event, read from the archive one at a time
+     */
+    private void writeCsv(EventArchive archive, List<String> ids, Writer out) throws IOException {
+        writeRow(out, HEADER);
+        for (String id : ids) {
+            TransactionEvent event = JsonCodec.readEvent(archive.getItem(id));
+            writeRow(out, new String[] {
+                nullToEmpty(event.getTimestamp()),
+                event.getId(),
+                nullToEmpty(event.getEventType()),
+                nullToEmpty(event.getStatus()),
+                nullToEmpty(event.getTitle()),
+                nullToEmpty(event.getSubtitle()),
+                event.hasAmount() ? Money.format(event.getAmount().getMinorUnits()) : "",
+                event.hasAmount() ? nullToEmpty(event.getAmount().getCurrency()) : "",
+                nullToEmpty(archive.getIsin(id))
+            });
+        }
+    }
+    
+    /**
+     * Write a JSON array with the raw item and details of each event, streamed one event at a time
+     */
+    private void writeJson(EventArchive archive, List<String> ids, Writer out) throws IOException {
+        JsonGenerator generator = JsonCodec.factory().createGenerator(out);
+        generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+        generator.useDefaultPrettyPrinter();
+        generator.writeStartArray();
+        for (String id : ids) {
+            generator.writeStartObject();
+            generator.writeStringField("id", id);
+            generator.writeStringField("isin", archive.getIsin(id));
+            generator.writeFieldName("item");
+            generator.writeTree(archive.getItem(id));
+            JsonNode details = archive.getDetails(id);
+            if (details != null) {
+                generator.writeFieldName("details");
+                generator.writeTree(details);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+    
+    private static void writeRow(Writer out, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(SEPARATOR);
+            }
+            String field = fields[i];
+            if (field.indexOf(SEPARATOR) >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(field.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(field);
+            }
+        }
+        out.write("\r\n");
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
\ No newline at end of file
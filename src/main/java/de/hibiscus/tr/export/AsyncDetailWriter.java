@@ -0,0 +1,262 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import de.hibiscus.tr.model.JsonCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes detail and debug JSON files on a background thread.
+ * Callers only enqueue; a full queue makes them wait for the writer instead of dropping entries, so the
+ * export only waits for disk I/O when it produces faster than the disk takes it. Entries go to individual
+ * files, one NDJSON file or one zip archive.
+ */
+public class AsyncDetailWriter implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDetailWriter.class);
+    
+    static final int QUEUE_CAPACITY = 16384;
+    private static final Entry END = new Entry(null, null, false);
+    
+    /**
+     * Output layout for detail files
+     */
+    public enum Format { FILES, NDJSON, ZIP }
+    
+    private final Path outputPath;
+    private final Format format;
+    private final ObjectWriter compactWriter;
+    private final ObjectWriter prettyWriter;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread thread;
+    private final Thread shutdownHook;
+    private final Set<Path> createdDirectories = new HashSet<>();
+    private final Map<String, Integer> zipEntryNames = new HashMap<>();
+    private final Path archiveFile;
+    private OutputStream archiveOut;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private int written = 0;
+    
+    public AsyncDetailWriter(Path outputPath, Format format) {
+        this.outputPath = outputPath;
+        this.format = format;
+        
+        // Archive streams stay open across entries
+        this.compactWriter = JsonCodec.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.prettyWriter = JsonCodec.prettyWriter().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH.mm.ss"));
+        this.archiveFile = format == Format.NDJSON ? outputPath.resolve("details-" + timestamp + ".ndjson")
+                : format == Format.ZIP ? outputPath.resolve("details-" + timestamp + ".zip") : null;
+        
+        this.thread = new Thread(this::run, "detail-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        
+        // Finish archives on Ctrl+C, e.g. in watch mode
+        this.shutdownHook = new Thread(this::drain, "detail-writer-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+    
+    /**
+     * Enqueue a value to be written under a name relative to the output path; blocks while the queue is full
+     *
+     * @throws IllegalStateException if the writer is closed or the caller is interrupted while waiting
+     */
+    public void submit(String name, Object value, boolean pretty) {
+        if (closed.get()) {
+            throw new IllegalStateException("Detail writer is closed, cannot write " + name);
+        }
+        try {
+            if (!enqueue(new Entry(name, value, pretty))) {
+                throw new IllegalStateException("Detail writer stopped, cannot write " + name);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing detail file " + name, e);
+        }
+    }
+    
+    /**
+     * Where an entry with the given name ends up: its own file or the shared archive
+     */
+    public Path getTarget(String name) {
+        return archiveFile != null ? archiveFile : outputPath.resolve(name);
+    }
+    
+    public Format getFormat() {
+        return format;
+    }
+    
+    /**
+     * Write all queued entries and finish the archive
+     */
+    @Override
+    public void close() {
+        drain();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM is already shutting down
+        }
+    }
+    
+    private void drain() {
+        try {
+            if (!closed.compareAndSet(false, true)) {
+                // close() and the shutdown hook race: the loser still waits for the archive to be finished
+                thread.join();
+                return;
+            }
+            // Wait for the archive to be finished; a timeout would leave a truncated zip or NDJSON file
+            if (!enqueue(END)) {
+                logger.error("Detail writer stopped early, {} may be incomplete", archiveFile != null ? archiveFile : outputPath);
+            }
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted before all detail files were written, {} may be incomplete",
+                    archiveFile != null ? archiveFile : outputPath);
+            return;
+        }
+        
+        synchronized (this) {
+            logger.info("Detail writer wrote {} entries", written);
+        }
+    }
+    
+    /**
+     * Wait for space in the queue, but not for a writer thread that is no longer running
+     * @return false if the writer thread has ended
+     */
+    private boolean enqueue(Entry entry) throws InterruptedException {
+        while (!queue.offer(entry, 1, TimeUnit.SECONDS)) {
+            if (!thread.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void run() {
+        try {
+            while (true) {
+                Entry entry = queue.take();
+                if (entry == END) {
+                    break;
+                }
+                try {
+                    write(entry);
+                    synchronized (this) {
+                        written++;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // One unserializable value must not stop the writer and block all callers
+                    logger.error("Could not write detail file {}", entry.name, e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeArchive();
+        }
+    }
+    
+    private void write(Entry entry) throws IOException {
+        switch (format) {
+            case NDJSON:
+                OutputStream ndjson = archive();
+                // Serialized first so a failing value leaves no partial line
+                byte[] value = compactWriter.writeValueAsBytes(entry.value);
+                ndjson.write(("{\"name\":" + compactWriter.writeValueAsString(entry.name) + ",\"value\":")
+                        .getBytes(StandardCharsets.UTF_8));
+                ndjson.write(value);
+                ndjson.write("}\n".getBytes(StandardCharsets.UTF_8));
+                // Flush per line so an interrupted run leaves complete lines
+                ndjson.flush();
+                break;
+            case ZIP:
+                ZipOutputStream zip = (ZipOutputStream) archive();
+                byte[] content = (entry.pretty ? prettyWriter : compactWriter).writeValueAsBytes(entry.value);
+                zip.putNextEntry(new ZipEntry(uniqueZipEntryName(entry.name)));
+                zip.write(content);
+                zip.closeEntry();
+                break;
+            default:
+                Path file = outputPath.resolve(entry.name);
+                Path parent = file.getParent();
+                if (parent != null && createdDirectories.add(parent)) {
+                    Files.createDirectories(parent);
+                }
+                (entry.pretty ? prettyWriter : compactWriter).writeValue(file.toFile(), entry.value);
+                break;
+        }
+    }
+    
+    /**
+     * Zip entries must be unique; repeated names (e.g. per watch poll) get a counter suffix
+     */
+    private String uniqueZipEntryName(String name) {
+        int count = zipEntryNames.merge(name, 1, Integer::sum);
+        if (count == 1) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > name.lastIndexOf('/') ? name.substring(0, dot) + "-" + count + name.substring(dot) : name + "-" + count;
+    }
+    
+    private OutputStream archive() throws IOException {
+        if (archiveOut == null) {
+            OutputStream out = new BufferedOutputStream(Files.newOutputStream(archiveFile), 64 * 1024);
+            archiveOut = format == Format.ZIP ? new ZipOutputStream(out) : out;
+            logger.info("Writing detail files to {}", archiveFile);
+        }
+        return archiveOut;
+    }
+    
+    private void closeArchive() {
+        if (archiveOut != null) {
+            try {
+                archiveOut.close();
+            } catch (IOException e) {
+                logger.error("Could not finish detail archive {}", archiveFile, e);
+            }
+        }
+    }
+    
+    /**
+     * Queued value with its target name
+     */
+    private static class Entry {
+        private final String name;
+        private final Object value;
+        private final boolean pretty;
+        
+        private Entry(String name, Object value, boolean pretty) {
+            this.name = name;
+            this.value = value;
+            this.pretty = pretty;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,137 @@
+package de.hibiscus.tr.export;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Bloom filter over UTF-8 encoded ids: "definitely not contained" or "maybe contained".
+ * Sized with 10 bits and 7 hash functions per entry, about 1% false positives.
+ */
+public class BloomFilter {
+    
+    private static final int MAGIC = 0x54524231; // "TRB1"
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_FUNCTIONS = 7;
+    
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashFunctions;
+    private int entryCount;
+    
+    private BloomFilter(long[] bits, int hashFunctions, int entryCount) {
+        this.bits = bits;
+        this.bitCount = (long) bits.length * Long.SIZE;
+        this.hashFunctions = hashFunctions;
+        this.entryCount = entryCount;
+    }
+    
+    /**
+     * Create an empty filter for the expected number of entries
+     */
+    public static BloomFilter create(int expectedEntries) {
+        long wantedBits = Math.max(Long.SIZE, (long) expectedEntries * BITS_PER_ENTRY);
+        return new BloomFilter(new long[(int) ((wantedBits + Long.SIZE - 1) / Long.SIZE)], HASH_FUNCTIONS, 0);
+    }
+    
+    public void put(byte[] key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        entryCount++;
+    }
+    
+    public boolean mightContain(byte[] key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, bitCount);
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Number of entries put into the filter
+     */
+    public int getEntryCount() {
+        return entryCount;
+    }
+    
+    /**
+     * Write the filter via temp file and atomic rename
+     */
+    public void write(Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(channel), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(hashFunctions);
+            out.writeInt(entryCount);
+            out.writeInt(bits.length);
+            for (long word : bits) {
+                out.writeLong(word);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Read a filter, or return null if the file is missing or not a filter
+     */
+    public static BloomFilter read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < 16 || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        int hashFunctions = buffer.getInt();
+        int entryCount = buffer.getInt();
+        int words = buffer.getInt();
+        if (words <= 0 || buffer.remaining() != words * (long) Long.BYTES) {
+            return null;
+        }
+        long[] bits = new long[words];
+        buffer.asLongBuffer().get(bits);
+        return new BloomFilter(bits, hashFunctions, entryCount);
+    }
+    
+    /**
+     * 64-bit FNV-1a
+     */
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    /**
+     * SplitMix64 finalizer, derives the second hash for double hashing
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,285 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.Money;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * ISO 20022 bank-to-customer statement (camt.053.001.02), with one Ntry per transaction; pending
+ * transactions are marked with status PDNG. The timeline has no account balances, so like MT940 the
+ * opening balance is zero and the closing balance is the sum of the booked entries. Balances precede
+ * the entries in a statement, so entries are streamed to a temporary file and copied behind the
+ * balances on close.
+ */
+public class Camt053Sink implements ExportSink {
+    
+    private static final String NAMESPACE = "urn:iso:std:iso:20022:tech:xsd:camt.053.001.02";
+    private static final String ACCOUNT_ID = "TRADEREPUBLIC";
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final Pattern IBAN = Pattern.compile("[A-Z]{2}[0-9]{2}[A-Z0-9]{1,30}");
+    private static final int MAX_TEXT_LENGTH = 35;
+    private static final int MAX_USTRD_LENGTH = 140;
+    private static final int MAX_ADDTL_INFO_LENGTH = 500;
+    /** Depth of Ntry below Document, BkToCstmrStmt and Stmt */
+    private static final int ENTRY_DEPTH = 3;
+    
+    private final Path file;
+    private final Path entriesFile;
+    private final String reference;
+    private final OutputStream entriesOut;
+    private XMLStreamWriter xml;
+    private int depth = ENTRY_DEPTH;
+    private String currency;
+    private LocalDate firstDate;
+    private LocalDate lastDate;
+    private long balance = 0;
+    
+    public Camt053Sink(ExportContext context) throws IOException {
+        this.file = context.resolveFile("camt053", "xml");
+        this.entriesFile = file.resolveSibling(file.getFileName() + ".entries.tmp");
+        this.reference = "TR2HIBISCUS-" + context.getTimestamp();
+        this.entriesOut = new BufferedOutputStream(Files.newOutputStream(entriesFile), 64 * 1024);
+        try {
+            // Fragment without declaration, the entries inherit the default namespace of the document
+            this.xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(entriesOut, "UTF-8");
+        } catch (XMLStreamException e) {
+            entriesOut.close();
+            Files.deleteIfExists(entriesFile);
+            throw new IOException("Could not start CAMT.053 file " + file, e);
+        }
+    }
+    
+    @Override
+    public void write(ExportRecord record) throws IOException {
+        long amount = record.getAmount();
+        boolean credit = amount >= 0;
+        LocalDate bookingDate = record.getBookingDate();
+        
+        if (currency == null) {
+            currency = record.getCurrency();
+        }
+        if (!record.isPending()) {
+            LocalDate date = bookingDate != null ? bookingDate : LocalDate.now();
+            firstDate = firstDate == null || date.isBefore(firstDate) ? date : firstDate;
+            lastDate = lastDate == null || date.isAfter(lastDate) ? date : lastDate;
+            balance += amount;
+        }
+        
+        try {
+            start("Ntry");
+            amount("Amt", record.getCurrency(), amount);
+            leaf("CdtDbtInd", credit ? "CRDT" : "DBIT");
+            leaf("Sts", record.isPending() ? "PDNG" : "BOOK");
+            if (bookingDate != null) {
+                start("BookgDt");
+                leaf("Dt", bookingDate.toString());
+                end();
+                start("ValDt");
+                leaf("Dt", bookingDate.toString());
+                end();
+            }
+            // Max35Text: Trade Republic ids are UUIDs, 32 characters without dashes
+            leaf("AcctSvcrRef", truncate(record.getId().replace("-", ""), MAX_TEXT_LENGTH));
+            start("BkTxCd");
+            start("Prtry");
+            leaf("Cd", truncate(record.getEventType() != null ? record.getEventType() : "UNKNOWN", MAX_TEXT_LENGTH));
+            leaf("Issr", "TradeRepublic");
+            end();
+            end();
+            
+            start("NtryDtls");
+            start("TxDtls");
+            if (!record.getCounterpartyName().isEmpty() || !record.getCounterpartyIban().isEmpty()) {
+                start("RltdPties");
+                // Counterparty is the debtor of incoming and the creditor of outgoing payments
+                String party = credit ? "Dbtr" : "Cdtr";
+                if (!record.getCounterpartyName().isEmpty()) {
+                    start(party);
+                    leaf("Nm", truncate(record.getCounterpartyName(), 140));
+                    end();
+                }
+                String iban = record.getCounterpartyIban().replace(" ", "");
+                if (!iban.isEmpty()) {
+                    start(party + "Acct");
+                    start("Id");
+                    if (IBAN.matcher(iban).matches()) {
+                        leaf("IBAN", iban);
+                    } else {
+                        start("Othr");
+                        leaf("Id", truncate(iban, 34));
+                        end();
+                    }
+                    end();
+                    end();
+                }
+                end();
+            }
+            if (!record.getPurpose().isEmpty()) {
+                start("RmtInf");
+                String purpose = record.getPurpose();
+                for (int i = 0; i < purpose.length(); i += MAX_USTRD_LENGTH) {
+                    leaf("Ustrd", purpose.substring(i, Math.min(i + MAX_USTRD_LENGTH, purpose.length())));
+                }
+                end();
+            }
+            // Full id, the proprietary references are limited to 35 characters as well
+            leaf("AddtlTxInf", truncate("Trade Republic ID " + record.getId(), MAX_ADDTL_INFO_LENGTH));
+            end();
+            end();
+            
+            if (!record.getComment().isEmpty()) {
+                leaf("AddtlNtryInf", truncate(record.getComment().trim(), MAX_ADDTL_INFO_LENGTH));
+            }
+            end();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write CAMT.053 entry to " + file, e);
+        }
+    }
+    
+    @Override
+    public List<Path> getFiles() {
+        return List.of(file);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+            entriesOut.close();
+            writeStatement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not finish CAMT.053 file " + file, e);
+        } finally {
+            entriesOut.close();
+            Files.deleteIfExists(entriesFile);
+        }
+    }
+    
+    /**
+     * Write header and balances, copy the streamed entries and finish the document
+     */
+    private void writeStatement() throws IOException, XMLStreamException {
+        String created = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        LocalDate openingDate = firstDate != null ? firstDate : LocalDate.now();
+        LocalDate closingDate = lastDate != null ? lastDate : openingDate;
+        String statementCurrency = currency != null ? currency : "EUR";
+        
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024)) {
+            xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+            depth = 0;
+            xml.writeStartDocument("UTF-8", "1.0");
+            start("Document");
+            xml.writeDefaultNamespace(NAMESPACE);
+            start("BkToCstmrStmt");
+            start("GrpHdr");
+            leaf("MsgId", reference);
+            leaf("CreDtTm", created);
+            end();
+            start("Stmt");
+            leaf("Id", reference);
+            leaf("CreDtTm", created);
+            start("Acct");
+            start("Id");
+            start("Othr");
+            leaf("Id", ACCOUNT_ID);
+            end();
+            end();
+            end();
+            balance("OPBD", statementCurrency, 0, openingDate);
+            balance("CLBD", statementCurrency, balance, closingDate);
+            
+            xml.flush();
+            Files.copy(entriesFile, out);
+            
+            end(); // Stmt
+            end(); // BkToCstmrStmt
+            end(); // Document
+            xml.writeEndDocument();
+            xml.writeCharacters("\n");
+            xml.close();
+        }
+    }
+    
+    private void balance(String type, String balanceCurrency, long amount, LocalDate date) throws XMLStreamException {
+        start("Bal");
+        start("Tp");
+        start("CdOrPrtry");
+        leaf("Cd", type);
+        end();
+        end();
+        amount("Amt", balanceCurrency, amount);
+        leaf("CdtDbtInd", amount >= 0 ? "CRDT" : "DBIT");
+        start("Dt");
+        leaf("Dt", date.toString());
+        end();
+        end();
+    }
+    
+    private void amount(String name, String amountCurrency, long amount) throws XMLStreamException {
+        newline();
+        xml.writeStartElement(name);
+        xml.writeAttribute("Ccy", amountCurrency);
+        xml.writeCharacters(Money.format(Math.abs(amount)));
+        xml.writeEndElement();
+    }
+    
+    private void start(String name) throws XMLStreamException {
+        newline();
+        xml.writeStartElement(name);
+        depth++;
+    }
+    
+    private void end() throws XMLStreamException {
+        depth--;
+        newline();
+        xml.writeEndElement();
+    }
+    
+    private void leaf(String name, String text) throws XMLStreamException {
+        newline();
+        xml.writeStartElement(name);
+        xml.writeCharacters(text);
+        xml.writeEndElement();
+    }
+    
+    private void newline() throws XMLStreamException {
+        xml.writeCharacters("\n" + "  ".repeat(depth));
+    }
+    
+    private static String truncate(String text, int maxLength) {
+        return text.length() > maxLength ? text.substring(0, maxLength) : text;
+    }
+    
+    /**
+     * Registers the "camt053" format
+     */
+    public static class Provider implements ExportSinkProvider {
+        @Override
+        public String getName() {
+            return "camt053";
+        }
+        
+        @Override
+        public String getDescription() {
+            return "CAMT.053";
+        }
+        
+        @Override
+        public ExportSink open(ExportContext context) throws IOException {
+            return new Camt053Sink(context);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content hashes of exported pending transactions by event id. Pending transactions never enter the
+ * history, so without this every run would fetch and export them again; with it they are only
+ * processed again once status, amount, date or counterparty change. Pending transactions skipped by an
+ * export without pending ones are stored with a distinct hash, so they are not fetched again either
+ * but are still exported once pending transactions are included.
+ */
+public class ContentHashStore {
+    
+    public static final String FILE = "tr2hibiscus-pending.json";
+    
+    // Hibiscus stores the checksum as NUMERIC(16), 53 bits fit
+    private static final long CHECKSUM_MASK = (1L << 53) - 1;
+    
+    // Mixed into the hash of skipped pending transactions
+    private static final long SKIPPED = 0x5bd1e9955bd1e995L;
+    
+    private static final ObjectMapper MAPPER = JsonCodec.mapper();
+    
+    private final Path file;
+    private final Map<String, Long> hashes;
+    private boolean dirty = false;
+    
+    private ContentHashStore(Path file, Map<String, Long> hashes) {
+        this.file = file;
+        this.hashes = hashes;
+    }
+    
+    /**
+     * Store that is not persisted, e.g. for tests
+     */
+    public static ContentHashStore inMemory() {
+        return new ContentHashStore(null, new HashMap<>());
+    }
+    
+    /**
+     * Open the store in the output directory, empty if the file does not exist yet
+     */
+    public static ContentHashStore open(Path outputPath) throws IOException {
+        Path file = outputPath.resolve(FILE);
+        Map<String, Long> hashes = new HashMap<>();
+        if (Files.exists(file)) {
+            Map<String, String> stored = MAPPER.readValue(file.toFile(), new TypeReference<Map<String, String>>() {});
+            stored.forEach((id, hash) -> hashes.put(id, Long.parseUnsignedLong(hash, 16)));
+        }
+        return new ContentHashStore(file, hashes);
+    }
+    
+    /**
+     * 64-bit FNV-1a over the timeline fields that change while a transaction settles:
+     * status, amount, currency, timestamp and counterparty (title). Details are not needed.
+     */
+    public static long hash(TransactionEvent event) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, event.getStatus());
+        hash = hash(hash, event.getAmount() != null ? Long.toString(event.getAmount().getMinorUnits()) : null);
+        hash = hash(hash, event.getAmount() != null ? event.getAmount().getCurrency() : null);
+        hash = hash(hash, event.getTimestamp());
+        hash = hash(hash, event.getTitle());
+        return hash;
+    }
+    
+    /**
+     * Non-negative checksum for the Hibiscus checksum column
+     */
+    public static long checksum(TransactionEvent event) {
+        return hash(event) & CHECKSUM_MASK;
+    }
+    
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b & 0xff;
+                hash *= 0x100000001b3L;
+            }
+        }
+        // Field separator, so ("ab", "c") and ("a", "bc") differ
+        hash ^= 0x1f;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+    
+    /**
+     * True if the event was exported before with the same content
+     */
+    public synchronized boolean isUnchanged(TransactionEvent event) {
+        Long stored = hashes.get(event.getId());
+        return stored != null && stored == hash(event);
+    }
+    
+    /**
+     * True if the event was skipped as pending before with the same content
+     */
+    public synchronized boolean isUnchangedSkipped(TransactionEvent event) {
+        Long stored = hashes.get(event.getId());
+        return stored != null && stored == (hash(event) ^ SKIPPED);
+    }
+    
+    public synchronized void put(TransactionEvent event) {
+        store(event.getId(), hash(event));
+    }
+    
+    /**
+     * Remember a pending transaction that was skipped instead of exported
+     */
+    public synchronized void putSkipped(TransactionEvent event) {
+        store(event.getId(), hash(event) ^ SKIPPED);
+    }
+    
+    private void store(String id, long hash) {
+        Long previous = hashes.put(id, hash);
+        dirty |= previous == null || previous != hash;
+    }
+    
+    public synchronized void remove(String id) {
+        dirty |= hashes.remove(id) != null;
+    }
+    
+    public synchronized int size() {
+        return hashes.size();
+    }
+    
+    /**
+     * Write the store via temp file and atomic rename if it changed
+     */
+    public synchronized void save() throws IOException {
+        if (file == null || !dirty) {
+            return;
+        }
+        Map<String, String> stored = new TreeMap<>();
+        hashes.forEach((id, hash) -> stored.put(id, Long.toHexString(hash)));
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(tempFile.toFile(), stored);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+}
\ No newline at end of file
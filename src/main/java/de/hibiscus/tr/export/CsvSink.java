@@ -0,0 +1,110 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.Money;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Semicolon separated UTF-8 CSV with a header row, one transaction per line.
+ * Amounts use a decimal point; fields with separators, quotes or line breaks are quoted.
+ */
+public class CsvSink implements ExportSink {
+    
+    private static final String[] HEADER = {
+        "Datum", "Zeitstempel", "Empfänger", "IBAN", "Verwendungszweck", "Art", "Betrag", "Währung", "Status", "Kommentar", "ID"
+    };
+    private static final char SEPARATOR = ';';
+    
+    private final Path file;
+    private final Writer out;
+    
+    public CsvSink(ExportContext context) throws IOException {
+        this.file = context.resolveFile("transactions", "csv");
+        this.out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), 64 * 1024);
+        
+        // BOM so spreadsheet applications detect UTF-8
+        out.write('\uFEFF');
+        writeRow(HEADER);
+    }
+    
+    @Override
+    public void write(ExportRecord record) throws IOException {
+        LocalDate bookingDate = record.getBookingDate();
+        writeRow(new String[] {
+            bookingDate != null ? bookingDate.toString() : "",
+            record.getTimestamp() != null ? record.getTimestamp() : "",
+            record.getCounterpartyName(),
+            record.getCounterpartyIban(),
+            record.getPurpose(),
+            record.getEventType() != null ? record.getEventType() : "",
+            Money.format(record.getAmount()),
+            record.getCurrency(),
+            record.isPending() ? "PENDING" : "EXECUTED",
+            record.getComment().trim(),
+            record.getId()
+        });
+    }
+    
+    @Override
+    public List<Path> getFiles() {
+        return List.of(file);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+    
+    private void writeRow(String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(SEPARATOR);
+            }
+            writeField(fields[i]);
+        }
+        out.write("\r\n");
+    }
+    
+    private void writeField(String field) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == SEPARATOR || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(field);
+            return;
+        }
+        out.write('"');
+        out.write(field.replace("\"", "\"\""));
+        out.write('"');
+    }
+    
+    /**
+     * Registers the "csv" format
+     */
+    public static class Provider implements ExportSinkProvider {
+        @Override
+        public String getName() {
+            return "csv";
+        }
+        
+        @Override
+        public String getDescription() {
+            return "CSV";
+        }
+        
+        @Override
+        public ExportSink open(ExportContext context) throws IOException {
+            return new CsvSink(context);
+        }
+    }
+}
\ No newline at end of file
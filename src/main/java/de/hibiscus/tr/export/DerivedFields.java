@@ -0,0 +1,79 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.TransactionStatus;
+
+/**
+ * Values derived from an event's details and field mapping, computed once per export and shared by
+ * filtering, rendering and statistics
+ */
+public final class DerivedFields {
+    
+    private final TransactionEvent event;
+    private final FieldMapping.EventMapping mapping;
+    private final TransactionStatus status;
+    private final String isin;
+    private final String counterpartyIban;
+    private final String counterpartyName;
+    private final String purpose;
+    private final long amount;
+    
+    DerivedFields(TransactionEvent event, FieldMapping.EventMapping mapping, TransactionStatus status, String isin,
+                  String counterpartyIban, String counterpartyName, String purpose, long amount) {
+        this.event = event;
+        this.mapping = mapping;
+        this.status = status;
+        this.isin = isin;
+        this.counterpartyIban = counterpartyIban;
+        this.counterpartyName = counterpartyName;
+        this.purpose = purpose;
+        this.amount = amount;
+    }
+    
+    public TransactionEvent getEvent() {
+        return event;
+    }
+    
+    /**
+     * Compiled mapping for the event type
+     */
+    public FieldMapping.EventMapping getMapping() {
+        return mapping;
+    }
+    
+    /**
+     * Status from the event, or from the details if the event has none
+     */
+    public TransactionStatus getStatus() {
+        return status;
+    }
+    
+    /**
+     * ISIN from the header section, or null
+     */
+    public String getIsin() {
+        return isin;
+    }
+    
+    public String getCounterpartyIban() {
+        return counterpartyIban;
+    }
+    
+    public String getCounterpartyName() {
+        return counterpartyName;
+    }
+    
+    /**
+     * Mapped purpose (reference), including the amount for amountInPurpose mappings
+     */
+    public String getPurpose() {
+        return purpose;
+    }
+    
+    /**
+     * Booked amount in minor units after normalization, e.g. 0 for amountInPurpose mappings
+     */
+    public long getAmount() {
+        return amount;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,222 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Reduces a timelineDetailV2 payload to the sections, items and text fields that are actually read,
+ * so the full tree with icons, actions and unused sections can be released right after the fetch.
+ * The result keeps the payload layout, so {@link de.hibiscus.tr.model.DetailIndex} and the mapping
+ * accessors work on it unchanged. Text leaves are shared with the original tree, not copied.
+ */
+public class DetailProjection implements UnaryOperator<JsonNode> {
+    
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    
+    private final Map<String, SectionSpec> sections = new HashMap<>();
+    private boolean headerIsin = false;
+    
+    /**
+     * Keep a text field of an item, path below the item's detail node
+     */
+    public DetailProjection keepItemField(String section, String item, String... path) {
+        section(section).itemPaths.computeIfAbsent(item, k -> new ArrayList<>()).add(path);
+        return this;
+    }
+    
+    /**
+     * Keep titles and detail texts of the item's info page (detail.action.payload.sections)
+     */
+    public DetailProjection keepNested(String section, String item) {
+        section(section).nestedItems.add(item);
+        return this;
+    }
+    
+    /**
+     * Keep a text field of every item of a section
+     */
+    public DetailProjection keepEveryItemField(String section, String... path) {
+        section(section).everyItemPaths.add(path);
+        return this;
+    }
+    
+    /**
+     * Keep the titles of all items of a section
+     */
+    public DetailProjection keepItemTitles(String section) {
+        section(section).allTitles = true;
+        return this;
+    }
+    
+    /**
+     * Keep the ISIN payload of the header section
+     */
+    public DetailProjection keepHeaderIsin() {
+        headerIsin = true;
+        return this;
+    }
+    
+    /**
+     * Independent copy that can be extended without affecting this projection
+     */
+    public DetailProjection copy() {
+        DetailProjection copy = new DetailProjection();
+        copy.headerIsin = headerIsin;
+        for (Map.Entry<String, SectionSpec> entry : sections.entrySet()) {
+            SectionSpec spec = copy.section(entry.getKey());
+            entry.getValue().itemPaths.forEach((item, paths) -> spec.itemPaths.put(item, new ArrayList<>(paths)));
+            spec.nestedItems.addAll(entry.getValue().nestedItems);
+            spec.everyItemPaths.addAll(entry.getValue().everyItemPaths);
+            spec.allTitles = entry.getValue().allTitles;
+        }
+        return copy;
+    }
+    
+    /**
+     * Project a detail payload; payloads without sections are returned unchanged
+     */
+    @Override
+    public JsonNode apply(JsonNode details) {
+        if (details == null || !details.has("sections") || !details.get("sections").isArray()) {
+            return details;
+        }
+        
+        ArrayNode projectedSections = NODES.arrayNode();
+        Set<String> seenSections = new HashSet<>();
+        boolean isinKept = false;
+        
+        for (JsonNode section : details.get("sections")) {
+            // Same rule as DetailIndex: first header section with a textual action payload
+            if (headerIsin && !isinKept && "header".equals(section.path("type").asText()) &&
+                section.path("action").path("payload").isTextual()) {
+                ObjectNode header = projectedSections.addObject();
+                header.put("type", "header");
+                header.putObject("action").set("payload", section.get("action").get("payload"));
+                isinKept = true;
+            }
+            
+            JsonNode title = section.get("title");
+            SectionSpec spec = title != null ? sections.get(title.asText()) : null;
+            // Later sections with the same title are never read
+            if (spec == null || !seenSections.add(title.asText())) {
+                continue;
+            }
+            ObjectNode projected = projectedSections.addObject();
+            projected.set("title", title);
+            JsonNode data = section.get("data");
+            if (data != null && data.isArray()) {
+                ArrayNode projectedData = projected.putArray("data");
+                for (JsonNode item : data) {
+                    ObjectNode projectedItem = projectItem(spec, item);
+                    if (projectedItem != null) {
+                        projectedData.add(projectedItem);
+                    }
+                }
+            }
+        }
+        
+        ObjectNode result = NODES.objectNode();
+        result.set("sections", projectedSections);
+        return result;
+    }
+    
+    private ObjectNode projectItem(SectionSpec spec, JsonNode item) {
+        JsonNode title = item.get("title");
+        String itemTitle = title != null ? title.asText() : null;
+        List<String[]> itemPaths = itemTitle != null ? spec.itemPaths.get(itemTitle) : null;
+        boolean nested = itemTitle != null && spec.nestedItems.contains(itemTitle);
+        if (!spec.allTitles && spec.everyItemPaths.isEmpty() && itemPaths == null && !nested) {
+            return null;
+        }
+        
+        ObjectNode projected = NODES.objectNode();
+        if (title != null) {
+            projected.set("title", title);
+        }
+        JsonNode detail = item.get("detail");
+        if (detail == null) {
+            return projected;
+        }
+        ObjectNode projectedDetail = NODES.objectNode();
+        for (String[] path : spec.everyItemPaths) {
+            copyText(detail, projectedDetail, path);
+        }
+        if (itemPaths != null) {
+            for (String[] path : itemPaths) {
+                copyText(detail, projectedDetail, path);
+            }
+        }
+        if (nested) {
+            copyNested(detail, projectedDetail);
+        }
+        if (projectedDetail.size() > 0) {
+            projected.set("detail", projectedDetail);
+        }
+        return projected;
+    }
+    
+    /**
+     * Copy a textual leaf along the path, creating intermediate objects as needed
+     */
+    private static void copyText(JsonNode source, ObjectNode target, String[] path) {
+        JsonNode node = source;
+        for (String key : path) {
+            node = node != null ? node.get(key) : null;
+        }
+        if (node == null || !node.isTextual()) {
+            return;
+        }
+        ObjectNode parent = target;
+        for (int i = 0; i < path.length - 1; i++) {
+            JsonNode child = parent.get(path[i]);
+            parent = child instanceof ObjectNode ? (ObjectNode) child : parent.putObject(path[i]);
+        }
+        parent.set(path[path.length - 1], node);
+    }
+    
+    private static void copyNested(JsonNode detail, ObjectNode projectedDetail) {
+        JsonNode nestedSections = detail.path("action").path("payload").path("sections");
+        if (!nestedSections.isArray()) {
+            return;
+        }
+        ArrayNode projectedSections = projectedDetail.putObject("action").putObject("payload").putArray("sections");
+        for (JsonNode nestedSection : nestedSections) {
+            JsonNode data = nestedSection.get("data");
+            if (data == null || !data.isArray()) {
+                continue;
+            }
+            ArrayNode projectedData = projectedSections.addObject().putArray("data");
+            for (JsonNode nested : data) {
+                if (nested.has("title") && nested.path("detail").has("text")) {
+                    ObjectNode projectedNested = projectedData.addObject();
+                    projectedNested.set("title", nested.get("title"));
+                    projectedNested.putObject("detail").set("text", nested.get("detail").get("text"));
+                }
+            }
+        }
+    }
+    
+    private SectionSpec section(String title) {
+        return sections.computeIfAbsent(title, k -> new SectionSpec());
+    }
+    
+    /**
+     * What to keep of one section
+     */
+    private static class SectionSpec {
+        private final Map<String, List<String[]>> itemPaths = new HashMap<>();
+        private final Set<String> nestedItems = new HashSet<>();
+        private final List<String[]> everyItemPaths = new ArrayList<>();
+        private boolean allTitles = false;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package de.hibiscus.tr.export;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of one export run shared by all sinks
+ */
+public class ExportContext {
+    
+    private final Path outputPath;
+    private final String timestamp;
+    private final boolean rollByMonth;
+    private final int maxObjectsPerFile;
+    
+    /**
+     * @param timestamp run timestamp used in file names, e.g. 2024-06-01T10.00.00
+     */
+    public ExportContext(Path outputPath, String timestamp, boolean rollByMonth, int maxObjectsPerFile) {
+        this.outputPath = outputPath;
+        this.timestamp = timestamp;
+        this.rollByMonth = rollByMonth;
+        this.maxObjectsPerFile = maxObjectsPerFile;
+    }
+    
+    public Path getOutputPath() {
+        return outputPath;
+    }
+    
+    public String getTimestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * Resolve an output file named prefix-timestamp.extension
+     */
+    public Path resolveFile(String prefix, String extension) {
+        return outputPath.resolve(prefix + "-" + timestamp + "." + extension);
+    }
+    
+    public boolean isRollByMonth() {
+        return rollByMonth;
+    }
+    
+    public int getMaxObjectsPerFile() {
+        return maxObjectsPerFile;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.TransactionEvent;
+
+import java.time.LocalDate;
+
+/**
+ * Format-neutral transaction as handed to export sinks: the event with its mapped columns resolved
+ */
+public class ExportRecord {
+    
+    private final TransactionEvent event;
+    private final String counterpartyIban;
+    private final String counterpartyName;
+    private final String purpose;
+    private final long amount;
+    private final boolean pending;
+    private final String comment;
+    
+    public ExportRecord(TransactionEvent event, String counterpartyIban, String counterpartyName, String purpose,
+                        long amount, boolean pending, String comment) {
+        this.event = event;
+        this.counterpartyIban = counterpartyIban != null ? counterpartyIban : "";
+        this.counterpartyName = counterpartyName != null ? counterpartyName : "";
+        this.purpose = purpose != null ? purpose : "";
+        this.amount = amount;
+        this.pending = pending;
+        this.comment = comment != null ? comment : "";
+    }
+    
+    public TransactionEvent getEvent() {
+        return event;
+    }
+    
+    public String getId() {
+        return event.getId();
+    }
+    
+    /**
+     * Raw ISO timestamp of the event, e.g. 2024-05-20T17:02:33.000+0000
+     */
+    public String getTimestamp() {
+        return event.getTimestamp();
+    }
+    
+    /**
+     * Booking date from the timestamp, or null if the timestamp is missing
+     */
+    public LocalDate getBookingDate() {
+        String timestamp = event.getTimestamp();
+        return timestamp != null && timestamp.length() >= 10 ? LocalDate.parse(timestamp.substring(0, 10)) : null;
+    }
+    
+    public String getEventType() {
+        return event.getEventType();
+    }
+    
+    public String getCounterpartyIban() {
+        return counterpartyIban;
+    }
+    
+    public String getCounterpartyName() {
+        return counterpartyName;
+    }
+    
+    public String getPurpose() {
+        return purpose;
+    }
+    
+    /**
+     * Booked amount in minor units (cents); negative for debits
+     */
+    public long getAmount() {
+        return amount;
+    }
+    
+    /**
+     * Content checksum of the event, see {@link ContentHashStore#checksum}
+     */
+    public long getChecksum() {
+        return ContentHashStore.checksum(event);
+    }
+    
+    public String getCurrency() {
+        String currency = event.getAmount() != null ? event.getAmount().getCurrency() : null;
+        return currency != null && !currency.isEmpty() ? currency : "EUR";
+    }
+    
+    public boolean isPending() {
+        return pending;
+    }
+    
+    /**
+     * Comment lines from the field mapping, empty if none
+     */
+    public String getComment() {
+        return comment;
+    }
+}
\ No newline at end of file
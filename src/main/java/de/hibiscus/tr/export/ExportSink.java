@@ -0,0 +1,23 @@
+package de.hibiscus.tr.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Consumer of the filtered, chronologically sorted export records of one run.
+ * Records are passed one at a time; sinks stream them and finish their files on close.
+ */
+public interface ExportSink extends Closeable {
+    
+    /**
+     * Write the next record
+     */
+    void write(ExportRecord record) throws IOException;
+    
+    /**
+     * Files written by this sink, complete after close
+     */
+    List<Path> getFiles();
+}
\ No newline at end of file
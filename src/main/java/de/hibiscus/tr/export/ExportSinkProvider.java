@@ -0,0 +1,24 @@
+package de.hibiscus.tr.export;
+
+import java.io.IOException;
+
+/**
+ * Service provider for an export format, registered in META-INF/services and selected with --format
+ */
+public interface ExportSinkProvider {
+    
+    /**
+     * Format name used on the command line, e.g. "csv"
+     */
+    String getName();
+    
+    /**
+     * Human readable format name, e.g. "CAMT.053"
+     */
+    String getDescription();
+    
+    /**
+     * Open a sink for one export run
+     */
+    ExportSink open(ExportContext context) throws IOException;
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package de.hibiscus.tr.export;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+
+/**
+ * Export formats discovered through {@link ServiceLoader}
+ */
+public final class ExportSinks {
+    
+    public static final String DEFAULT_FORMAT = "hibiscus";
+    
+    private static volatile Map<String, ExportSinkProvider> providers;
+    
+    private ExportSinks() {}
+    
+    /**
+     * All available providers by format name
+     */
+    public static Map<String, ExportSinkProvider> available() {
+        if (providers == null) {
+            synchronized (ExportSinks.class) {
+                if (providers == null) {
+                    Map<String, ExportSinkProvider> loaded = new TreeMap<>();
+                    for (ExportSinkProvider provider : ServiceLoader.load(ExportSinkProvider.class)) {
+                        loaded.putIfAbsent(provider.getName(), provider);
+                    }
+                    providers = Collections.unmodifiableMap(loaded);
+                }
+            }
+        }
+        return providers;
+    }
+    
+    /**
+     * Get a provider by format name
+     */
+    public static ExportSinkProvider get(String name) {
+        ExportSinkProvider provider = available().get(name);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown export format '" + name + "', available: "
+                    + String.join(", ", available().keySet()));
+        }
+        return provider;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,460 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.DetailIndex;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.Money;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.ValidationException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Declarative mapping of timeline detail values to Hibiscus columns and comment lines.
+ * The JSON definition is compiled once into accessors; per event only index lookups remain.
+ *
+ * <pre>
+ * {
+ *   "columns": { "zweck": [ { "section": "Übersicht", "item": "Referenz" }, { "event": "title" } ] },
+ *   "events": {
+ *     "INTEREST_PAYOUT": {
+ *       "columns": { ... },
+ *       "amountInPurpose": "Zinsen %.2f €",
+ *       "comment": [ { "label": "Gesamt", "section": "Transaktion", "item": "Gesamt" } ]
+ *     }
+ *   }
+ * }
+ * </pre>
+ *
+ * A value is read from one of:
+ * <ul>
+ *   <li>{@code section} + {@code item} [+ {@code field}, dotted path below {@code detail}, default {@code text}]</li>
+ *   <li>{@code section} + {@code item} + {@code nested}: item title inside the item's info page payload</li>
+ *   <li>{@code section} + {@code field}: one comment line per item of the section that has the field</li>
+ *   <li>{@code section} + {@code countPrefix}: number of items whose title starts with the prefix</li>
+ *   <li>{@code header: "isin"} or {@code event: "title" | "subtitle" | "eventType"}</li>
+ * </ul>
+ * Comment lines print {@code label: value}, or the fixed {@code text} if the value exists.
+ * Column fallbacks are tried in order until one yields a value.
+ */
+public class FieldMapping {
+    
+    public static final String BUILT_IN_RESOURCE = "/hibiscus-mapping.json";
+    
+    private static final ObjectMapper MAPPER = JsonCodec.mapper();
+    private static volatile FieldMapping builtIn;
+    
+    private final EventMapping defaultMapping;
+    private final Map<String, EventMapping> eventMappings;
+    private final DetailProjection detailProjection;
+    
+    private FieldMapping(EventMapping defaultMapping, Map<String, EventMapping> eventMappings,
+                         DetailProjection detailProjection) {
+        this.defaultMapping = defaultMapping;
+        this.eventMappings = eventMappings;
+        this.detailProjection = detailProjection;
+    }
+    
+    /**
+     * Mapping shipped with the application
+     */
+    public static FieldMapping builtIn() {
+        if (builtIn == null) {
+            synchronized (FieldMapping.class) {
+                if (builtIn == null) {
+                    try (InputStream in = FieldMapping.class.getResourceAsStream(BUILT_IN_RESOURCE)) {
+                        builtIn = compile(MAPPER.readTree(in), BUILT_IN_RESOURCE);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not read built-in field mapping", e);
+                    } catch (ValidationException e) {
+                        throw new IllegalStateException(e.getMessage(), e);
+                    }
+                }
+            }
+        }
+        return builtIn;
+    }
+    
+    /**
+     * Load and compile a mapping definition file
+     */
+    public static FieldMapping load(Path file) throws IOException, ValidationException {
+        return compile(MAPPER.readTree(file.toFile()), file.toString());
+    }
+    
+    /**
+     * Compile a mapping definition, collecting all errors before failing
+     */
+    static FieldMapping compile(JsonNode definition, String source) throws ValidationException {
+        List<String> errors = new ArrayList<>();
+        if (definition == null || !definition.isObject()) {
+            throw new ValidationException("Invalid field mapping " + source, List.of("Mapping must be a JSON object"));
+        }
+        
+        DetailProjection projection = new DetailProjection();
+        Map<String, Accessor> defaultColumns = compileColumns(definition.get("columns"), "columns", projection, errors);
+        EventMapping defaultMapping = new EventMapping(defaultColumns, Collections.emptyList(), null);
+        
+        Map<String, EventMapping> eventMappings = new HashMap<>();
+        JsonNode events = definition.get("events");
+        if (events != null) {
+            if (!events.isObject()) {
+                errors.add("events: must be an object keyed by event type");
+            } else {
+                Iterator<Map.Entry<String, JsonNode>> it = events.fields();
+                while (it.hasNext()) {
+                    Map.Entry<String, JsonNode> entry = it.next();
+                    String where = "events." + entry.getKey();
+                    JsonNode event = entry.getValue();
+                    
+                    Map<String, Accessor> columns = new LinkedHashMap<>(defaultColumns);
+                    columns.putAll(compileColumns(event.get("columns"), where + ".columns", projection, errors));
+                    
+                    List<CommentLine> comment = new ArrayList<>();
+                    JsonNode lines = event.get("comment");
+                    if (lines != null) {
+                        if (!lines.isArray()) {
+                            errors.add(where + ".comment: must be an array");
+                        } else {
+                            for (int i = 0; i < lines.size(); i++) {
+                                CommentLine line = compileCommentLine(lines.get(i), where + ".comment[" + i + "]", projection, errors);
+                                if (line != null) {
+                                    comment.add(line);
+                                }
+                            }
+                        }
+                    }
+                    
+                    String amountInPurpose = event.has("amountInPurpose") ? event.get("amountInPurpose").asText() : null;
+                    eventMappings.put(entry.getKey(), new EventMapping(columns, comment, amountInPurpose));
+                }
+            }
+        }
+        
+        if (!errors.isEmpty()) {
+            throw new ValidationException("Invalid field mapping " + source, errors);
+        }
+        return new FieldMapping(defaultMapping, eventMappings, projection);
+    }
+    
+    /**
+     * Projection keeping exactly the detail fields read by this mapping; copy it before adding fields
+     */
+    public DetailProjection getDetailProjection() {
+        return detailProjection;
+    }
+    
+    /**
+     * Get the compiled mapping for an event type, falling back to the default columns
+     */
+    public EventMapping forEventType(String eventType) {
+        EventMapping mapping = eventType != null ? eventMappings.get(eventType) : null;
+        return mapping != null ? mapping : defaultMapping;
+    }
+    
+    private static Map<String, Accessor> compileColumns(JsonNode columns, String where, DetailProjection projection,
+                                                        List<String> errors) {
+        Map<String, Accessor> compiled = new LinkedHashMap<>();
+        if (columns == null) {
+            return compiled;
+        }
+        if (!columns.isObject()) {
+            errors.add(where + ": must be an object keyed by column name");
+            return compiled;
+        }
+        
+        Iterator<Map.Entry<String, JsonNode>> it = columns.fields();
+        while (it.hasNext()) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            String columnWhere = where + "." + entry.getKey();
+            JsonNode specs = entry.getValue().isArray() ? entry.getValue() : MAPPER.createArrayNode().add(entry.getValue());
+            
+            List<Accessor> fallbacks = new ArrayList<>();
+            for (int i = 0; i < specs.size(); i++) {
+                Accessor accessor = compileAccessor(specs.get(i), columnWhere + "[" + i + "]", projection, errors);
+                if (accessor != null) {
+                    fallbacks.add(accessor);
+                }
+            }
+            
+            Accessor[] chain = fallbacks.toArray(new Accessor[0]);
+            compiled.put(entry.getKey(), (event, index) -> {
+                for (Accessor accessor : chain) {
+                    String value = accessor.get(event, index);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return null;
+            });
+        }
+        return compiled;
+    }
+    
+    private static CommentLine compileCommentLine(JsonNode spec, String where, DetailProjection projection,
+                                                  List<String> errors) {
+        if (spec == null || !spec.isObject()) {
+            errors.add(where + ": must be an object");
+            return null;
+        }
+        String label = textOrNull(spec, "label");
+        String text = textOrNull(spec, "text");
+        if (label == null && text == null) {
+            errors.add(where + ": needs a label or a text");
+            return null;
+        }
+        String prefix = label != null ? label + ": " : null;
+        
+        // Every item of a section that has the field
+        if (spec.has("section") && !spec.has("item") && spec.has("field")) {
+            String section = spec.get("section").asText();
+            String[] path = spec.get("field").asText().split("\\.");
+            projection.keepEveryItemField(section, path);
+            return (comment, event, index) -> {
+                JsonNode data = index.getSectionData(section);
+                if (data == null) {
+                    return;
+                }
+                for (JsonNode item : data) {
+                    String value = readPath(item.get("detail"), path);
+                    if (value != null && !value.isEmpty()) {
+                        appendLine(comment, prefix, text, value);
+                    }
+                }
+            };
+        }
+        
+        // Number of section items by title prefix, printed only when non-zero
+        if (spec.has("section") && spec.has("countPrefix")) {
+            String section = spec.get("section").asText();
+            String titlePrefix = spec.get("countPrefix").asText();
+            projection.keepItemTitles(section);
+            return (comment, event, index) -> {
+                JsonNode data = index.getSectionData(section);
+                if (data == null) {
+                    return;
+                }
+                int count = 0;
+                for (JsonNode item : data) {
+                    if (item.has("title") && item.get("title").asText().startsWith(titlePrefix)) {
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    appendLine(comment, prefix, text, String.valueOf(count));
+                }
+            };
+        }
+        
+        Accessor accessor = compileAccessor(spec, where, projection, errors);
+        if (accessor == null) {
+            return null;
+        }
+        return (comment, event, index) -> {
+            String value = accessor.get(event, index);
+            if (value != null) {
+                appendLine(comment, prefix, text, value);
+            }
+        };
+    }
+    
+    private static Accessor compileAccessor(JsonNode spec, String where, DetailProjection projection,
+                                            List<String> errors) {
+        if (spec == null || !spec.isObject()) {
+            errors.add(where + ": must be an object");
+            return null;
+        }
+        
+        if (spec.has("header")) {
+            if (!"isin".equals(spec.get("header").asText())) {
+                errors.add(where + ": unknown header value '" + spec.get("header").asText() + "'");
+                return null;
+            }
+            projection.keepHeaderIsin();
+            return (event, index) -> index.getHeaderIsin();
+        }
+        
+        if (spec.has("event")) {
+            switch (spec.get("event").asText()) {
+                case "title":
+                    return (event, index) -> event.getTitle();
+                case "subtitle":
+                    return (event, index) -> event.getSubtitle();
+                case "eventType":
+                    return (event, index) -> event.getEventType();
+                default:
+                    errors.add(where + ": unknown event field '" + spec.get("event").asText() + "'");
+                    return null;
+            }
+        }
+        
+        if (!spec.has("section") || !spec.has("item")) {
+            errors.add(where + ": needs section and item, header or event");
+            return null;
+        }
+        String section = spec.get("section").asText();
+        String item = spec.get("item").asText();
+        
+        if (spec.has("nested")) {
+            String nestedTitle = spec.get("nested").asText();
+            projection.keepNested(section, item);
+            return (event, index) -> readNested(index.getItem(section, item), nestedTitle);
+        }
+        
+        String[] path = spec.has("field") ? spec.get("field").asText().split("\\.") : new String[] {"text"};
+        projection.keepItemField(section, item, path);
+        String remove = textOrNull(spec, "remove");
+        if (remove != null) {
+            return (event, index) -> {
+                JsonNode node = index.getItem(section, item);
+                String value = node != null ? readPath(node.get("detail"), path) : null;
+                return value != null ? value.replace(remove, "").trim() : null;
+            };
+        }
+        return (event, index) -> {
+            JsonNode node = index.getItem(section, item);
+            return node != null ? readPath(node.get("detail"), path) : null;
+        };
+    }
+    
+    /**
+     * Follow a precompiled field path, returning textual leaves only
+     */
+    private static String readPath(JsonNode node, String[] path) {
+        for (String key : path) {
+            if (node == null) {
+                return null;
+            }
+            node = node.get(key);
+        }
+        return node != null && node.isTextual() ? node.asText() : null;
+    }
+    
+    /**
+     * Find an item by title in the sections of an item's info page payload (detail.action.payload.sections)
+     */
+    private static String readNested(JsonNode item, String title) {
+        JsonNode sections = item != null ? item.path("detail").path("action").path("payload").path("sections") : null;
+        if (sections == null || !sections.isArray()) {
+            return null;
+        }
+        for (JsonNode section : sections) {
+            JsonNode data = section.get("data");
+            if (data != null && data.isArray()) {
+                for (JsonNode nested : data) {
+                    if (nested.has("title") && title.equals(nested.get("title").asText()) &&
+                        nested.has("detail") && nested.get("detail").has("text")) {
+                        return nested.get("detail").get("text").asText();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static void appendLine(StringBuilder comment, String prefix, String text, String value) {
+        if (prefix != null) {
+            comment.append(prefix).append(value).append("\n");
+        } else {
+            comment.append(text).append("\n");
+        }
+    }
+    
+    private static String textOrNull(JsonNode node, String field) {
+        return node.has(field) ? node.get(field).asText() : null;
+    }
+    
+    /**
+     * Compiled read of a single value from an event
+     */
+    @FunctionalInterface
+    interface Accessor {
+        String get(TransactionEvent event, DetailIndex index);
+    }
+    
+    /**
+     * Compiled comment line, appends nothing if its value is missing
+     */
+    @FunctionalInterface
+    interface CommentLine {
+        void append(StringBuilder comment, TransactionEvent event, DetailIndex index);
+    }
+    
+    /**
+     * Compiled columns and comment for one event type
+     */
+    public static class EventMapping {
+        private static final String AMOUNT_PLACEHOLDER = "%.2f";
+        private static final char DECIMAL_SEPARATOR =
+                DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT)).getDecimalSeparator();
+        
+        private final Map<String, Accessor> columns;
+        private final List<CommentLine> comment;
+        private final String amountInPurpose;
+        
+        private EventMapping(Map<String, Accessor> columns, List<CommentLine> comment, String amountInPurpose) {
+            this.columns = columns;
+            this.comment = comment;
+            this.amountInPurpose = amountInPurpose;
+        }
+        
+        /**
+         * Value of a mapped column, or null if not mapped or no fallback matched
+         */
+        public String getColumn(String column, TransactionEvent event) {
+            Accessor accessor = columns.get(column);
+            return accessor != null ? accessor.get(event, event.getDetailIndex()) : null;
+        }
+        
+        /**
+         * Build comment lines, empty if the event type has none
+         */
+        public String buildComment(TransactionEvent event) {
+            if (comment.isEmpty()) {
+                return "";
+            }
+            DetailIndex index = event.getDetailIndex();
+            StringBuilder builder = new StringBuilder();
+            for (CommentLine line : comment) {
+                line.append(builder, event, index);
+            }
+            return builder.toString();
+        }
+        
+        /**
+         * Format for moving the (negated) amount into the purpose with a booked amount of 0, or null
+         */
+        public String getAmountInPurpose() {
+            return amountInPurpose;
+        }
+        
+        /**
+         * Render the amountInPurpose format for an amount in minor units. The usual "%.2f" placeholder
+         * is filled by the fixed-point formatter with the decimal separator of the default locale,
+         * other formats fall back to String.format.
+         */
+        public String formatAmountInPurpose(long minorUnits) {
+            int placeholder = amountInPurpose.indexOf(AMOUNT_PLACEHOLDER);
+            if (placeholder < 0 || amountInPurpose.indexOf('%', placeholder + AMOUNT_PLACEHOLDER.length()) >= 0) {
+                return String.format(amountInPurpose, Money.toDouble(minorUnits));
+            }
+            StringBuilder result = new StringBuilder(amountInPurpose.length() + 16);
+            result.append(amountInPurpose, 0, placeholder);
+            Money.appendTo(result, minorUnits, DECIMAL_SEPARATOR);
+            return result.append(amountInPurpose, placeholder + AMOUNT_PLACEHOLDER.length(), amountInPurpose.length()).toString();
+        }
+    }
+}
\ No newline at end of file
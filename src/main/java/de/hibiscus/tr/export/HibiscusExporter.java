@@ -1,81 +1,105 @@
 package de.hibiscus.tr.export;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.hibiscus.tr.model.Money;
+import de.hibiscus.tr.model.PhaseTimer;
 import de.hibiscus.tr.model.TradeRepublicError;
 import de.hibiscus.tr.model.TransactionEvent;
-import org.jdom2.Document;
-import org.jdom2.Element;
-import org.jdom2.output.Format;
-import org.jdom2.output.XMLOutputter;
+import de.hibiscus.tr.model.TransactionStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
- * Exports Trade Republic transactions to Hibiscus XML format
+ * Exports Trade Republic transactions to Hibiscus XML and the other registered export formats
  */
-public class HibiscusExporter {
+public class HibiscusExporter implements Closeable {
     
     private static final Logger logger = LoggerFactory.getLogger(HibiscusExporter.class);
     
     private final Path outputPath;
-    private final Path historyFile;
     private final boolean includePending;
     private final boolean saveTransactions;
     private final boolean debugMode;
-    private final ObjectMapper objectMapper;
-    
-    private final Set<String> knownTransactions = new HashSet<>();
-    
-    // Transaction status constants
-    private static final Set<String> VALID_STATUSES = Set.of("PENDING", "EXECUTED", "CANCELED", "CREATED");
+    private final FieldMapping fieldMapping;
+    
+    private HistoryStore history = HistoryStore.inMemory();
+    private ContentHashStore pendingHashes = ContentHashStore.inMemory();
+    private AsyncDetailWriter.Format detailsFormat = AsyncDetailWriter.Format.FILES;
+    private AsyncDetailWriter detailWriter;
+    private boolean rollByMonth = false;
+    private int maxObjectsPerFile = 0;
+    private List<String> formats = List.of(ExportSinks.DEFAULT_FORMAT);
+    private PhaseTimer phaseTimer;
+    private PrintStream report = System.out;
+    private LocalDateTime lastExportTime;
+    
+    // Precomputed epoch millis; events with invalid timestamps sort first, ties by id
+    private static final Comparator<TransactionEvent> CHRONOLOGICAL = Comparator
+            .comparingLong(TransactionEvent::getEpochMillis)
+            .thenComparing(TransactionEvent::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+    
+    // Rendering: events per chunk held in memory, and minimum chunk size worth parallelizing
+    private static final int RENDER_CHUNK_SIZE = 4096;
+    private static final int PARALLEL_RENDER_THRESHOLD = 256;
     
     // Filtering statistics
     private int totalEvents = 0;
     private int eventsWithoutAmount = 0;
     private int alreadyKnownEvents = 0;
+    private int unchangedPendingEvents = 0;
     private int canceledEvents = 0;
     private int pendingEventsSkipped = 0;
     private int unknownStatusEvents = 0;
     private int cardVerificationEventsFiltered = 0;
     private int validEventsExported = 0;
+    private long exportedAmount = 0;
     
     public HibiscusExporter(Path outputPath, boolean includePending, boolean saveTransactions, boolean debugMode) {
+        this(outputPath, includePending, saveTransactions, debugMode, FieldMapping.builtIn());
+    }
+    
+    public HibiscusExporter(Path outputPath, boolean includePending, boolean saveTransactions, boolean debugMode,
+                            FieldMapping fieldMapping) {
         this.outputPath = outputPath;
-        this.historyFile = outputPath.resolve("tr2hibiscus.json");
         this.includePending = includePending;
         this.saveTransactions = saveTransactions;
         this.debugMode = debugMode;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.fieldMapping = fieldMapping;
         
         try {
             Files.createDirectories(outputPath);
-            loadHistory();
+            history = HistoryStore.open(outputPath);
+            pendingHashes = ContentHashStore.open(outputPath);
         } catch (IOException e) {
             logger.warn("Could not create output directory or load history", e);
         }
     }
     
     /**
-     * Export transactions to Hibiscus XML format
+     * Export transactions to all selected formats
      */
     public void exportTransactions(List<TransactionEvent> events) throws TradeRepublicError {
-        logger.info("Exporting {} transactions to Hibiscus XML format", events.size());
+        logger.info("Exporting {} transactions as {}", events.size(), String.join(", ", formats));
+        phase("filter");
         
-        List<TransactionEvent> validEvents = filterEvents(events);
+        List<DerivedFields> validEvents = filterEvents(events);
         
         if (validEvents.isEmpty()) {
             logger.info("No new transactions to export");
+            // Skipped and canceled pending transactions still update the content hashes
+            saveHistory();
             return;
         }
         
@@ -83,19 +107,24 @@ public class HibiscusExporter {
         sortTransactionsChronologically(validEvents);
         
         try {
-            Document xmlDoc = createHibiscusXml(validEvents);
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH.mm.ss"));
-            Path xmlFile = outputPath.resolve("hibiscus-" + timestamp + ".xml");
+            String timestamp = nextExportTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH.mm.ss"));
+            ExportContext context = new ExportContext(outputPath, timestamp, rollByMonth, maxObjectsPerFile);
             
-            XMLOutputter outputter = new XMLOutputter(Format.getPrettyFormat());
-            try (FileWriter writer = new FileWriter(xmlFile.toFile())) {
-                outputter.output(xmlDoc, writer);
-            }
+            Map<ExportSinkProvider, ExportSink> sinks = writeSinks(validEvents, context);
             
+            phase("history");
             saveHistory();
             
-            logger.info("Exported {} transactions to: {}", validEvents.size(), xmlFile);
-            System.out.println("File " + xmlFile + " ready for import to hibiscus");
+            for (Map.Entry<ExportSinkProvider, ExportSink> sink : sinks.entrySet()) {
+                for (Path file : sink.getValue().getFiles()) {
+                    logger.info("Exported transactions to: {}", file);
+                    report.println("File " + file + " ready for import (" + sink.getKey().getDescription() + ")");
+                }
+                if (sink.getValue() instanceof HibiscusXmlSink && ((HibiscusXmlSink) sink.getValue()).getManifestFile() != null) {
+                    report.println(validEvents.size() + " transactions in " + sink.getValue().getFiles().size()
+                            + " files, see manifest " + ((HibiscusXmlSink) sink.getValue()).getManifestFile());
+                }
+            }
             
             // Print filtering statistics
             printFilteringStatistics();
@@ -106,46 +135,37 @@ public class HibiscusExporter {
             }
             
         } catch (Exception e) {
-            throw new TradeRepublicError("XML export failed", e);
+            throw new TradeRepublicError("Export failed", e);
         }
     }
     
     /**
      * Sort transactions chronologically (oldest first)
      */
-    private void sortTransactionsChronologically(List<TransactionEvent> events) {
-        events.sort((event1, event2) -> {
-            try {
-                java.time.Instant time1 = event1.getTimestampAsInstant();
-                java.time.Instant time2 = event2.getTimestampAsInstant();
-                return time1.compareTo(time2);
-            } catch (Exception e) {
-                logger.warn("Could not compare timestamps for events {} and {}: {}", 
-                           event1.getId(), event2.getId(), e.getMessage());
-                // Fallback: compare by ID if timestamp parsing fails
-                return event1.getId().compareTo(event2.getId());
-            }
-        });
+    private void sortTransactionsChronologically(List<DerivedFields> events) {
+        events.sort(Comparator.comparing(DerivedFields::getEvent, CHRONOLOGICAL));
         
         logger.info("Sorted {} transactions chronologically", events.size());
     }
     
     /**
-     * Filter events based on status and history
+     * Filter events based on status and history. Cheap checks run first; derived fields are then
+     * computed once per remaining event, in parallel for larger batches, and reused for rendering.
      */
-    private List<TransactionEvent> filterEvents(List<TransactionEvent> events) {
-        List<TransactionEvent> validEvents = new ArrayList<>();
-        
+    private List<DerivedFields> filterEvents(List<TransactionEvent> events) {
         // Reset statistics
         totalEvents = events.size();
         eventsWithoutAmount = 0;
         alreadyKnownEvents = 0;
+        unchangedPendingEvents = 0;
         canceledEvents = 0;
         pendingEventsSkipped = 0;
         unknownStatusEvents = 0;
         cardVerificationEventsFiltered = 0;
         validEventsExported = 0;
+        exportedAmount = 0;
         
+        List<TransactionEvent> candidates = new ArrayList<>();
         for (TransactionEvent event : events) {
             // Filter out card verification events (no financial relevance for Hibiscus)
             if ("card_successful_verification".equals(event.getEventType())) {
@@ -160,40 +180,67 @@ public class HibiscusExporter {
             }
             
             // Check if already processed
-            if (knownTransactions.contains(event.getId())) {
+            if (history.contains(event.getId())) {
+                logger.debug("Already seen transaction: {}", event.getId());
+                alreadyKnownEvents++;
+                continue;
+            }
+            
+            // Pending and handled before with the same content
+            if (isUnchangedPending(event)) {
+                logger.debug("Unchanged pending transaction: {}", event.getId());
+                unchangedPendingEvents++;
+                continue;
+            }
+            
+            candidates.add(event);
+        }
+        
+        List<DerivedFields> validEvents = new ArrayList<>();
+        for (DerivedFields derived : deriveFields(candidates)) {
+            TransactionEvent event = derived.getEvent();
+            
+            // Same id twice in one batch: the first booked occurrence wins
+            if (history.contains(event.getId())) {
                 logger.debug("Already seen transaction: {}", event.getId());
                 alreadyKnownEvents++;
                 continue;
             }
             
-            // Get status from details
-            String status = getTransactionStatus(event);
+            TransactionStatus status = derived.getStatus();
             
-            if (!VALID_STATUSES.contains(status)) {
-                logger.error("Unknown status {} for transaction: {}", status, event.getId());
+            if (status == TransactionStatus.UNKNOWN) {
+                logger.error("Unknown status {} for transaction: {}", event.getStatus(), event.getId());
                 unknownStatusEvents++;
                 saveDebugFile(event);
                 continue;
             }
             
-            if ("CANCELED".equals(status)) {
+            if (status == TransactionStatus.CANCELED) {
+                pendingHashes.remove(event.getId());
                 canceledEvents++;
                 continue;
             }
             
-            if ("PENDING".equals(status) && !includePending) {
+            if (status == TransactionStatus.PENDING && !includePending) {
                 logger.debug("Skipping pending transaction: {}", event.getId());
+                // Remembered so the details are not fetched again until the content changes
+                pendingHashes.putSkipped(event);
                 pendingEventsSkipped++;
                 continue;
             }
             
-            // Mark as known if not pending
-            if (!"PENDING".equals(status)) {
-                knownTransactions.add(event.getId());
+            // Mark as known if not pending, otherwise remember the content until it changes
+            if (status != TransactionStatus.PENDING) {
+                history.add(event.getId());
+                pendingHashes.remove(event.getId());
+            } else {
+                pendingHashes.put(event);
             }
             
-            validEvents.add(event);
+            validEvents.add(derived);
             validEventsExported++;
+            exportedAmount += derived.getAmount();
             
             // Save individual transaction if requested
             if (saveTransactions) {
@@ -205,927 +252,336 @@ public class HibiscusExporter {
     }
     
     /**
-     * Create Hibiscus XML document
+     * Write the events to all selected sinks in one pass. Records are rendered in parallel per chunk and
+     * written in the order of the event list, so memory stays bounded by the chunk size.
      */
-    private Document createHibiscusXml(List<TransactionEvent> events) {
-        Document doc = new Document();
-        Element root = new Element("objects");
-        doc.setRootElement(root);
-        
-        int objectId = 0;
-        for (TransactionEvent event : events) {
-            Element objectElement = createTransactionElement(event, objectId++);
-            root.addContent(objectElement);
+    private Map<ExportSinkProvider, ExportSink> writeSinks(List<DerivedFields> events, ExportContext context) throws IOException {
+        Map<ExportSinkProvider, ExportSink> sinks = new LinkedHashMap<>();
+        try {
+            phase("write");
+            for (String format : formats) {
+                ExportSinkProvider provider = ExportSinks.get(format);
+                if (!sinks.containsKey(provider)) {
+                    sinks.put(provider, provider.open(context));
+                }
+            }
+            for (int start = 0; start < events.size(); start += RENDER_CHUNK_SIZE) {
+                List<DerivedFields> chunk = events.subList(start, Math.min(start + RENDER_CHUNK_SIZE, events.size()));
+                phase("render");
+                List<ExportRecord> records = parallelMap(chunk, this::createRecord);
+                phase("write");
+                for (ExportRecord record : records) {
+                    for (ExportSink sink : sinks.values()) {
+                        sink.write(record);
+                    }
+                }
+            }
+        } finally {
+            closeSinks(sinks.values());
         }
-        
-        return doc;
+        return sinks;
     }
     
     /**
-     * Create XML element for a single transaction
+     * Close all sinks, reporting the first failure after every sink had its chance to finish
      */
-    private Element createTransactionElement(TransactionEvent event, int objectId) {
-        Element object = new Element("object");
-        object.setAttribute("type", "de.willuhn.jameica.hbci.server.UmsatzImpl");
-        object.setAttribute("id", String.valueOf(objectId));
-        
-        // Date fields
-        String dateStr = formatDateForHibiscus(event.getTimestamp());
-        object.addContent(createElement("datum", "java.sql.Date", dateStr));
-        object.addContent(createElement("valuta", "java.sql.Date", dateStr));
-        
-        // Account information
-        String empfaengerKonto = getDetailValue(event, Arrays.asList("Absender", "data", "IBAN", "detail", "text"));
-        if (empfaengerKonto == null) {
-            empfaengerKonto = getDetailValue(event, Arrays.asList("Empfänger", "data", "IBAN", "detail", "text"));
-        }
-        object.addContent(createElement("empfaenger_konto", "java.lang.String", empfaengerKonto != null ? empfaengerKonto : ""));
-        
-        // Recipient name
-        String empfaengerName = getDetailValue(event, Arrays.asList("Absender", "data", "Name", "detail", "text"));
-        if (empfaengerName == null) {
-            empfaengerName = getDetailValue(event, Arrays.asList("Übersicht", "data", "Händler", "detail", "text"));
-        }
-        if (empfaengerName == null) {
-            empfaengerName = getDetailValue(event, Arrays.asList("Empfänger", "data", "Name", "detail", "text"));
-        }
-        object.addContent(createElement("empfaenger_name", "java.lang.String", empfaengerName != null ? empfaengerName : ""));
-        
-        // Reference/Purpose and Amount - Special handling for benefits_saveback_execution
-        String zweck = getDetailValue(event, Arrays.asList("Übersicht", "data", "Referenz", "detail", "text"));
-        if (zweck == null) {
-            zweck = event.getTitle();
-        }
-        
-        double betrag;
-        if ("benefits_saveback_execution".equals(event.getEventType())) {
-            // For saveback execution: set amount to 0 and append saveback info to purpose
-            betrag = 0.0;
-            String savebackInfo = formatSavebackPurpose(-event.getAmount().getValue()); // Negate the amount for display
-            zweck = (zweck != null && !zweck.isEmpty()) ? zweck + " - " + savebackInfo : savebackInfo;
-        } else {
-            // Normal processing
-            betrag = event.getAmount().getValue();
-        }
-        
-        object.addContent(createElement("zweck", "java.lang.String", zweck != null ? zweck : ""));
-        
-        // Transaction type
-        object.addContent(createElement("art", "java.lang.String", event.getEventType()));
-        
-        // Amount
-        object.addContent(createElement("betrag", "java.lang.Double", String.valueOf(betrag)));
-        
-        // Empty fields required by Hibiscus
-        object.addContent(createElement("primanota", "java.lang.String", ""));
-        object.addContent(createElement("customerref", "java.lang.String", ""));
-        object.addContent(createElement("checksum", "java.math.BigDecimal", ""));
-        object.addContent(createElement("konto_id", "java.lang.Integer", ""));
-        object.addContent(createElement("addkey", "java.lang.String", ""));
-        object.addContent(createElement("txid", "java.lang.String", ""));
-        object.addContent(createElement("saldo", "java.lang.Double", ""));
-        object.addContent(createElement("gvcode", "java.lang.String", ""));
-        object.addContent(createElement("empfaenger_blz", "java.lang.String", ""));
-        
-        // Mark as pending if needed
-        String status = getTransactionStatus(event);
-        if ("PENDING".equals(status)) {
-            object.addContent(createElement("flags", "java.lang.Integer", "2"));
+    private void closeSinks(Collection<ExportSink> sinks) throws IOException {
+        IOException failure = null;
+        for (ExportSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
         }
-        
-        // Add comment with additional details
-        String comment = buildTransactionComment(event);
-        if (!comment.isEmpty()) {
-            object.addContent(createElement("kommentar", "java.lang.String", comment));
+        if (failure != null) {
+            throw failure;
         }
-        
-        return object;
     }
     
     /**
-     * Create XML element with type and content
+     * Map a list in order, using the fork-join pool for larger lists (function must not touch exporter state)
      */
-    private Element createElement(String name, String type, String content) {
-        Element element = new Element(name);
-        element.setAttribute("type", type);
-        if (content != null && !content.isEmpty()) {
-            element.setText(content);
-        }
-        return element;
+    private static <T, R> List<R> parallelMap(List<T> items, Function<T, R> function) {
+        if (items.size() < PARALLEL_RENDER_THRESHOLD) {
+            List<R> results = new ArrayList<>(items.size());
+            for (T item : items) {
+                results.add(function.apply(item));
+            }
+            return results;
+        }
+        // Ordered stream: collected list keeps the order of the input
+        return items.parallelStream()
+                .map(function)
+                .collect(Collectors.toList());
     }
     
     /**
-     * Format date for Hibiscus (dd.MM.yyyy HH:mm:ss)
+     * Compute derived fields for the events, keeping their order
      */
-    private String formatDateForHibiscus(String timestamp) {
-        if (timestamp != null && timestamp.length() >= 19) {
-            // Convert from ISO format to Hibiscus format
-            String date = timestamp.substring(8, 10) + "." + 
-                         timestamp.substring(5, 7) + "." + 
-                         timestamp.substring(0, 4) + " " + 
-                         timestamp.substring(11, 19);
-            return date;
-        }
-        return "";
+    List<DerivedFields> deriveFields(List<TransactionEvent> events) {
+        return parallelMap(events, this::deriveFields);
     }
     
     /**
-     * Get transaction status from event or details
+     * Status, ISIN, mapped columns and normalized amount of a single event
      */
-    private String getTransactionStatus(TransactionEvent event) {
-        // First try to get status directly from event
-        if (event.getStatus() != null && !event.getStatus().isEmpty()) {
-            return event.getStatus();
+    private DerivedFields deriveFields(TransactionEvent event) {
+        FieldMapping.EventMapping mapping = fieldMapping.forEventType(event.getEventType());
+        
+        // Account information, recipient and purpose from the field mapping
+        String counterpartyIban = mapping.getColumn("empfaenger_konto", event);
+        String counterpartyName = mapping.getColumn("empfaenger_name", event);
+        String purpose = mapping.getColumn("zweck", event);
+        
+        long amount;
+        if (mapping.getAmountInPurpose() != null) {
+            // E.g. saveback execution: set amount to 0 and append the negated amount to purpose
+            amount = 0;
+            String amountInfo = mapping.formatAmountInPurpose(-event.getAmount().getMinorUnits());
+            purpose = (purpose != null && !purpose.isEmpty()) ? purpose + " - " + amountInfo : amountInfo;
+        } else {
+            // Normal processing
+            amount = event.getAmount().getMinorUnits();
         }
         
-        // Fallback: try to get from details structure
-        String status = getDetailValue(event, Arrays.asList("Übersicht", "data", "Status", "detail", "functionalStyle"));
-        return status != null ? status : "UNKNOWN";
+        return new DerivedFields(event, mapping, getTransactionStatus(event), event.getDetailIndex().getHeaderIsin(),
+                counterpartyIban, counterpartyName, purpose, amount);
     }
     
     /**
-     * Extract value from nested details structure
+     * Create the format-independent record for a single transaction (called concurrently, must not touch exporter state)
      */
-    private String getDetailValue(TransactionEvent event, List<String> path) {
-        if (event.getDetails() == null) {
-            return null;
-        }
+    private ExportRecord createRecord(DerivedFields derived) {
+        TransactionEvent event = derived.getEvent();
+        String comment = buildTransactionComment(event, derived.getMapping());
         
-        JsonNode current = event.getDetails();
-        
-        // Navigate through sections if they exist
-        if (current.has("sections")) {
-            current = current.get("sections");
-        }
-        
-        return navigateJsonPath(current, path);
+        return new ExportRecord(event, derived.getCounterpartyIban(), derived.getCounterpartyName(), derived.getPurpose(),
+                derived.getAmount(), derived.getStatus() == TransactionStatus.PENDING, comment);
     }
-    
     /**
-     * Navigate JSON path recursively
+     * Whether the timeline processor needs to fetch details for an event: false for events that
+     * {@link #exportTransactions} would skip before looking at details
      */
-    private String navigateJsonPath(JsonNode node, List<String> path) {
-        if (node == null || path.isEmpty()) {
-            return null;
-        }
-        
-        String currentKey = path.get(0);
-        List<String> remainingPath = path.subList(1, path.size());
-        
-        if (node.isArray()) {
-            // Search through array for matching title
-            for (JsonNode item : node) {
-                if (item.has("title") && currentKey.equals(item.get("title").asText())) {
-                    return navigateJsonPath(item, remainingPath);
-                }
-            }
-        } else if (node.has(currentKey)) {
-            if (remainingPath.isEmpty()) {
-                JsonNode result = node.get(currentKey);
-                return result.isTextual() ? result.asText() : null;
-            } else {
-                return navigateJsonPath(node.get(currentKey), remainingPath);
-            }
-        }
-        
-        return null;
+    public boolean needsDetails(TransactionEvent event) {
+        return event.hasAmount()
+                && !"card_successful_verification".equals(event.getEventType())
+                && !history.contains(event.getId())
+                && !isUnchangedPending(event);
     }
     
     /**
-     * Build comment with transaction details
+     * Pending with the same content as when it was last exported, or skipped by an export without pending
      */
-    private String buildTransactionComment(TransactionEvent event) {
-        StringBuilder comment = new StringBuilder();
-        
-        try {
-            
-        // Handle specialized event types
-        if ("ssp_corporate_action_invoice_cash".equals(event.getEventType())) {
-            String dividendComment = buildDividendComment(event);
-            if (!dividendComment.isEmpty()) {
-                comment.append(dividendComment);
-                return comment.toString(); // Return early for specialized events
-            }
-        }
-        
-        if ("trading_savingsplan_executed".equals(event.getEventType())) {
-            String savingsPlanComment = buildSavingsPlanComment(event);
-            if (!savingsPlanComment.isEmpty()) {
-                comment.append(savingsPlanComment);
-                return comment.toString(); // Return early for specialized events
-            }
-        }
-        
-        if ("benefits_saveback_execution".equals(event.getEventType())) {
-            String savebackComment = buildSavebackComment(event);
-            if (!savebackComment.isEmpty()) {
-                comment.append(savebackComment);
-                return comment.toString(); // Return early for specialized events
-            }
-        }
-        
-        if ("INTEREST_PAYOUT".equals(event.getEventType())) {
-            String interestComment = buildInterestPayoutComment(event);
-            if (!interestComment.isEmpty()) {
-                comment.append(interestComment);
-                return comment.toString(); // Return early for specialized events
-            }
-        }
-        
-        if ("timeline_legacy_migrated_events".equals(event.getEventType())) {
-            String legacyComment = buildLegacyMigratedComment(event);
-            if (!legacyComment.isEmpty()) {
-                comment.append(legacyComment);
-                return comment.toString(); // Return early for specialized events
-            }
-        }
-        
-        // Fallback for unknown event types - return empty comment
-        } catch (Exception e) {
-            logger.warn("Error building transaction comment for event {}: {}", event.getId(), e.getMessage());
-        }
-        
-        return comment.toString();
+    private boolean isUnchangedPending(TransactionEvent event) {
+        return pendingHashes.isUnchanged(event) || (!includePending && pendingHashes.isUnchangedSkipped(event));
     }
     
     /**
-     * Build detailed comment for dividend/corporate action transactions
+     * Detail projection for an export with the given mapping: the mapped fields plus the status fallback
      */
-    private String buildDividendComment(TransactionEvent event) {
-        StringBuilder comment = new StringBuilder();
-        
-        try {
-            // Extract event type
-            String eventType = getDetailValue(event, Arrays.asList("Übersicht", "data", "Event", "detail", "text"));
-            if (eventType != null) {
-                comment.append("Event: ").append(eventType).append("\n");
-            }
-            
-            // Extract stock information
-            String stock = getDetailValue(event, Arrays.asList("Übersicht", "data", "Wertpapier", "detail", "text"));
-            if (stock != null) {
-                comment.append("Wertpapier: ").append(stock).append("\n");
-            }
-            
-            // Extract ISIN from header action payload
-            String isin = getISINFromHeaderAction(event);
-            if (isin != null) {
-                comment.append("ISIN: ").append(isin).append("\n");
-            }
-            
-            // Extract business/transaction details
-            JsonNode businessSection = findInSections(event, "Geschäft");
-            if (businessSection != null && businessSection.has("data") && businessSection.get("data").isArray()) {
-                JsonNode businessData = businessSection.get("data");
-                
-                // Extract shares count
-                String shares = extractBusinessDetail(businessData, "Aktien");
-                if (shares != null) {
-                    comment.append("Aktien: ").append(shares).append("\n");
-                }
-                
-                // Extract dividend per share
-                String dividendPerShare = extractBusinessDetail(businessData, "Dividende pro Aktie");
-                if (dividendPerShare != null) {
-                    comment.append("Dividende pro Aktie: ").append(dividendPerShare).append("\n");
-                }
-                
-                // Extract tax (replaces withholding tax)
-                String tax = extractBusinessDetail(businessData, "Steuer");
-                if (tax != null) {
-                    comment.append("Steuer: ").append(tax).append("\n");
-                }
-                
-                // Extract total amount
-                String total = extractBusinessDetail(businessData, "Gesamt");
-                if (total != null) {
-                    comment.append("Gesamt: ").append(total).append("\n");
-                }
-            }
-            
-            // Extract document details if available
-            JsonNode documentsSection = findInSections(event, "Dokumente");
-            if (documentsSection != null && documentsSection.has("data") && documentsSection.get("data").isArray()) {
-                JsonNode documentsData = documentsSection.get("data");
-                
-                String documentDate = extractBusinessDetail(documentsData, "Dokumente");
-                if (documentDate != null) {
-                    comment.append("Dokumentdatum: ").append(documentDate).append("\n");
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Error building dividend comment for event {}: {}", event.getId(), e.getMessage());
-        }
-        
-        return comment.toString();
+    public static DetailProjection detailProjection(FieldMapping fieldMapping) {
+        return fieldMapping.getDetailProjection().copy()
+                .keepItemField("Übersicht", "Status", "functionalStyle");
     }
     
     /**
-     * Build detailed comment for savings plan execution transactions
+     * Get transaction status from event or details
      */
-    private String buildSavingsPlanComment(TransactionEvent event) {
-        StringBuilder comment = new StringBuilder();
-        
-        try {
-            // Extract savings plan status
-            String sparplanStatus = getDetailValue(event, Arrays.asList("Übersicht", "data", "Sparplan", "detail", "text"));
-            if (sparplanStatus != null) {
-                comment.append("Sparplan: ").append(sparplanStatus).append("\n");
-            }
-            
-            // Extract payment method
-            String zahlung = getDetailValue(event, Arrays.asList("Übersicht", "data", "Zahlung", "detail", "text"));
-            if (zahlung != null) {
-                comment.append("Zahlung: ").append(zahlung).append("\n");
-            }
-            
-            // Extract asset information
-            String asset = getDetailValue(event, Arrays.asList("Übersicht", "data", "Asset", "detail", "text"));
-            if (asset != null) {
-                comment.append("Asset: ").append(asset).append("\n");
-            }
-            
-            // Extract ISIN from header action payload
-            String isin = getISINFromHeaderAction(event);
-            if (isin != null) {
-                comment.append("ISIN: ").append(isin).append("\n");
-            }
-            
-            // Extract transaction details from nested structure
-            JsonNode transactionDetail = getTransactionDetailFromOverview(event);
-            if (transactionDetail != null) {
-                String shares = extractNestedTransactionDetail(transactionDetail, "Aktien");
-                if (shares != null) {
-                    comment.append("Aktien: ").append(shares).append("\n");
-                }
-                
-                String sharePrice = extractNestedTransactionDetail(transactionDetail, "Aktienkurs");
-                if (sharePrice != null) {
-                    comment.append("Aktienkurs: ").append(sharePrice).append("\n");
-                }
-                
-                String sum = extractNestedTransactionDetail(transactionDetail, "Summe");
-                if (sum != null) {
-                    comment.append("Transaktionssumme: ").append(sum).append("\n");
-                }
-            }
-            
-            // Extract fee information
-            String gebuehr = getDetailValue(event, Arrays.asList("Übersicht", "data", "Gebühr", "detail", "text"));
-            if (gebuehr != null) {
-                comment.append("Gebühr: ").append(gebuehr).append("\n");
-            }
-            
-            // Extract total sum
-            String gesamtsumme = getDetailValue(event, Arrays.asList("Übersicht", "data", "Summe", "detail", "text"));
-            if (gesamtsumme != null) {
-                comment.append("Summe: ").append(gesamtsumme).append("\n");
-            }
-            
-            // Extract savings plan frequency information
-            JsonNode sparplanSection = findInSections(event, "Sparplan");
-            if (sparplanSection != null && sparplanSection.has("data") && sparplanSection.get("data").isArray()) {
-                JsonNode sparplanData = sparplanSection.get("data");
-                for (JsonNode item : sparplanData) {
-                    if (item.has("detail") && item.get("detail").has("subtitle")) {
-                        String frequency = item.get("detail").get("subtitle").asText();
-                        if (frequency != null && !frequency.isEmpty()) {
-                            comment.append("Häufigkeit: ").append(frequency).append("\n");
-                        }
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Error building savings plan comment for event {}: {}", event.getId(), e.getMessage());
+    private TransactionStatus getTransactionStatus(TransactionEvent event) {
+        // First try to get status directly from event
+        if (event.getStatus() != null && !event.getStatus().isEmpty()) {
+            return event.getStatusCode();
         }
         
-        return comment.toString();
+        // Fallback: try to get from details structure
+        JsonNode statusItem = event.getDetailIndex().getItem("Übersicht", "Status");
+        JsonNode status = statusItem != null ? statusItem.path("detail").path("functionalStyle") : null;
+        return status != null && status.isTextual() ? TransactionStatus.of(status.asText()) : TransactionStatus.UNKNOWN;
     }
     
     /**
-     * Build detailed comment for saveback execution transactions
+     * Build comment with transaction details from the mapping of the event type
      */
-    private String buildSavebackComment(TransactionEvent event) {
-        StringBuilder comment = new StringBuilder();
-        
+    private String buildTransactionComment(TransactionEvent event, FieldMapping.EventMapping mapping) {
         try {
-            // Extract saveback status
-            String savebackStatus = getDetailValue(event, Arrays.asList("Übersicht", "data", "Saveback", "detail", "text"));
-            if (savebackStatus != null) {
-                comment.append("Saveback: ").append(savebackStatus).append("\n");
-            }
-            
-            // Extract asset information
-            String asset = getDetailValue(event, Arrays.asList("Übersicht", "data", "Asset", "detail", "text"));
-            if (asset != null) {
-                comment.append("Asset: ").append(asset).append("\n");
-            }
-            
-            // Extract ISIN from header action payload
-            String isin = getISINFromHeaderAction(event);
-            if (isin != null) {
-                comment.append("ISIN: ").append(isin).append("\n");
-            }
-            
-            // Extract transaction information with shares and price
-            JsonNode transactionNode = getOverviewDataByTitle(event, "Transaktion");
-            if (transactionNode != null && transactionNode.has("detail")) {
-                JsonNode detail = transactionNode.get("detail");
-                if (detail.has("displayValue")) {
-                    JsonNode displayValue = detail.get("displayValue");
-                    if (displayValue.has("prefix") && displayValue.has("text")) {
-                        String shares = displayValue.get("prefix").asText().replace(" x ", "").trim();
-                        String price = displayValue.get("text").asText();
-                        comment.append("Aktien: ").append(shares).append("\n");
-                        comment.append("Aktienkurs: ").append(price).append("\n");
-                    }
-                }
-            }
-            
-            // Extract fee information
-            String gebuehr = getDetailValue(event, Arrays.asList("Übersicht", "data", "Gebühr", "detail", "text"));
-            if (gebuehr != null) {
-                comment.append("Gebühr: ").append(gebuehr).append("\n");
-            }
-            
-            // Extract total amount
-            String gesamt = getDetailValue(event, Arrays.asList("Übersicht", "data", "Gesamt", "detail", "text"));
-            if (gesamt != null) {
-                comment.append("Gesamt: ").append(gesamt).append("\n");
-            }
-            
-            // Extract document information if available
-            JsonNode documentsSection = findInSections(event, "Dokumente");
-            if (documentsSection != null && documentsSection.has("data") && documentsSection.get("data").isArray()) {
-                JsonNode documentsData = documentsSection.get("data");
-                
-                String executionDoc = extractBusinessDetail(documentsData, "Abrechnung Ausführung");
-                if (executionDoc != null) {
-                    comment.append("Abrechnung verfügbar\n");
-                }
-                
-                String costsDoc = extractBusinessDetail(documentsData, "Kosteninformation");
-                if (costsDoc != null) {
-                    comment.append("Kosteninformation verfügbar\n");
-                }
-            }
-            
+            return mapping.buildComment(event);
         } catch (Exception e) {
-            logger.warn("Error building saveback comment for event {}: {}", event.getId(), e.getMessage());
+            logger.warn("Error building transaction comment for event {}: {}", event.getId(), e.getMessage());
+            return "";
         }
-        
-        return comment.toString();
     }
     
     /**
-     * Build detailed comment for interest payout transactions
+     * Persist ids of the exported transactions to the history journal
      */
-    private String buildInterestPayoutComment(TransactionEvent event) {
-        StringBuilder comment = new StringBuilder();
-        
+    private void saveHistory() {
         try {
-            // Extract status
-            String status = getDetailValue(event, Arrays.asList("Übersicht", "data", "Status", "detail", "text"));
-            if (status != null) {
-                comment.append("Status: ").append(status).append("\n");
-            }
-            
-            // Extract average balance
-            String durchschnittssaldo = getDetailValue(event, Arrays.asList("Übersicht", "data", "Durchschnittssaldo", "detail", "text"));
-            if (durchschnittssaldo != null) {
-                comment.append("Durchschnittssaldo: ").append(durchschnittssaldo).append("\n");
-            }
-            
-            // Extract annual rate
-            String jaehrlicheRate = getDetailValue(event, Arrays.asList("Übersicht", "data", "Jährliche Rate", "detail", "text"));
-            if (jaehrlicheRate != null) {
-                comment.append("Jährliche Rate: ").append(jaehrlicheRate).append("\n");
-            }
-            
-            // Extract asset
-            String asset = getDetailValue(event, Arrays.asList("Übersicht", "data", "Asset", "detail", "text"));
-            if (asset != null) {
-                comment.append("Asset: ").append(asset).append("\n");
-            }
-            
-            // Extract transaction details from "Transaktion" section
-            JsonNode transactionSection = findInSections(event, "Transaktion");
-            if (transactionSection != null && transactionSection.has("data") && transactionSection.get("data").isArray()) {
-                JsonNode transactionData = transactionSection.get("data");
-                
-                String angesammelt = extractBusinessDetail(transactionData, "Angesammelt");
-                if (angesammelt != null) {
-                    comment.append("Angesammelt: ").append(angesammelt).append("\n");
-                }
-                
-                String steuern = extractBusinessDetail(transactionData, "Steuern");
-                if (steuern != null) {
-                    comment.append("Steuern: ").append(steuern).append("\n");
-                }
-                
-                String gesamt = extractBusinessDetail(transactionData, "Gesamt");
-                if (gesamt != null) {
-                    comment.append("Gesamt: ").append(gesamt).append("\n");
-                }
-            }
-            
-            // Extract document information if available
-            JsonNode documentsSection = findInSections(event, "Dokument");
-            if (documentsSection != null && documentsSection.has("data") && documentsSection.get("data").isArray()) {
-                JsonNode documentsData = documentsSection.get("data");
-                
-                String abrechnungDoc = extractBusinessDetail(documentsData, "Abrechnung");
-                if (abrechnungDoc != null) {
-                    comment.append("Abrechnung verfügbar\n");
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Error building interest payout comment for event {}: {}", event.getId(), e.getMessage());
+            history.commit();
+            pendingHashes.save();
+            logger.debug("Saved history with {} transactions", history.size());
+        } catch (IOException e) {
+            logger.error("Could not save history", e);
         }
-        
-        return comment.toString();
     }
     
     /**
-     * Build detailed comment for legacy migrated transactions
+     * Save debug file for problematic transaction
      */
-    private String buildLegacyMigratedComment(TransactionEvent event) {
-        StringBuilder comment = new StringBuilder();
-        
-        try {
-            // Extract status
-            String status = getDetailValue(event, Arrays.asList("Übersicht", "data", "Status", "detail", "text"));
-            if (status != null) {
-                comment.append("Status: ").append(status).append("\n");
-            }
-            
-            // Extract order type
-            String orderart = getDetailValue(event, Arrays.asList("Übersicht", "data", "Orderart", "detail", "text"));
-            if (orderart != null) {
-                comment.append("Orderart: ").append(orderart).append("\n");
-            }
-            
-            // Extract asset
-            String asset = getDetailValue(event, Arrays.asList("Übersicht", "data", "Asset", "detail", "text"));
-            if (asset != null) {
-                comment.append("Asset: ").append(asset).append("\n");
-            }
-            
-            // Extract ISIN from header action payload
-            String isin = getISINFromHeaderAction(event);
-            if (isin != null) {
-                comment.append("ISIN: ").append(isin).append("\n");
-            }
-            
-            // Extract transaction details from "Transaktion" section
-            JsonNode transactionSection = findInSections(event, "Transaktion");
-            if (transactionSection != null && transactionSection.has("data") && transactionSection.get("data").isArray()) {
-                JsonNode transactionData = transactionSection.get("data");
-                
-                String anteile = extractBusinessDetail(transactionData, "Anteile");
-                if (anteile != null) {
-                    comment.append("Anteile: ").append(anteile).append("\n");
-                }
-                
-                String aktienkurs = extractBusinessDetail(transactionData, "Aktienkurs");
-                if (aktienkurs != null) {
-                    comment.append("Aktienkurs: ").append(aktienkurs).append("\n");
-                }
-                
-                String gebuehr = extractBusinessDetail(transactionData, "Gebühr");
-                if (gebuehr != null) {
-                    comment.append("Gebühr: ").append(gebuehr).append("\n");
-                }
-                
-                String gesamt = extractBusinessDetail(transactionData, "Gesamt");
-                if (gesamt != null) {
-                    comment.append("Gesamt: ").append(gesamt).append("\n");
-                }
-            }
-            
-            // Extract document information if available
-            JsonNode documentsSection = findInSections(event, "Dokumente");
-            if (documentsSection != null && documentsSection.has("data") && documentsSection.get("data").isArray()) {
-                JsonNode documentsData = documentsSection.get("data");
-                
-                // Count different document types
-                int abrechnungen = 0;
-                int basisInfoBlaetter = 0;
-                int kostenInfos = 0;
-                
-                for (JsonNode docItem : documentsData) {
-                    if (docItem.has("title")) {
-                        String title = docItem.get("title").asText();
-                        if (title.startsWith("Abrechnung")) {
-                            abrechnungen++;
-                        } else if (title.startsWith("Basisinformationsblatt")) {
-                            basisInfoBlaetter++;
-                        } else if (title.startsWith("Kosteninformation")) {
-                            kostenInfos++;
-                        }
-                    }
-                }
-                
-                if (abrechnungen > 0) {
-                    comment.append("Abrechnungen: ").append(abrechnungen).append("\n");
-                }
-                if (basisInfoBlaetter > 0) {
-                    comment.append("Basisinformationsblätter: ").append(basisInfoBlaetter).append("\n");
-                }
-                if (kostenInfos > 0) {
-                    comment.append("Kosteninformationen: ").append(kostenInfos).append("\n");
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.warn("Error building legacy migrated comment for event {}: {}", event.getId(), e.getMessage());
-        }
-        
-        return comment.toString();
+    private void saveDebugFile(TransactionEvent event) {
+        detailWriter().submit("debug-" + event.getId().replace(":", ".") + ".json", event, false);
     }
     
     /**
-     * Get overview data item by title
+     * Save individual transaction file
      */
-    private JsonNode getOverviewDataByTitle(TransactionEvent event, String title) {
-        try {
-            JsonNode overview = findInSections(event, "Übersicht");
-            if (overview != null && overview.has("data") && overview.get("data").isArray()) {
-                JsonNode data = overview.get("data");
-                for (JsonNode item : data) {
-                    if (item.has("title") && title.equals(item.get("title").asText())) {
-                        return item;
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Error getting overview data for title '{}' in event {}: {}", title, event.getId(), e.getMessage());
-        }
-        return null;
+    private void saveTransactionFile(TransactionEvent event) {
+        detailWriter().submit("_" + event.getId(), event, false);
     }
     
     /**
-     * Get transaction detail payload from overview section
+     * Save all transactions in original JSON format for debugging
      */
-    private JsonNode getTransactionDetailFromOverview(TransactionEvent event) {
-        try {
-            JsonNode overview = findInSections(event, "Übersicht");
-            if (overview != null && overview.has("data") && overview.get("data").isArray()) {
-                for (JsonNode item : overview.get("data")) {
-                    if (item.has("title") && "Transaktion".equals(item.get("title").asText()) &&
-                        item.has("detail") && item.get("detail").has("action") &&
-                        item.get("detail").get("action").has("payload") &&
-                        item.get("detail").get("action").get("payload").has("sections")) {
-                        return item.get("detail").get("action").get("payload").get("sections");
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Error extracting transaction detail for event {}: {}", event.getId(), e.getMessage());
-        }
-        return null;
+    private void saveDebugFiles(List<TransactionEvent> allEvents) {
+        // Sort all events chronologically for debug output
+        List<TransactionEvent> sortedEvents = new ArrayList<>(allEvents);
+        sortedEvents.sort(CHRONOLOGICAL);
+        
+        // Save all events as individual JSON files
+        AsyncDetailWriter writer = detailWriter();
+        for (TransactionEvent event : sortedEvents) {
+            String safeId = event.getId().replaceAll("[^a-zA-Z0-9\\-_]", "_");
+            writer.submit("debug/transaction_" + safeId + ".json", event, true);
+        }
+        
+        // Save summary file with all events (sorted)
+        String summaryName = "debug/all_transactions_summary.json";
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("totalEvents", sortedEvents.size());
+        summary.put("exportTimestamp", LocalDateTime.now().toString());
+        summary.put("transactions", sortedEvents);
+        writer.submit(summaryName, summary, true);
+        
+        Path debugTarget = writer.getFormat() == AsyncDetailWriter.Format.FILES
+                ? outputPath.resolve("debug") : writer.getTarget(summaryName);
+        logger.info("Debug files queued for: {}", debugTarget);
+        report.println("\nDEBUG: All " + sortedEvents.size() + " transactions saved as JSON files in: " + debugTarget);
+        report.println("DEBUG: Summary file: " + writer.getTarget(summaryName));
+        report.println("DEBUG: Transactions sorted chronologically (oldest first)");
     }
     
     /**
-     * Extract detail from nested transaction payload
+     * Background writer for detail and debug files, started on first use
      */
-    private String extractNestedTransactionDetail(JsonNode sections, String title) {
-        try {
-            if (sections != null && sections.isArray()) {
-                for (JsonNode section : sections) {
-                    if (section.has("data") && section.get("data").isArray()) {
-                        JsonNode data = section.get("data");
-                        for (JsonNode item : data) {
-                            if (item.has("title") && title.equals(item.get("title").asText()) &&
-                                item.has("detail") && item.get("detail").has("text")) {
-                                return item.get("detail").get("text").asText();
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Error extracting nested transaction detail '{}': {}", title, e.getMessage());
+    private AsyncDetailWriter detailWriter() {
+        if (detailWriter == null) {
+            detailWriter = new AsyncDetailWriter(outputPath, detailsFormat);
         }
-        return null;
+        return detailWriter;
     }
     
     /**
-     * Extract ISIN from header section action payload
+     * Set the layout of --save-details and --debug files; takes effect before the first file is written
      */
-    private String getISINFromHeaderAction(TransactionEvent event) {
-        try {
-            if (event.getDetails() != null && event.getDetails().has("sections")) {
-                JsonNode sections = event.getDetails().get("sections");
-                if (sections.isArray()) {
-                    for (JsonNode section : sections) {
-                        if (section.has("type") && "header".equals(section.get("type").asText()) &&
-                            section.has("action") && section.get("action").has("payload")) {
-                            JsonNode payload = section.get("action").get("payload");
-                            if (payload.isTextual()) {
-                                return payload.asText();
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Error extracting ISIN from header action for event {}: {}", event.getId(), e.getMessage());
-        }
-        return null;
+    public void setDetailsFormat(AsyncDetailWriter.Format detailsFormat) {
+        this.detailsFormat = detailsFormat;
     }
     
     /**
-     * Extract business detail value from data array
+     * Split XML output into one file per calendar month and/or files of at most maxObjectsPerFile objects (0 = no limit)
      */
-    private String extractBusinessDetail(JsonNode dataArray, String title) {
-        if (dataArray != null && dataArray.isArray()) {
-            for (JsonNode item : dataArray) {
-                if (item.has("title") && title.equals(item.get("title").asText()) &&
-                    item.has("detail") && item.get("detail").has("text")) {
-                    return item.get("detail").get("text").asText();
-                }
-            }
-        }
-        return null;
+    public void setRolling(boolean rollByMonth, int maxObjectsPerFile) {
+        this.rollByMonth = rollByMonth;
+        this.maxObjectsPerFile = maxObjectsPerFile;
     }
     
     /**
-     * Find section by title in details
+     * Export every given transaction again without consulting or updating the history, e.g. when
+     * re-exporting from the archive after a mapping change
      */
-    private JsonNode findInSections(TransactionEvent event, String sectionTitle) {
-        if (event.getDetails() == null || !event.getDetails().has("sections")) {
-            return null;
+    public void setIgnoreHistory(boolean ignoreHistory) {
+        if (ignoreHistory) {
+            history = HistoryStore.inMemory();
+            pendingHashes = ContentHashStore.inMemory();
         }
-        
-        JsonNode sections = event.getDetails().get("sections");
-        if (sections.isArray()) {
-            for (JsonNode section : sections) {
-                if (section.has("title") && sectionTitle.equals(section.get("title").asText())) {
-                    return section;
-                }
-            }
-        }
-        
-        return null;
     }
     
     /**
-     * Load transaction history
+     * Select the export formats by name, see {@link ExportSinks#available()}
      */
-    private void loadHistory() {
-        logger.info("Using history file: {}", historyFile);
-        
-        if (Files.exists(historyFile)) {
-            try {
-                JsonNode historyNode = objectMapper.readTree(historyFile.toFile());
-                if (historyNode.has("known_transactions")) {
-                    JsonNode knownArray = historyNode.get("known_transactions");
-                    if (knownArray.isArray()) {
-                        for (JsonNode id : knownArray) {
-                            knownTransactions.add(id.asText());
-                        }
-                    }
-                }
-                logger.info("Loaded {} known transactions from history", knownTransactions.size());
-            } catch (IOException e) {
-                logger.warn("Could not load history file", e);
-            }
-        }
+    public void setFormats(List<String> formats) {
+        this.formats = List.copyOf(formats);
     }
     
     /**
-     * Save transaction history
+     * Record the filter, render, write and history phases of {@link #exportTransactions}
      */
-    private void saveHistory() {
-        try {
-            Map<String, Object> history = Map.of("known_transactions", new ArrayList<>(knownTransactions));
-            objectMapper.writeValue(historyFile.toFile(), history);
-            logger.debug("Saved history with {} transactions", knownTransactions.size());
-        } catch (IOException e) {
-            logger.error("Could not save history file", e);
-        }
+    public void setPhaseTimer(PhaseTimer phaseTimer) {
+        this.phaseTimer = phaseTimer;
     }
     
     /**
-     * Save debug file for problematic transaction
+     * Where the "ready for import" lines and statistics are printed, e.g. a per-account buffer in batch mode
      */
-    private void saveDebugFile(TransactionEvent event) {
-        try {
-            String filename = "debug-" + event.getId().replace(":", ".") + ".json";
-            Path debugFile = outputPath.resolve(filename);
-            objectMapper.writeValue(debugFile.toFile(), event);
-            logger.info("Saved debug file: {}", debugFile);
-        } catch (IOException e) {
-            logger.error("Could not save debug file for transaction: {}", event.getId(), e);
-        }
+    public void setReport(PrintStream report) {
+        this.report = report;
     }
     
-    /**
-     * Save individual transaction file
-     */
-    private void saveTransactionFile(TransactionEvent event) {
-        try {
-            String filename = "_" + event.getId();
-            Path transactionFile = outputPath.resolve(filename);
-            objectMapper.writeValue(transactionFile.toFile(), event);
-            logger.debug("Saved transaction file: {}", transactionFile);
-        } catch (IOException e) {
-            logger.error("Could not save transaction file: {}", event.getId(), e);
+    private void phase(String name) {
+        if (phaseTimer != null) {
+            phaseTimer.enter(name);
         }
     }
     
     /**
-     * Save all transactions in original JSON format for debugging
+     * Finish pending detail and debug files
      */
-    private void saveDebugFiles(List<TransactionEvent> allEvents) {
-        try {
-            // Create debug directory
-            Path debugDir = outputPath.resolve("debug");
-            Files.createDirectories(debugDir);
-            
-            // Sort all events chronologically for debug output
-            List<TransactionEvent> sortedEvents = new ArrayList<>(allEvents);
-            sortedEvents.sort((event1, event2) -> {
-                try {
-                    java.time.Instant time1 = event1.getTimestampAsInstant();
-                    java.time.Instant time2 = event2.getTimestampAsInstant();
-                    return time1.compareTo(time2);
-                } catch (Exception e) {
-                    return event1.getId().compareTo(event2.getId());
-                }
-            });
-            
-            // Save all events as individual JSON files
-            for (TransactionEvent event : sortedEvents) {
-                try {
-                    String safeId = event.getId().replaceAll("[^a-zA-Z0-9\\-_]", "_");
-                    String filename = "transaction_" + safeId + ".json";
-                    Path debugFile = debugDir.resolve(filename);
-                    
-                    // Create a pretty-printed JSON
-                    ObjectMapper prettyMapper = new ObjectMapper();
-                    prettyMapper.registerModule(new JavaTimeModule());
-                    prettyMapper.writerWithDefaultPrettyPrinter().writeValue(debugFile.toFile(), event);
-                    
-                } catch (Exception e) {
-                    logger.warn("Could not save debug file for transaction {}: {}", event.getId(), e.getMessage());
-                }
-            }
-            
-            // Save summary file with all events (sorted)
-            Path summaryFile = debugDir.resolve("all_transactions_summary.json");
-            Map<String, Object> summary = new HashMap<>();
-            summary.put("totalEvents", sortedEvents.size());
-            summary.put("exportTimestamp", LocalDateTime.now().toString());
-            summary.put("transactions", sortedEvents);
-            
-            ObjectMapper prettyMapper = new ObjectMapper();
-            prettyMapper.registerModule(new JavaTimeModule());
-            prettyMapper.writerWithDefaultPrettyPrinter().writeValue(summaryFile.toFile(), summary);
-            
-            logger.info("Debug files saved to: {}", debugDir);
-            System.out.println("\nDEBUG: All " + sortedEvents.size() + " transactions saved as JSON files in: " + debugDir);
-            System.out.println("DEBUG: Summary file: " + summaryFile);
-            System.out.println("DEBUG: Transactions sorted chronologically (oldest first)");
-            
-        } catch (IOException e) {
-            logger.error("Could not save debug files", e);
+    @Override
+    public void close() {
+        if (detailWriter != null) {
+            detailWriter.close();
+            detailWriter = null;
         }
     }
     
     /**
-     * Format saveback purpose with negated amount
+     * Second-resolution time for the export file names, advanced past the previous export so delta files
+     * written within the same second (watch mode) do not overwrite each other
      */
-    private String formatSavebackPurpose(double amount) {
-        return String.format("Saveback %.2f €", amount);
+    private LocalDateTime nextExportTime() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lastExportTime = lastExportTime != null && !now.isAfter(lastExportTime) ? lastExportTime.plusSeconds(1) : now;
+        return lastExportTime;
     }
     
     /**
      * Print detailed filtering statistics
      */
     private void printFilteringStatistics() {
-        System.out.println("\n=== EXPORT STATISTICS ===");
-        System.out.println("Total events found: " + totalEvents);
-        System.out.println("Valid transactions exported: " + validEventsExported);
-        
-        System.out.println("\n--- Filtered out events ---");
-        System.out.println("Events without amount (documents, notifications, etc.): " + eventsWithoutAmount);
-        System.out.println("Card verification events (filtered out): " + cardVerificationEventsFiltered);
-        System.out.println("Already known transactions (from previous exports): " + alreadyKnownEvents);
-        System.out.println("Canceled transactions: " + canceledEvents);
+        report.println("\n=== EXPORT STATISTICS ===");
+        report.println("Total events found: " + totalEvents);
+        report.println("Valid transactions exported: " + validEventsExported);
+        report.println("Net amount of exported transactions: " + Money.format(exportedAmount));
+        
+        report.println("\n--- Filtered out events ---");
+        report.println("Events without amount (documents, notifications, etc.): " + eventsWithoutAmount);
+        report.println("Card verification events (filtered out): " + cardVerificationEventsFiltered);
+        report.println("Already known transactions (from previous exports): " + alreadyKnownEvents);
+        report.println("Unchanged pending transactions (from previous exports): " + unchangedPendingEvents);
+        report.println("Canceled transactions: " + canceledEvents);
         if (!includePending) {
-            System.out.println("Pending transactions (use --include-pending to include): " + pendingEventsSkipped);
+            report.println("Pending transactions (use --include-pending to include): " + pendingEventsSkipped);
         }
-        System.out.println("Unknown status transactions: " + unknownStatusEvents);
+        report.println("Unknown status transactions: " + unknownStatusEvents);
         
-        int totalFiltered = eventsWithoutAmount + cardVerificationEventsFiltered + alreadyKnownEvents + canceledEvents + pendingEventsSkipped + unknownStatusEvents;
-        System.out.println("\nTotal filtered out: " + totalFiltered);
-        System.out.println("Export success rate: " + validEventsExported + "/" + totalEvents + " (" + 
+        int totalFiltered = eventsWithoutAmount + cardVerificationEventsFiltered + alreadyKnownEvents + unchangedPendingEvents + canceledEvents + pendingEventsSkipped + unknownStatusEvents;
+        report.println("\nTotal filtered out: " + totalFiltered);
+        report.println("Export success rate: " + validEventsExported + "/" + totalEvents + " (" + 
                           String.format("%.1f", (validEventsExported * 100.0 / totalEvents)) + "%)");
-        System.out.println("=========================");
+        report.println("=========================");
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package de.hibiscus.tr.export;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A single Hibiscus import object (one transaction) as an ordered list of typed fields
+ */
+public class HibiscusObject {
+    
+    public static final String UMSATZ_TYPE = "de.willuhn.jameica.hbci.server.UmsatzImpl";
+    
+    private final String type;
+    private final List<Field> fields = new ArrayList<>(20);
+    
+    public HibiscusObject(String type) {
+        this.type = type;
+    }
+    
+    /**
+     * Append a field; null or empty content produces an empty element
+     */
+    public HibiscusObject addField(String name, String type, String content) {
+        fields.add(new Field(name, type, content));
+        return this;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public List<Field> getFields() {
+        return Collections.unmodifiableList(fields);
+    }
+    
+    /**
+     * Get content of the first field with the given name
+     */
+    public String getFieldContent(String name) {
+        for (Field field : fields) {
+            if (field.getName().equals(name)) {
+                return field.getContent();
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Typed field of a Hibiscus object
+     */
+    public static class Field {
+        private final String name;
+        private final String type;
+        private final String content;
+        
+        public Field(String name, String type, String content) {
+            this.name = name;
+            this.type = type;
+            this.content = content;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getType() {
+            return type;
+        }
+        
+        public String getContent() {
+            return content;
+        }
+    }
+}
\ No newline at end of file
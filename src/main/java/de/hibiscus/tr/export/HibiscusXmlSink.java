@@ -0,0 +1,121 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.Money;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Hibiscus XML import format (UmsatzImpl objects), with optional rolling per month or object count
+ */
+public class HibiscusXmlSink implements ExportSink {
+    
+    private final RollingXmlOutput output;
+    
+    public HibiscusXmlSink(ExportContext context) {
+        this.output = new RollingXmlOutput(context.getOutputPath(), "hibiscus-" + context.getTimestamp(),
+                context.isRollByMonth(), context.getMaxObjectsPerFile());
+    }
+    
+    @Override
+    public void write(ExportRecord record) throws IOException {
+        output.write(record.getTimestamp(), toHibiscusObject(record));
+    }
+    
+    @Override
+    public List<Path> getFiles() {
+        return output.getFiles();
+    }
+    
+    /**
+     * Manifest of a rolling export, or null
+     */
+    public Path getManifestFile() {
+        return output.getManifestFile();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        output.close();
+    }
+    
+    /**
+     * Create Hibiscus object for a single transaction
+     */
+    static HibiscusObject toHibiscusObject(ExportRecord record) {
+        HibiscusObject object = new HibiscusObject(HibiscusObject.UMSATZ_TYPE);
+        
+        // Date fields
+        String dateStr = formatDateForHibiscus(record.getTimestamp());
+        object.addField("datum", "java.sql.Date", dateStr);
+        object.addField("valuta", "java.sql.Date", dateStr);
+        
+        object.addField("empfaenger_konto", "java.lang.String", record.getCounterpartyIban());
+        object.addField("empfaenger_name", "java.lang.String", record.getCounterpartyName());
+        object.addField("zweck", "java.lang.String", record.getPurpose());
+        
+        // Transaction type
+        object.addField("art", "java.lang.String", record.getEventType());
+        
+        // Amount
+        object.addField("betrag", "java.lang.Double", Money.format(record.getAmount()));
+        
+        // Empty fields required by Hibiscus
+        object.addField("primanota", "java.lang.String", "");
+        object.addField("customerref", "java.lang.String", "");
+        object.addField("checksum", "java.math.BigDecimal", String.valueOf(record.getChecksum()));
+        object.addField("konto_id", "java.lang.Integer", "");
+        object.addField("addkey", "java.lang.String", "");
+        object.addField("txid", "java.lang.String", "");
+        object.addField("saldo", "java.lang.Double", "");
+        object.addField("gvcode", "java.lang.String", "");
+        object.addField("empfaenger_blz", "java.lang.String", "");
+        
+        // Mark as pending if needed
+        if (record.isPending()) {
+            object.addField("flags", "java.lang.Integer", "2");
+        }
+        
+        // Add comment with additional details
+        if (!record.getComment().isEmpty()) {
+            object.addField("kommentar", "java.lang.String", record.getComment());
+        }
+        
+        return object;
+    }
+    
+    /**
+     * Format date for Hibiscus (dd.MM.yyyy HH:mm:ss)
+     */
+    private static String formatDateForHibiscus(String timestamp) {
+        if (timestamp != null && timestamp.length() >= 19) {
+            // Convert from ISO format to Hibiscus format
+            return timestamp.substring(8, 10) + "." +
+                   timestamp.substring(5, 7) + "." +
+                   timestamp.substring(0, 4) + " " +
+                   timestamp.substring(11, 19);
+        }
+        return "";
+    }
+    
+    /**
+     * Registers the "hibiscus" format
+     */
+    public static class Provider implements ExportSinkProvider {
+        @Override
+        public String getName() {
+            return "hibiscus";
+        }
+        
+        @Override
+        public String getDescription() {
+            return "Hibiscus XML";
+        }
+        
+        @Override
+        public ExportSink open(ExportContext context) {
+            return new HibiscusXmlSink(context);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package de.hibiscus.tr.export;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams Hibiscus import objects to a UTF-8 XML file, one object at a time.
+ * Layout matches the pretty-printed format Hibiscus exports use: two-space indentation,
+ * CRLF line breaks and trimmed text content.
+ */
+public class HibiscusXmlWriter implements Closeable {
+    
+    private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String NEWLINE = "\r\n";
+    
+    private final Path file;
+    private final OutputStream out;
+    private final XMLStreamWriter xml;
+    private int objectCount = 0;
+    
+    public HibiscusXmlWriter(Path file) throws IOException {
+        this.file = file;
+        this.out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        
+        try {
+            this.xml = XML_OUTPUT_FACTORY.createXMLStreamWriter(out, "UTF-8");
+            xml.writeStartDocument("UTF-8", "1.0");
+            xml.writeCharacters(NEWLINE);
+            xml.writeStartElement("objects");
+        } catch (XMLStreamException e) {
+            out.close();
+            throw new IOException("Could not start XML file " + file, e);
+        }
+    }
+    
+    /**
+     * Write an object; ids are assigned sequentially starting at 0
+     */
+    public void writeObject(HibiscusObject object) throws IOException {
+        try {
+            xml.writeCharacters(NEWLINE + "  ");
+            xml.writeStartElement("object");
+            xml.writeAttribute("type", object.getType());
+            xml.writeAttribute("id", String.valueOf(objectCount++));
+            
+            for (HibiscusObject.Field field : object.getFields()) {
+                xml.writeCharacters(NEWLINE + "    ");
+                String content = field.getContent() != null ? field.getContent().trim() : "";
+                if (content.isEmpty()) {
+                    xml.writeEmptyElement(field.getName());
+                    xml.writeAttribute("type", field.getType());
+                } else {
+                    xml.writeStartElement(field.getName());
+                    xml.writeAttribute("type", field.getType());
+                    xml.writeCharacters(content);
+                    xml.writeEndElement();
+                }
+            }
+            
+            xml.writeCharacters(NEWLINE + "  ");
+            xml.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not write object to " + file, e);
+        }
+    }
+    
+    /**
+     * Number of objects written so far
+     */
+    public int getObjectCount() {
+        return objectCount;
+    }
+    
+    public Path getFile() {
+        return file;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.writeCharacters(NEWLINE);
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.writeCharacters(NEWLINE);
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not finish XML file " + file, e);
+        } finally {
+            out.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,346 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.hibiscus.tr.model.JsonCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * History of exported transaction ids: a sorted, memory-mapped index plus an append-only journal.
+ * <p>
+ * New ids are buffered by {@link #add} and appended to the journal on {@link #commit}. When the
+ * journal has grown past {@link #COMPACTION_THRESHOLD} ids, the next {@link #open} merges it into a
+ * new index, written to a temp file and atomically renamed. Compaction only happens before the index
+ * is mapped, so a mapped file is never replaced. Startup cost is mapping the index plus reading at most
+ * one journal's worth of ids, independent of the total history size.
+ * <p>
+ * Index layout: magic, entry count, (count + 1) data offsets, then the UTF-8 ids in unsigned byte order.
+ * A {@link BloomFilter} over the index is kept next to it, so most new ids are rejected without touching
+ * the index; the binary search only runs on filter hits.
+ */
+public class HistoryStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(HistoryStore.class);
+    
+    public static final String INDEX_FILE = "tr2hibiscus-history.idx";
+    public static final String JOURNAL_FILE = "tr2hibiscus-history.journal";
+    public static final String BLOOM_FILE = "tr2hibiscus-history.bloom";
+    public static final String LEGACY_FILE = "tr2hibiscus.json";
+    
+    static final int COMPACTION_THRESHOLD = 1000;
+    private static final int MAGIC = 0x54524831; // "TRH1"
+    
+    private final Path journalFile;
+    private final ByteBuffer index;
+    private final BloomFilter bloomFilter;
+    private final int indexCount;
+    private final int dataStart;
+    private final Set<String> journalIds;
+    private final Set<String> pendingIds = new LinkedHashSet<>();
+    
+    private HistoryStore(Path journalFile, ByteBuffer index, BloomFilter bloomFilter, Set<String> journalIds) {
+        this.journalFile = journalFile;
+        this.index = index;
+        this.bloomFilter = bloomFilter;
+        this.indexCount = index != null ? index.getInt(4) : 0;
+        this.dataStart = 8 + (indexCount + 1) * 4;
+        this.journalIds = journalIds;
+    }
+    
+    /**
+     * Open the history in a directory, migrating tr2hibiscus.json and compacting the journal if needed
+     */
+    public static HistoryStore open(Path directory) throws IOException {
+        Path indexFile = directory.resolve(INDEX_FILE);
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        Path legacyFile = directory.resolve(LEGACY_FILE);
+        
+        if (!Files.exists(indexFile) && Files.exists(legacyFile)) {
+            migrateLegacyHistory(legacyFile, indexFile);
+        }
+        
+        Set<String> journalIds = readJournal(journalFile);
+        if (journalIds.size() >= COMPACTION_THRESHOLD) {
+            compact(indexFile, journalIds);
+            Files.deleteIfExists(journalFile);
+            journalIds = new HashSet<>();
+        }
+        
+        ByteBuffer index = mapIndex(indexFile);
+        BloomFilter bloomFilter = loadBloomFilter(directory.resolve(BLOOM_FILE), index);
+        HistoryStore store = new HistoryStore(journalFile, index, bloomFilter, journalIds);
+        
+        // Ids of a journal that was compacted just before a crash are already in the index
+        journalIds.removeIf(store::containsInIndex);
+        
+        logger.info("Using history {} with {} known transactions ({} in journal)", indexFile, store.size(), journalIds.size());
+        return store;
+    }
+    
+    /**
+     * History that is kept in memory only, used when the history files cannot be opened
+     */
+    public static HistoryStore inMemory() {
+        return new HistoryStore(null, null, null, new HashSet<>());
+    }
+    
+    /**
+     * Whether an id was exported before or has been added since the last commit
+     */
+    public boolean contains(String id) {
+        return pendingIds.contains(id) || journalIds.contains(id) || containsInIndex(id);
+    }
+    
+    /**
+     * Add an id; it is persisted on the next commit
+     */
+    public void add(String id) {
+        if (!contains(id)) {
+            pendingIds.add(id);
+        }
+    }
+    
+    /**
+     * Append ids added since the last commit to the journal and flush it to disk
+     */
+    public void commit() throws IOException {
+        if (pendingIds.isEmpty()) {
+            return;
+        }
+        if (journalFile == null) {
+            journalIds.addAll(pendingIds);
+            pendingIds.clear();
+            return;
+        }
+        
+        StringBuilder lines = new StringBuilder(pendingIds.size() * 40);
+        for (String id : pendingIds) {
+            lines.append(id).append('\n');
+        }
+        
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        
+        journalIds.addAll(pendingIds);
+        logger.debug("Appended {} ids to history journal", pendingIds.size());
+        pendingIds.clear();
+    }
+    
+    /**
+     * Number of known ids, including uncommitted ones
+     */
+    public int size() {
+        return indexCount + journalIds.size() + pendingIds.size();
+    }
+    
+    /**
+     * Bloom filter check, then binary search in the mapped index comparing UTF-8 bytes in place
+     */
+    private boolean containsInIndex(String id) {
+        if (indexCount == 0) {
+            return false;
+        }
+        byte[] key = id.getBytes(StandardCharsets.UTF_8);
+        if (bloomFilter != null && !bloomFilter.mightContain(key)) {
+            return false;
+        }
+        int low = 0;
+        int high = indexCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareEntry(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private int compareEntry(int entry, byte[] key) {
+        int start = dataStart + index.getInt(8 + entry * 4);
+        int length = dataStart + index.getInt(8 + (entry + 1) * 4) - start;
+        int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(index.get(start + i), key[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, key.length);
+    }
+    
+    /**
+     * Load the filter for the index, rebuilding it if missing or written for a different index
+     */
+    private static BloomFilter loadBloomFilter(Path bloomFile, ByteBuffer index) throws IOException {
+        if (index == null) {
+            return null;
+        }
+        int count = index.getInt(4);
+        BloomFilter bloomFilter = BloomFilter.read(bloomFile);
+        if (bloomFilter != null && bloomFilter.getEntryCount() == count) {
+            return bloomFilter;
+        }
+        
+        logger.info("Rebuilding history bloom filter {}", bloomFile);
+        int dataStart = 8 + (count + 1) * 4;
+        bloomFilter = BloomFilter.create(count);
+        for (int i = 0; i < count; i++) {
+            int start = dataStart + index.getInt(8 + i * 4);
+            byte[] entry = new byte[dataStart + index.getInt(8 + (i + 1) * 4) - start];
+            index.get(start, entry);
+            bloomFilter.put(entry);
+        }
+        bloomFilter.write(bloomFile);
+        return bloomFilter;
+    }
+    
+    private static ByteBuffer mapIndex(Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.capacity() < 8 || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Invalid history index " + indexFile);
+            }
+            return buffer;
+        }
+    }
+    
+    /**
+     * Read complete journal lines; a torn last line from an interrupted append is cut off
+     */
+    private static Set<String> readJournal(Path journalFile) throws IOException {
+        Set<String> ids = new HashSet<>();
+        if (!Files.exists(journalFile)) {
+            return ids;
+        }
+        
+        byte[] bytes = Files.readAllBytes(journalFile);
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == '\n') {
+                if (i > lineStart) {
+                    ids.add(new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8));
+                }
+                lineStart = i + 1;
+            }
+        }
+        
+        if (lineStart < bytes.length) {
+            logger.warn("Discarding incomplete last line of history journal {}", journalFile);
+            try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                channel.truncate(lineStart);
+            }
+        }
+        return ids;
+    }
+    
+    /**
+     * Merge the existing index with new ids into a new index via temp file and atomic rename
+     */
+    private static void compact(Path indexFile, Set<String> newIds) throws IOException {
+        List<byte[]> entries = new ArrayList<>();
+        // Read into the heap instead of mapping, a mapped file could not be replaced on Windows
+        ByteBuffer oldIndex = Files.exists(indexFile) ? ByteBuffer.wrap(Files.readAllBytes(indexFile)) : null;
+        if (oldIndex != null && (oldIndex.capacity() < 8 || oldIndex.getInt(0) != MAGIC)) {
+            throw new IOException("Invalid history index " + indexFile);
+        }
+        Set<String> ids = new HashSet<>(newIds);
+        if (oldIndex != null) {
+            int count = oldIndex.getInt(4);
+            int dataStart = 8 + (count + 1) * 4;
+            for (int i = 0; i < count; i++) {
+                int start = dataStart + oldIndex.getInt(8 + i * 4);
+                int end = dataStart + oldIndex.getInt(8 + (i + 1) * 4);
+                byte[] entry = new byte[end - start];
+                oldIndex.get(start, entry);
+                entries.add(entry);
+                ids.remove(new String(entry, StandardCharsets.UTF_8));
+            }
+        }
+        for (String id : ids) {
+            entries.add(id.getBytes(StandardCharsets.UTF_8));
+        }
+        entries.sort(Arrays::compareUnsigned);
+        
+        writeIndex(indexFile, entries);
+        BloomFilter bloomFilter = BloomFilter.create(entries.size());
+        for (byte[] entry : entries) {
+            bloomFilter.put(entry);
+        }
+        bloomFilter.write(indexFile.resolveSibling(BLOOM_FILE));
+        logger.info("Compacted history index {} to {} entries", indexFile, entries.size());
+    }
+    
+    private static void writeIndex(Path indexFile, List<byte[]> sortedEntries) throws IOException {
+        Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(channel), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(sortedEntries.size());
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] entry : sortedEntries) {
+                offset += entry.length;
+                out.writeInt(offset);
+            }
+            for (byte[] entry : sortedEntries) {
+                out.write(entry);
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Convert the JSON history of earlier versions into an index and keep the old file as backup
+     */
+    private static void migrateLegacyHistory(Path legacyFile, Path indexFile) throws IOException {
+        JsonNode historyNode = JsonCodec.treeReader().readTree(Files.readAllBytes(legacyFile));
+        Set<String> ids = new HashSet<>();
+        JsonNode knownArray = historyNode.get("known_transactions");
+        if (knownArray != null && knownArray.isArray()) {
+            for (JsonNode id : knownArray) {
+                ids.add(id.asText());
+            }
+        }
+        
+        compact(indexFile, ids);
+        Files.move(legacyFile, legacyFile.resolveSibling(LEGACY_FILE + ".migrated"), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Migrated {} known transactions from {}", ids.size(), legacyFile);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.Money;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SWIFT MT940 statement with German structured :86: fields (ISO-8859-1, CRLF).
+ * MT940 only carries booked entries, so pending transactions are skipped. The timeline has no
+ * balances: the opening balance is written as zero and the closing balance is the sum of all entries.
+ */
+public class Mt940Sink implements ExportSink {
+    
+    private static final String ACCOUNT_ID = "TRADEREPUBLIC";
+    private static final DateTimeFormatter YYMMDD = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final DateTimeFormatter MMDD = DateTimeFormatter.ofPattern("MMdd");
+    private static final int MAX_LINE_LENGTH = 65;
+    private static final int MAX_SUBFIELD_LENGTH = 27;
+    private static final int MAX_PURPOSE_SUBFIELDS = 10;
+    private static final int MAX_DETAIL_LINES = 6;
+    
+    private final Path file;
+    private final String reference;
+    private final BufferedWriter out;
+    private String currency;
+    private LocalDate lastDate;
+    private long balance = 0;
+    private int entries = 0;
+    
+    public Mt940Sink(ExportContext context) throws IOException {
+        this.file = context.resolveFile("mt940", "sta");
+        this.reference = "TR" + context.getTimestamp().replaceAll("[^0-9]", "");
+        this.out = Files.newBufferedWriter(file, StandardCharsets.ISO_8859_1);
+    }
+    
+    @Override
+    public void write(ExportRecord record) throws IOException {
+        if (record.isPending()) {
+            return;
+        }
+        LocalDate date = record.getBookingDate() != null ? record.getBookingDate() : LocalDate.now();
+        long amount = record.getAmount();
+        boolean credit = amount >= 0;
+        
+        if (entries == 0) {
+            // Header is written lazily because the opening balance needs the first booking date
+            currency = record.getCurrency();
+            writeHeader(date);
+        }
+        
+        line(":61:" + date.format(YYMMDD) + date.format(MMDD) + (credit ? "C" : "D")
+                + formatAmount(Math.abs(amount)) + "NTRFNONREF");
+        
+        List<String> purposeParts = split(sanitize(record.getPurpose()), MAX_SUBFIELD_LENGTH);
+        String iban = sanitize(record.getCounterpartyIban()).replace(" ", "");
+        List<String> nameParts = split(sanitize(record.getCounterpartyName()), MAX_SUBFIELD_LENGTH);
+        // Purpose subfields are dropped from the end until the field fits its line budget
+        int purposeCount = Math.min(purposeParts.size(), MAX_PURPOSE_SUBFIELDS);
+        List<String> detailLines;
+        do {
+            List<String> subfields = new ArrayList<>();
+            subfields.add("?00" + subfield(record.getEventType()));
+            for (int i = 0; i < purposeCount; i++) {
+                subfields.add("?" + (20 + i) + purposeParts.get(i));
+            }
+            if (!iban.isEmpty()) {
+                subfields.add("?31" + subfield(iban));
+            }
+            for (int i = 0; i < nameParts.size() && i < 2; i++) {
+                subfields.add("?" + (32 + i) + nameParts.get(i));
+            }
+            detailLines = wrap(":86:" + (credit ? "051" : "020"), subfields);
+        } while (detailLines.size() > MAX_DETAIL_LINES && purposeCount-- > 0);
+        for (String detailLine : detailLines) {
+            line(detailLine);
+        }
+        
+        balance += amount;
+        lastDate = date;
+        entries++;
+    }
+    
+    @Override
+    public List<Path> getFiles() {
+        return List.of(file);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        try {
+            if (entries == 0) {
+                currency = "EUR";
+                lastDate = LocalDate.now();
+                writeHeader(lastDate);
+            }
+            line(":62F:" + (balance >= 0 ? "C" : "D") + lastDate.format(YYMMDD) + currency
+                    + formatAmount(Math.abs(balance)));
+            line("-");
+        } finally {
+            out.close();
+        }
+    }
+    
+    private void writeHeader(LocalDate openingDate) throws IOException {
+        line(":20:" + reference);
+        line(":25:" + ACCOUNT_ID);
+        line(":28C:00001");
+        line(":60F:C" + openingDate.format(YYMMDD) + currency + "0,00");
+    }
+    
+    private void line(String text) throws IOException {
+        out.write(text);
+        out.write("\r\n");
+    }
+    
+    /**
+     * MT940 amounts use a decimal comma and no grouping
+     */
+    static String formatAmount(long minorUnits) {
+        return Money.appendTo(new StringBuilder(20), minorUnits, ',').toString();
+    }
+    
+    /**
+     * Remove characters that would break the field structure or are not representable in ISO-8859-1
+     */
+    private static String sanitize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder result = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '€') {
+                result.append("EUR");
+            } else if (c == '?' || c == ':' || c == '\r' || c == '\n' || c > 0xFF) {
+                result.append(' ');
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString().trim();
+    }
+    
+    private static String subfield(String text) {
+        String value = sanitize(text);
+        return value.length() > MAX_SUBFIELD_LENGTH ? value.substring(0, MAX_SUBFIELD_LENGTH) : value;
+    }
+    
+    /**
+     * Lines of at most 65 characters, breaking only between subfields so no ?nn tag or value is split
+     */
+    private static List<String> wrap(String first, List<String> subfields) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder current = new StringBuilder(first);
+        for (String subfield : subfields) {
+            if (current.length() + subfield.length() > MAX_LINE_LENGTH) {
+                lines.add(current.toString());
+                current.setLength(0);
+            }
+            current.append(subfield);
+        }
+        lines.add(current.toString());
+        return lines;
+    }
+    
+    private static List<String> split(String text, int length) {
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < text.length(); i += length) {
+            parts.add(text.substring(i, Math.min(i + length, text.length())));
+        }
+        return parts;
+    }
+    
+    /**
+     * Registers the "mt940" format
+     */
+    public static class Provider implements ExportSinkProvider {
+        @Override
+        public String getName() {
+            return "mt940";
+        }
+        
+        @Override
+        public String getDescription() {
+            return "MT940";
+        }
+        
+        @Override
+        public ExportSink open(ExportContext context) throws IOException {
+            return new Mt940Sink(context);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.JsonCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hibiscus XML output that rolls over to a new file per calendar month and/or after a maximum
+ * number of objects. Objects must arrive in chronological order; each file is closed as soon as
+ * its range is complete. With rolling enabled a manifest lists the produced files.
+ */
+public class RollingXmlOutput implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RollingXmlOutput.class);
+    
+    private final Path outputPath;
+    private final String baseName;
+    private final boolean byMonth;
+    private final int maxObjectsPerFile;
+    private final List<Map<String, Object>> manifestEntries = new ArrayList<>();
+    private final List<Path> files = new ArrayList<>();
+    
+    private HibiscusXmlWriter writer;
+    private String currentMonth;
+    private String firstTimestamp;
+    private String lastTimestamp;
+    private int part = 0;
+    
+    /**
+     * @param baseName          file name without extension, e.g. hibiscus-2024-06-01T10.00.00
+     * @param byMonth           start a new file when the month of the timestamp changes
+     * @param maxObjectsPerFile start a new file after this many objects, 0 for no limit
+     */
+    public RollingXmlOutput(Path outputPath, String baseName, boolean byMonth, int maxObjectsPerFile) {
+        this.outputPath = outputPath;
+        this.baseName = baseName;
+        this.byMonth = byMonth;
+        this.maxObjectsPerFile = maxObjectsPerFile;
+    }
+    
+    /**
+     * Write an object for an event with the given ISO timestamp
+     */
+    public void write(String timestamp, HibiscusObject object) throws IOException {
+        String month = timestamp != null && timestamp.length() >= 7 ? timestamp.substring(0, 7) : "unknown";
+        
+        boolean monthChanged = byMonth && writer != null && !month.equals(currentMonth);
+        boolean full = maxObjectsPerFile > 0 && writer != null && writer.getObjectCount() >= maxObjectsPerFile;
+        if (monthChanged || full) {
+            closeCurrentFile();
+        }
+        if (monthChanged) {
+            part = 0;
+        }
+        
+        if (writer == null) {
+            currentMonth = month;
+            firstTimestamp = timestamp;
+            writer = new HibiscusXmlWriter(outputPath.resolve(nextFileName(month)));
+        }
+        writer.writeObject(object);
+        lastTimestamp = timestamp;
+    }
+    
+    /**
+     * Files produced so far, in order
+     */
+    public List<Path> getFiles() {
+        return files;
+    }
+    
+    /**
+     * Manifest file, or null if rolling is disabled
+     */
+    public Path getManifestFile() {
+        return isRolling() ? outputPath.resolve(baseName + "-manifest.json") : null;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        closeCurrentFile();
+        if (isRolling() && !manifestEntries.isEmpty()) {
+            writeManifest();
+        }
+    }
+    
+    private boolean isRolling() {
+        return byMonth || maxObjectsPerFile > 0;
+    }
+    
+    private String nextFileName(String month) {
+        StringBuilder name = new StringBuilder(baseName);
+        if (byMonth) {
+            name.append('-').append(month);
+        }
+        if (maxObjectsPerFile > 0) {
+            name.append(String.format("-%03d", ++part));
+        }
+        return name.append(".xml").toString();
+    }
+    
+    private void closeCurrentFile() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        writer.close();
+        
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("file", writer.getFile().getFileName().toString());
+        entry.put("objects", writer.getObjectCount());
+        entry.put("from", firstTimestamp);
+        entry.put("to", lastTimestamp);
+        manifestEntries.add(entry);
+        files.add(writer.getFile());
+        
+        logger.info("Wrote {} objects to {}", writer.getObjectCount(), writer.getFile());
+        writer = null;
+    }
+    
+    private void writeManifest() throws IOException {
+        Map<String, Object> manifest = new LinkedHashMap<>();
+        manifest.put("created", LocalDateTime.now().toString());
+        manifest.put("totalObjects", manifestEntries.stream().mapToInt(e -> (Integer) e.get("objects")).sum());
+        manifest.put("files", manifestEntries);
+        
+        Path manifestFile = getManifestFile();
+        Path tempFile = manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+        JsonCodec.prettyWriter().writeValue(tempFile.toFile(), manifest);
+        Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package de.hibiscus.tr.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index over the sections of a timeline detail payload: section title to item title to node.
+ * Built once per event so field extraction is a hash lookup instead of a scan of all sections.
+ * Like the linear scans it replaces, the first section and item with a given title wins.
+ */
+public class DetailIndex {
+    
+    public static final DetailIndex EMPTY = new DetailIndex(Collections.emptyMap(), null);
+    
+    private final Map<String, Section> sections;
+    private final String headerIsin;
+    
+    private DetailIndex(Map<String, Section> sections, String headerIsin) {
+        this.sections = sections;
+        this.headerIsin = headerIsin;
+    }
+    
+    /**
+     * Build index from a timelineDetailV2 payload
+     */
+    public static DetailIndex of(JsonNode details) {
+        if (details == null || !details.has("sections") || !details.get("sections").isArray()) {
+            return EMPTY;
+        }
+        
+        Map<String, Section> sections = new HashMap<>();
+        String headerIsin = null;
+        
+        for (JsonNode section : details.get("sections")) {
+            if (section.has("title")) {
+                sections.putIfAbsent(section.get("title").asText(), new Section(section));
+            }
+            
+            // ISIN is the textual payload of the first header section action that has one
+            if (headerIsin == null && section.has("type") && "header".equals(section.get("type").asText()) &&
+                section.has("action") && section.get("action").has("payload") &&
+                section.get("action").get("payload").isTextual()) {
+                headerIsin = section.get("action").get("payload").asText();
+            }
+        }
+        
+        return new DetailIndex(sections, headerIsin);
+    }
+    
+    /**
+     * Get the data array of a section, or null if the section has none
+     */
+    public JsonNode getSectionData(String sectionTitle) {
+        Section section = sections.get(sectionTitle);
+        return section != null ? section.data : null;
+    }
+    
+    /**
+     * Get data item by section title and item title
+     */
+    public JsonNode getItem(String sectionTitle, String itemTitle) {
+        Section section = sections.get(sectionTitle);
+        return section != null ? section.items.get(itemTitle) : null;
+    }
+    
+    /**
+     * ISIN from the header section action payload
+     */
+    public String getHeaderIsin() {
+        return headerIsin;
+    }
+    
+    /**
+     * Indexed section with its items by title
+     */
+    private static class Section {
+        private final JsonNode data;
+        private final Map<String, JsonNode> items = new HashMap<>();
+        
+        private Section(JsonNode node) {
+            this.data = node.has("data") && node.get("data").isArray() ? node.get("data") : null;
+            if (data != null) {
+                for (JsonNode item : data) {
+                    if (item.has("title")) {
+                        items.putIfAbsent(item.get("title").asText(), item);
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package de.hibiscus.tr.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import java.io.IOException;
+
+/**
+ * Shared JSON configuration: one mapper and pre-built readers and writers for the whole application.
+ * Readers and writers are immutable and thread-safe; the mapper must not be reconfigured by callers.
+ * Blackbird generates accessors instead of reflection and can be disabled with
+ * {@code -Dtr.json.blackbird=false}.
+ */
+public final class JsonCodec {
+    
+    private static final ObjectMapper MAPPER = createMapper();
+    private static final ObjectReader TREE_READER = MAPPER.readerFor(JsonNode.class);
+    private static final ObjectReader EVENT_READER = MAPPER.readerFor(TransactionEvent.class);
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writerWithDefaultPrettyPrinter();
+    
+    private JsonCodec() {
+    }
+    
+    private static ObjectMapper createMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (!"false".equals(System.getProperty("tr.json.blackbird"))) {
+            mapper.registerModule(new BlackbirdModule());
+        }
+        return mapper;
+    }
+    
+    /**
+     * Shared mapper for tree creation and less frequent bindings
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+    
+    public static JsonFactory factory() {
+        return MAPPER.getFactory();
+    }
+    
+    public static ObjectReader treeReader() {
+        return TREE_READER;
+    }
+    
+    /**
+     * Reader binding timeline items to {@link TransactionEvent}, also directly from a parser positioned on an item
+     */
+    public static ObjectReader eventReader() {
+        return EVENT_READER;
+    }
+    
+    public static ObjectWriter writer() {
+        return WRITER;
+    }
+    
+    public static ObjectWriter prettyWriter() {
+        return PRETTY_WRITER;
+    }
+    
+    public static JsonNode readTree(String json) throws IOException {
+        return TREE_READER.readTree(json);
+    }
+    
+    public static TransactionEvent readEvent(JsonNode item) throws IOException {
+        return EVENT_READER.readValue(item);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package de.hibiscus.tr.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.CharBuffer;
+
+/**
+ * Fixed-point money amounts as long minor units (cents) with two decimal places.
+ * Parsing reads the JSON number text directly and formatting needs no BigDecimal or format string,
+ * so sums are exact and rendering does not depend on double conversion.
+ */
+public final class Money {
+    
+    /** Decimal places of the minor units */
+    public static final int SCALE = 2;
+    
+    private static final long MINOR_PER_MAJOR = 100;
+    private static final int MAX_FAST_DIGITS = 16;
+    
+    private Money() {}
+    
+    /**
+     * Convert a decimal value to minor units, rounding half up
+     */
+    public static long fromDouble(double value) {
+        return BigDecimal.valueOf(value).setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    /**
+     * Convert minor units to a double, only for callers that need floating point
+     */
+    public static double toDouble(long minorUnits) {
+        return minorUnits / (double) MINOR_PER_MAJOR;
+    }
+    
+    /**
+     * Parse a plain decimal number such as "-12.5" or "7" to minor units, rounding half up
+     */
+    public static long parse(CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+    
+    private static long parse(CharSequence text, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        
+        long major = 0;
+        int digits = 0;
+        boolean any = false;
+        while (i < end && Character.isDigit(text.charAt(i))) {
+            major = major * 10 + (text.charAt(i++) - '0');
+            any = true;
+            if (major != 0 && ++digits > MAX_FAST_DIGITS) {
+                return parseSlow(text, offset, end);
+            }
+        }
+        
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < end && text.charAt(i) == '.') {
+            i++;
+            while (i < end && Character.isDigit(text.charAt(i))) {
+                int digit = text.charAt(i++) - '0';
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + digit;
+                } else if (fractionDigits == SCALE) {
+                    // Half up only depends on the first dropped digit
+                    roundUp = digit >= 5;
+                }
+                fractionDigits++;
+                any = true;
+            }
+        }
+        if (i < end) {
+            // Exponent or other notation
+            return parseSlow(text, offset, end);
+        }
+        if (!any) {
+            throw new NumberFormatException("Not a number: '" + text.subSequence(offset, end) + "'");
+        }
+        for (int f = fractionDigits; f < SCALE; f++) {
+            fraction *= 10;
+        }
+        
+        long minorUnits = major * MINOR_PER_MAJOR + fraction + (roundUp ? 1 : 0);
+        return negative ? -minorUnits : minorUnits;
+    }
+    
+    private static long parseSlow(CharSequence text, int offset, int end) {
+        return new BigDecimal(text.subSequence(offset, end).toString())
+                .setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    /**
+     * Format minor units as plain decimal with a point, e.g. -1234 as "-12.34"
+     */
+    public static String format(long minorUnits) {
+        return appendTo(new StringBuilder(24), minorUnits, '.').toString();
+    }
+    
+    /**
+     * Append minor units as plain decimal with the given separator and always two decimals, no grouping
+     */
+    public static StringBuilder appendTo(StringBuilder out, long minorUnits, char decimalSeparator) {
+        if (minorUnits < 0) {
+            out.append('-');
+        }
+        // Long.MIN_VALUE cannot be negated, split before taking the absolute value
+        long major = Math.abs(minorUnits / MINOR_PER_MAJOR);
+        int minor = (int) Math.abs(minorUnits % MINOR_PER_MAJOR);
+        out.append(major).append(decimalSeparator);
+        if (minor < 10) {
+            out.append('0');
+        }
+        return out.append(minor);
+    }
+    
+    /**
+     * Reads a JSON number or numeric string into minor units
+     */
+    public static class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT
+                    || token == JsonToken.VALUE_STRING) {
+                try {
+                    // Parse the buffered characters without creating an intermediate String
+                    return parse(CharBuffer.wrap(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()));
+                } catch (NumberFormatException | ArithmeticException e) {
+                    return (Long) ctxt.handleWeirdStringValue(Long.class, p.getText(), "not a money amount");
+                }
+            }
+            return (Long) ctxt.handleUnexpectedToken(Long.class, p);
+        }
+        
+        @Override
+        public Long getNullValue(DeserializationContext ctxt) {
+            return 0L;
+        }
+    }
+    
+    /**
+     * Writes minor units as a plain JSON number with two decimals
+     */
+    public static class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(format(value));
+        }
+    }
+}
\ No newline at end of file
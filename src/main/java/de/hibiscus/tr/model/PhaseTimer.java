@@ -0,0 +1,142 @@
+package de.hibiscus.tr.model;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wall time, allocated bytes and peak heap per named phase of a pipeline run. Entering a phase ends the
+ * current one; a phase entered several times (e.g. render and write per chunk) accumulates.
+ * <p>
+ * Allocation is summed over the live threads, so allocations of threads that ended during a phase are
+ * missed. Peak heap is the sum of the heap pools' peaks while the phase ran, an upper bound of the real
+ * peak. Not thread-safe; phases are entered from the thread driving the pipeline.
+ */
+public class PhaseTimer {
+    
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    
+    private Phase current;
+    private long startNanos;
+    private long startAllocated;
+    
+    public PhaseTimer() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        this.threads = threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean) threadBean : null;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+    }
+    
+    /**
+     * End the current phase and start (or continue) the named one
+     */
+    public void enter(String name) {
+        stop();
+        current = phases.computeIfAbsent(name, Phase::new);
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+        startAllocated = allocatedBytes();
+        startNanos = System.nanoTime();
+    }
+    
+    /**
+     * End the current phase, if any
+     */
+    public void stop() {
+        if (current == null) {
+            return;
+        }
+        long wallNanos = System.nanoTime() - startNanos;
+        long allocated = Math.max(0, allocatedBytes() - startAllocated);
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+        current.add(wallNanos, allocated, peak);
+        current = null;
+    }
+    
+    /**
+     * Phases in the order they were first entered
+     */
+    public List<Phase> getPhases() {
+        return new ArrayList<>(phases.values());
+    }
+    
+    /**
+     * Whether allocated bytes are measured by this JVM
+     */
+    public boolean isAllocationSupported() {
+        return threads != null;
+    }
+    
+    private long allocatedBytes() {
+        if (threads == null) {
+            return 0;
+        }
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Accumulated measurements of one phase
+     */
+    public static class Phase {
+        private final String name;
+        private long wallNanos;
+        private long allocatedBytes;
+        private long peakHeapBytes;
+        private int entries;
+        
+        private Phase(String name) {
+            this.name = name;
+        }
+        
+        private void add(long wallNanos, long allocatedBytes, long peakHeapBytes) {
+            this.wallNanos += wallNanos;
+            this.allocatedBytes += allocatedBytes;
+            this.peakHeapBytes = Math.max(this.peakHeapBytes, peakHeapBytes);
+            this.entries++;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public long getWallNanos() {
+            return wallNanos;
+        }
+        
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+        
+        public long getPeakHeapBytes() {
+            return peakHeapBytes;
+        }
+        
+        /**
+         * How often the phase was entered
+         */
+        public int getEntries() {
+            return entries;
+        }
+    }
+}
\ No newline at end of file
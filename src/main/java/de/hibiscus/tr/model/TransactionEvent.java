@@ -1,10 +1,18 @@
 package de.hibiscus.tr.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
+import java.time.DateTimeException;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a transaction event from Trade Republic timeline
@@ -12,6 +20,12 @@ import java.time.Instant;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class TransactionEvent {
     
+    /** Epoch millis of events whose timestamp is missing or cannot be parsed; sorts first */
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+    
+    private static final int MAX_CANONICAL_EVENT_TYPES = 1024;
+    private static final Map<String, String> CANONICAL_EVENT_TYPES = new ConcurrentHashMap<>();
+    
     @JsonProperty("id")
     private String id;
     
@@ -36,6 +50,13 @@ public class TransactionEvent {
     @JsonProperty("status")
     private String status;
     
+    // Built lazily from details, reset whenever details change
+    private volatile DetailIndex detailIndex;
+    
+    // Derived once when timestamp and status are set
+    private long epochMillis = UNKNOWN_TIME;
+    private TransactionStatus statusCode = TransactionStatus.UNKNOWN;
+    
     // Constructors
     public TransactionEvent() {}
     
@@ -70,6 +91,20 @@ public class TransactionEvent {
     
     public void setTimestamp(String timestamp) {
         this.timestamp = timestamp;
+        this.epochMillis = parseEpochMillis(timestamp);
+    }
+    
+    /**
+     * Timestamp in epoch milliseconds, parsed once when the timestamp is set; {@link #UNKNOWN_TIME} if invalid
+     */
+    @JsonIgnore
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+    
+    @JsonIgnore
+    public boolean hasValidTimestamp() {
+        return epochMillis != UNKNOWN_TIME;
     }
     
     public String getEventType() {
@@ -77,7 +112,7 @@ public class TransactionEvent {
     }
     
     public void setEventType(String eventType) {
-        this.eventType = eventType;
+        this.eventType = canonicalEventType(eventType);
     }
     
     public Amount getAmount() {
@@ -94,6 +129,20 @@ public class TransactionEvent {
     
     public void setDetails(JsonNode details) {
         this.details = details;
+        this.detailIndex = null;
+    }
+    
+    /**
+     * Get section index over details, built on first use
+     */
+    @JsonIgnore
+    public DetailIndex getDetailIndex() {
+        DetailIndex index = detailIndex;
+        if (index == null) {
+            index = DetailIndex.of(details);
+            detailIndex = index;
+        }
+        return index;
     }
     
     public String getStatus() {
@@ -102,23 +151,110 @@ public class TransactionEvent {
     
     public void setStatus(String status) {
         this.status = status;
+        this.statusCode = TransactionStatus.of(status);
+    }
+    
+    /**
+     * Status of the event itself as enum, UNKNOWN if not set; details may still carry a status
+     */
+    @JsonIgnore
+    public TransactionStatus getStatusCode() {
+        return statusCode;
     }
     
     /**
      * Get timestamp as Instant
      */
+    @JsonIgnore
     public Instant getTimestampAsInstant() {
+        if (epochMillis == UNKNOWN_TIME) {
+            throw new DateTimeException("Invalid timestamp: " + timestamp);
+        }
+        return Instant.ofEpochMilli(epochMillis);
+    }
+    
+    /**
+     * Parse Trade Republic timestamps such as 2025-07-16T12:37:00.707+0000 without intermediate objects,
+     * falling back to ISO parsing for other offsets and formats
+     */
+    static long parseEpochMillis(String timestamp) {
+        if (timestamp == null) {
+            return UNKNOWN_TIME;
+        }
+        int length = timestamp.length();
+        if (length >= 19 && timestamp.charAt(4) == '-' && timestamp.charAt(7) == '-' && timestamp.charAt(10) == 'T'
+                && timestamp.charAt(13) == ':' && timestamp.charAt(16) == ':') {
+            int millis = 0;
+            int pos = 19;
+            if (pos < length && timestamp.charAt(pos) == '.') {
+                int digits = 0;
+                pos++;
+                while (pos < length && Character.isDigit(timestamp.charAt(pos))) {
+                    if (digits++ < 3) {
+                        millis = millis * 10 + (timestamp.charAt(pos) - '0');
+                    }
+                    pos++;
+                }
+                for (; digits < 3; digits++) {
+                    millis *= 10;
+                }
+            }
+            boolean utc = pos == length - 1 && timestamp.charAt(pos) == 'Z'
+                    || timestamp.startsWith("+0000", pos) && pos + 5 == length
+                    || timestamp.startsWith("+00:00", pos) && pos + 6 == length;
+            int year = digits(timestamp, 0, 4);
+            int month = digits(timestamp, 5, 2);
+            int day = digits(timestamp, 8, 2);
+            int hour = digits(timestamp, 11, 2);
+            int minute = digits(timestamp, 14, 2);
+            int second = digits(timestamp, 17, 2);
+            if (utc && year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= 31
+                    && hour >= 0 && hour < 24 && minute >= 0 && minute < 60 && second >= 0 && second < 60) {
+                try {
+                    long days = LocalDate.of(year, month, day).toEpochDay();
+                    return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+                } catch (DateTimeException e) {
+                    return UNKNOWN_TIME;
+                }
+            }
+        }
         try {
-            // Handle Trade Republic timestamp format: 2025-07-16T12:37:00.707+0000
-            // Convert +0000 to Z for standard ISO format
-            String isoTimestamp = timestamp.replace("+0000", "Z");
-            return Instant.parse(isoTimestamp);
-        } catch (Exception e) {
-            // Fallback: try parsing as-is
-            return Instant.parse(timestamp);
+            return OffsetDateTime.parse(timestamp.replace("+0000", "Z")).toInstant().toEpochMilli();
+        } catch (DateTimeException e) {
+            return UNKNOWN_TIME;
         }
     }
     
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    /**
+     * Share one String instance per event type, so 100k events hold a handful of type strings
+     */
+    private static String canonicalEventType(String eventType) {
+        if (eventType == null) {
+            return null;
+        }
+        String canonical = CANONICAL_EVENT_TYPES.get(eventType);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (CANONICAL_EVENT_TYPES.size() >= MAX_CANONICAL_EVENT_TYPES) {
+            return eventType;
+        }
+        canonical = CANONICAL_EVENT_TYPES.putIfAbsent(eventType, eventType);
+        return canonical != null ? canonical : eventType;
+    }
+    
     /**
      * Check if transaction has amount (is a monetary transaction)
      */
@@ -128,20 +264,44 @@ public class TransactionEvent {
     
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class Amount {
+        /** Amount in minor units (cents), read from and written as a decimal JSON number */
         @JsonProperty("value")
-        private double value;
+        @JsonDeserialize(using = Money.Deserializer.class)
+        @JsonSerialize(using = Money.Serializer.class)
+        private long value;
         
         @JsonProperty("currency")
         private String currency;
         
         public Amount() {}
         
-        public double getValue() {
+        /**
+         * Amount in minor units (cents)
+         */
+        @JsonIgnore
+        public long getMinorUnits() {
             return value;
         }
         
+        @JsonIgnore
+        public void setMinorUnits(long minorUnits) {
+            this.value = minorUnits;
+        }
+        
+        /**
+         * Amount as double, for callers that need floating point
+         */
+        @JsonIgnore
+        public double getValue() {
+            return Money.toDouble(value);
+        }
+        
+        /**
+         * Set the amount from a decimal value, rounded half up to minor units
+         */
+        @JsonIgnore
         public void setValue(double value) {
-            this.value = value;
+            this.value = Money.fromDouble(value);
         }
         
         public String getCurrency() {
@@ -154,7 +314,7 @@ public class TransactionEvent {
         
         @Override
         public String toString() {
-            return String.format("%.2f %s", value, currency);
+            return Money.format(value) + " " + currency;
         }
     }
     
@@ -0,0 +1,33 @@
+package de.hibiscus.tr.model;
+
+/**
+ * Status of a timeline transaction
+ */
+public enum TransactionStatus {
+    PENDING,
+    EXECUTED,
+    CANCELED,
+    CREATED,
+    UNKNOWN;
+    
+    /**
+     * Map a status string from the API, UNKNOWN for null or unrecognized values
+     */
+    public static TransactionStatus of(String status) {
+        if (status == null) {
+            return UNKNOWN;
+        }
+        switch (status) {
+            case "PENDING":
+                return PENDING;
+            case "EXECUTED":
+                return EXECUTED;
+            case "CANCELED":
+                return CANCELED;
+            case "CREATED":
+                return CREATED;
+            default:
+                return UNKNOWN;
+        }
+    }
+}
\ No newline at end of file
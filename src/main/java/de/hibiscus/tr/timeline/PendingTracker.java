@@ -0,0 +1,192 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.TransactionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Open pending transactions with the time they were first seen. Tracked events are refreshed by id
+ * on every run, so their settlement is noticed even after they dropped out of the loaded time window.
+ */
+public class PendingTracker {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PendingTracker.class);
+    
+    public static final String FILE = "tr2hibiscus-pending-open.json";
+    
+    // Pending card transactions settle within days; anything older is most likely gone
+    static final Duration MAX_AGE = Duration.ofDays(60);
+    
+    private static final ObjectMapper objectMapper = JsonCodec.mapper();
+    
+    private final Path file;
+    private final Map<String, Entry> open;
+    private boolean dirty = false;
+    
+    private PendingTracker(Path file, Map<String, Entry> open) {
+        this.file = file;
+        this.open = open;
+    }
+    
+    /**
+     * Tracker that is not persisted, e.g. for tests
+     */
+    public static PendingTracker inMemory() {
+        return new PendingTracker(null, new TreeMap<>());
+    }
+    
+    /**
+     * Open the tracker in the output directory, empty if the file does not exist yet
+     */
+    public static PendingTracker open(Path outputPath) throws IOException {
+        Path file = outputPath.resolve(FILE);
+        Map<String, Entry> open = new TreeMap<>();
+        if (Files.exists(file)) {
+            open.putAll(objectMapper.readValue(file.toFile(), new TypeReference<Map<String, Entry>>() {}));
+        }
+        return new PendingTracker(file, open);
+    }
+    
+    /**
+     * Events for tracked ids that are not among the loaded events, rebuilt from their last snapshot
+     * without details. Entries older than {@link #MAX_AGE} are dropped instead.
+     */
+    public synchronized List<TransactionEvent> missingFrom(Collection<TransactionEvent> loaded, Instant now) {
+        Set<String> loadedIds = new HashSet<>();
+        for (TransactionEvent event : loaded) {
+            loadedIds.add(event.getId());
+        }
+        
+        List<TransactionEvent> missing = new ArrayList<>();
+        for (Iterator<Map.Entry<String, Entry>> it = open.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Entry> tracked = it.next();
+            if (loadedIds.contains(tracked.getKey())) {
+                continue;
+            }
+            Entry entry = tracked.getValue();
+            if (Duration.between(entry.firstSeen, now).compareTo(MAX_AGE) > 0) {
+                logger.warn("Pending transaction {} first seen {} never settled, no longer tracking it",
+                        tracked.getKey(), entry.firstSeen);
+                it.remove();
+                dirty = true;
+                continue;
+            }
+            try {
+                missing.add(JsonCodec.readEvent(entry.event));
+            } catch (IOException e) {
+                logger.warn("Could not restore pending transaction {}", tracked.getKey(), e);
+            }
+        }
+        return missing;
+    }
+    
+    /**
+     * Track pending events with amounts and stop tracking events that are no longer pending
+     */
+    public synchronized void update(Collection<TransactionEvent> events, Instant now) {
+        for (TransactionEvent event : events) {
+            if (!event.hasAmount()) {
+                continue;
+            }
+            if (event.getStatusCode() == TransactionStatus.PENDING) {
+                Entry previous = open.get(event.getId());
+                open.put(event.getId(), new Entry(previous != null ? previous.firstSeen : now, snapshot(event)));
+                dirty = true;
+            } else if (event.getStatus() != null && open.remove(event.getId()) != null) {
+                logger.debug("Pending transaction {} is now {}", event.getId(), event.getStatus());
+                dirty = true;
+            }
+        }
+    }
+    
+    /**
+     * Take the status of a refreshed event from its details ("Übersicht" / "Status"), if present
+     */
+    public static void applyDetailStatus(TransactionEvent event) {
+        JsonNode statusItem = event.getDetailIndex().getItem("Übersicht", "Status");
+        JsonNode status = statusItem != null ? statusItem.path("detail").path("functionalStyle") : null;
+        if (status != null && status.isTextual()) {
+            event.setStatus(status.asText());
+        }
+    }
+    
+    public synchronized boolean isTracked(String id) {
+        return open.containsKey(id);
+    }
+    
+    /**
+     * Time the event was first seen pending, or null if it is not tracked
+     */
+    public synchronized Instant getFirstSeen(String id) {
+        Entry entry = open.get(id);
+        return entry != null ? entry.firstSeen : null;
+    }
+    
+    public synchronized int size() {
+        return open.size();
+    }
+    
+    /**
+     * Write the tracker via temp file and atomic rename if it changed
+     */
+    public synchronized void save() throws IOException {
+        if (file == null || !dirty) {
+            return;
+        }
+        Path tempFile = file.toAbsolutePath().resolveSibling(file.getFileName() + ".tmp");
+        JsonCodec.prettyWriter().writeValue(tempFile.toFile(), open);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+    }
+    
+    /**
+     * Timeline fields of the event; details are fetched again on refresh
+     */
+    private static ObjectNode snapshot(TransactionEvent event) {
+        ObjectNode node = objectMapper.valueToTree(event);
+        node.remove("details");
+        return node;
+    }
+    
+    /**
+     * Tracked pending event
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Entry {
+        @JsonProperty("firstSeen")
+        private Instant firstSeen;
+        
+        @JsonProperty("event")
+        private ObjectNode event;
+        
+        Entry() {}
+        
+        Entry(Instant firstSeen, ObjectNode event) {
+            this.firstSeen = firstSeen;
+            this.event = event;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,165 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads timeline events from pytr JSON dumps ({@code all_events.json} and similar) instead of the live API.
+ * A dump is an array of timeline items, optionally with their detail payload under "details"; detail
+ * payloads on their own (objects with "id" and "sections" but no timestamp) are attached by id.
+ * Files are streamed one element at a time and parsed in parallel.
+ */
+public class PytrImporter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PytrImporter.class);
+    
+    private final ObjectMapper objectMapper = JsonCodec.mapper();
+    private final long sinceTimestamp;
+    private int parsedFiles = 0;
+    private int parsedEvents = 0;
+    private int attachedDetails = 0;
+    
+    /**
+     * @param sinceTimestamp only events at or after this epoch second are returned, 0 for all
+     */
+    public PytrImporter(long sinceTimestamp) {
+        this.sinceTimestamp = sinceTimestamp;
+    }
+    
+    /**
+     * Import a dump file or all JSON files below a directory. Events with the same id in several
+     * files are merged; an occurrence with details wins over one without.
+     */
+    public List<TransactionEvent> importEvents(Path path) throws IOException {
+        List<Path> files;
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> walk = Files.walk(path)) {
+                files = walk.filter(Files::isRegularFile)
+                        .filter(file -> file.getFileName().toString().endsWith(".json"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        } else {
+            files = List.of(path);
+        }
+        
+        int threads = Math.max(1, Math.min(files.size(), Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pytr-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        Map<String, TransactionEvent> events = new LinkedHashMap<>();
+        Map<String, JsonNode> details = new HashMap<>();
+        try {
+            List<Future<Dump>> dumps = new ArrayList<>();
+            for (Path file : files) {
+                dumps.add(executor.submit(() -> parse(file)));
+            }
+            // Merged in file order, so the result does not depend on thread timing
+            for (Future<Dump> future : dumps) {
+                Dump dump = future.get();
+                for (TransactionEvent event : dump.events) {
+                    events.merge(event.getId(), event, (known, other) -> other.getDetails() != null || known.getDetails() == null ? other : known);
+                }
+                details.putAll(dump.details);
+                parsedFiles++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        for (TransactionEvent event : events.values()) {
+            JsonNode detail = details.get(event.getId());
+            if (detail != null && event.getDetails() == null) {
+                event.setDetails(detail);
+                attachedDetails++;
+            }
+        }
+        parsedEvents = events.size();
+        
+        logger.info("Imported {} events from {} files", events.size(), files.size());
+        return new ArrayList<>(events.values());
+    }
+    
+    /**
+     * Stream one dump file: a top-level array of items or a single object
+     */
+    private Dump parse(Path file) throws IOException {
+        Dump dump = new Dump();
+        try (JsonParser parser = objectMapper.getFactory().createParser(file.toFile())) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    add(dump, parser.readValueAsTree(), file);
+                }
+            } else if (token == JsonToken.START_OBJECT) {
+                add(dump, parser.readValueAsTree(), file);
+            } else {
+                logger.warn("Skipping {}: not a JSON array or object", file);
+            }
+        }
+        logger.debug("Parsed {} events and {} detail payloads from {}", dump.events.size(), dump.details.size(), file);
+        return dump;
+    }
+    
+    private void add(Dump dump, JsonNode node, Path file) {
+        if (!node.hasNonNull("id")) {
+            return;
+        }
+        if (node.has("sections") && !node.has("timestamp")) {
+            dump.details.put(node.get("id").asText(), node);
+            return;
+        }
+        try {
+            TransactionEvent event = JsonCodec.readEvent(node);
+            if (sinceTimestamp <= 0 || !event.hasValidTimestamp() || event.getEpochMillis() >= sinceTimestamp * 1000) {
+                dump.events.add(event);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not parse event {} in {}", node.get("id").asText(), file, e);
+        }
+    }
+    
+    /**
+     * Get import statistics
+     */
+    public String getStatistics() {
+        return String.format("Files: %d, Events: %d, Details attached by id: %d", parsedFiles, parsedEvents, attachedDetails);
+    }
+    
+    /**
+     * Events and standalone detail payloads of one file
+     */
+    private static class Dump {
+        private final List<TransactionEvent> events = new ArrayList<>();
+        private final Map<String, JsonNode> details = new HashMap<>();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.JsonCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Snapshot of an in-progress timeline sync, used to resume interrupted runs. Events and details are
+ * kept in a {@link SyncJournal}; the checkpoint points to the part of the journal it covers.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SyncCheckpoint {
+    
+    private static final ObjectMapper objectMapper = JsonCodec.mapper();
+    
+    @JsonProperty("sinceTimestamp")
+    private long sinceTimestamp;
+    
+    @JsonProperty("cursors")
+    private Map<String, String> cursors = new HashMap<>();
+    
+    @JsonProperty("completedFeeds")
+    private Set<String> completedFeeds = new HashSet<>();
+    
+    @JsonProperty("journal")
+    private String journal;
+    
+    @JsonProperty("journalLength")
+    private long journalLength;
+    
+    @JsonProperty("resolvedDetails")
+    private Set<String> resolvedDetails = new HashSet<>();
+    
+    public SyncCheckpoint() {}
+    
+    public SyncCheckpoint(long sinceTimestamp, Map<String, String> cursors, Set<String> completedFeeds,
+                          String journal, long journalLength, Set<String> resolvedDetails) {
+        this.sinceTimestamp = sinceTimestamp;
+        this.cursors = cursors;
+        this.completedFeeds = completedFeeds;
+        this.journal = journal;
+        this.journalLength = journalLength;
+        this.resolvedDetails = resolvedDetails;
+    }
+    
+    /**
+     * Load checkpoint from file
+     */
+    public static SyncCheckpoint load(Path file) throws IOException {
+        return objectMapper.readValue(file.toFile(), SyncCheckpoint.class);
+    }
+    
+    /**
+     * Write checkpoint to file, replacing any previous checkpoint atomically
+     */
+    public void save(Path file) throws IOException {
+        Path tempFile = file.toAbsolutePath().resolveSibling(file.getFileName() + ".tmp");
+        Files.createDirectories(tempFile.getParent());
+        objectMapper.writeValue(tempFile.toFile(), this);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Getters
+    public long getSinceTimestamp() {
+        return sinceTimestamp;
+    }
+    
+    public Map<String, String> getCursors() {
+        return cursors;
+    }
+    
+    public Set<String> getCompletedFeeds() {
+        return completedFeeds;
+    }
+    
+    /**
+     * File name of the event journal, next to the checkpoint
+     */
+    public String getJournal() {
+        return journal;
+    }
+    
+    /**
+     * Bytes of the journal covered by this checkpoint
+     */
+    public long getJournalLength() {
+        return journalLength;
+    }
+    
+    public Set<String> getResolvedDetails() {
+        return resolvedDetails;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only NDJSON journal of the events and detail payloads of an in-progress sync, one record per
+ * line: {"event": ...} for a loaded timeline event, {"id": ..., "details": ...} for its details. The
+ * checkpoint only stores the journal length at the time it was written, so a checkpoint costs a flush
+ * instead of rewriting all events; records after that length are discarded on resume.
+ */
+public class SyncJournal implements Closeable {
+    
+    private final OutputStream out;
+    private long length;
+    
+    private SyncJournal(OutputStream out, long length) {
+        this.out = out;
+        this.length = length;
+    }
+    
+    /**
+     * Open the journal for appending after its first {@code length} bytes; later records are discarded
+     */
+    public static SyncJournal open(Path file, long length) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < length) {
+                throw new IOException("Journal " + file + " is shorter than its checkpoint (" + channel.size()
+                        + " < " + length + " bytes)");
+            }
+            channel.truncate(length);
+            channel.position(length);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new SyncJournal(new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024), length);
+    }
+    
+    /**
+     * Events of a journal in the order they were loaded, with their details applied
+     */
+    public static List<TransactionEvent> read(Path file) throws IOException {
+        List<TransactionEvent> events = new ArrayList<>();
+        Map<String, TransactionEvent> byId = new HashMap<>();
+        try (MappingIterator<JsonNode> records = JsonCodec.treeReader().readValues(file.toFile())) {
+            while (records.hasNext()) {
+                JsonNode record = records.next();
+                if (record.has("event")) {
+                    TransactionEvent event = JsonCodec.mapper().treeToValue(record.get("event"), TransactionEvent.class);
+                    if (event.getDetails() != null && event.getDetails().isNull()) {
+                        // Loaded events are journaled before their details arrive
+                        event.setDetails(null);
+                    }
+                    events.add(event);
+                    byId.put(event.getId(), event);
+                } else if (record.has("details")) {
+                    TransactionEvent event = byId.get(record.path("id").asText());
+                    if (event != null) {
+                        event.setDetails(record.get("details"));
+                    }
+                }
+            }
+        }
+        return events;
+    }
+    
+    /**
+     * Append loaded timeline events
+     */
+    public void appendEvents(List<TransactionEvent> events) throws IOException {
+        for (TransactionEvent event : events) {
+            append("{\"event\":" + JsonCodec.writer().writeValueAsString(event) + "}\n");
+        }
+    }
+    
+    /**
+     * Append the detail payload of an event
+     */
+    public void appendDetails(String id, JsonNode details) throws IOException {
+        append("{\"id\":" + JsonCodec.writer().writeValueAsString(id) + ",\"details\":"
+                + JsonCodec.writer().writeValueAsString(details) + "}\n");
+    }
+    
+    /**
+     * Write buffered records to the file
+     * @return journal length in bytes, to be stored in the checkpoint
+     */
+    public long flush() throws IOException {
+        out.flush();
+        return length;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+    
+    private void append(String record) throws IOException {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        length += bytes.length;
+    }
+    
+    /**
+     * Journal file belonging to a checkpoint file
+     */
+    public static Path fileFor(Path checkpointFile) {
+        return checkpointFile.toAbsolutePath().resolveSibling(checkpointFile.getFileName() + ".events");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,556 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Generates synthetic timeline items with their timelineDetailV2 payload under "details", for scale
+ * tests and benchmarks without real account data. The sections follow what the exporter and the
+ * built-in field mapping read (Übersicht, Geschäft, Transaktion, Sparplan, Dokumente, Absender,
+ * Empfänger, header ISIN action). Item {@code i} only depends on the seed, the mix and {@code i},
+ * so large timelines can be generated in a stream. Items are newest first, like the timeline feeds.
+ */
+public class SyntheticTimeline {
+    
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter DOCUMENT_DATE = DateTimeFormatter.ofPattern("dd.MM.yyyy")
+            .withZone(ZoneOffset.UTC);
+    private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+    
+    private static final String[][] INSTRUMENTS = {
+            {"Apple", "US0378331005", "18500"},
+            {"iShares Core MSCI World", "IE00B4L5Y983", "8570"},
+            {"Tesla", "US88160R1014", "50000"},
+            {"Vanguard FTSE All-World", "IE00BK5BQT80", "11240"},
+            {"Microsoft", "US5949181045", "39010"},
+            {"Allianz", "DE0008404005", "25630"}
+    };
+    private static final String[] MERCHANTS = {"REWE Markt", "Lieferando", "Amazon", "Deutsche Bahn", "EDEKA", "Aral"};
+    private static final String[][] ACCOUNTS = {
+            {"Max Mustermann", "DE02120300000000202051"},
+            {"Erika Mustermann", "DE89370400440532013000"},
+            {"Hausverwaltung Beispiel GmbH", "DE75512108001245126199"},
+            {"Stadtwerke Musterstadt", "DE02500105170137075030"}
+    };
+    private static final String[] REFERENCES = {"Miete", "Abschlag Strom", "Rückzahlung", "Geschenk", "Urlaubskasse"};
+    private static final String[] FREQUENCIES = {"Monatlich", "Zweiwöchentlich", "Vierteljährlich"};
+    
+    /**
+     * Kinds of generated events with their default share of the mix
+     */
+    public enum Kind {
+        CARD_PAYMENT("card_successful_transaction", 35),
+        CARD_PENDING("card_successful_transaction", 4),
+        CARD_CANCELED("card_successful_transaction", 1),
+        CARD_VERIFICATION("card_successful_verification", 2),
+        INCOMING_TRANSFER("INCOMING_TRANSFER_DELEGATION", 8),
+        OUTGOING_TRANSFER("OUTGOING_TRANSFER_DELEGATION", 8),
+        SAVINGS_PLAN("trading_savingsplan_executed", 20),
+        SAVEBACK("benefits_saveback_execution", 8),
+        DIVIDEND("ssp_corporate_action_invoice_cash", 8),
+        INTEREST("INTEREST_PAYOUT", 4),
+        LEGACY_ORDER("timeline_legacy_migrated_events", 2);
+        
+        private final String eventType;
+        private final int defaultWeight;
+        
+        Kind(String eventType, int defaultWeight) {
+            this.eventType = eventType;
+            this.defaultWeight = defaultWeight;
+        }
+        
+        public String getEventType() {
+            return eventType;
+        }
+        
+        /**
+         * Name as used in a mix, e.g. card-payment
+         */
+        public String getMixName() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+    }
+    
+    private final long seed;
+    private Kind[] kinds;
+    private int[] cumulativeWeights;
+    private Instant newest = Instant.parse("2024-06-01T12:00:00Z");
+    private Duration spacing = Duration.ofHours(4);
+    
+    public SyntheticTimeline(long seed) {
+        this.seed = seed;
+        Map<Kind, Integer> mix = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            mix.put(kind, kind.defaultWeight);
+        }
+        setMix(mix);
+    }
+    
+    /**
+     * Relative weights of the kinds; kinds that are missing or have weight 0 are not generated
+     */
+    public void setMix(Map<Kind, Integer> mix) {
+        List<Kind> selected = new ArrayList<>();
+        List<Integer> cumulative = new ArrayList<>();
+        int total = 0;
+        for (Kind kind : Kind.values()) {
+            int weight = mix.getOrDefault(kind, 0);
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + kind.getMixName());
+            }
+            if (weight > 0) {
+                total += weight;
+                selected.add(kind);
+                cumulative.add(total);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("Mix selects no event kind");
+        }
+        this.kinds = selected.toArray(new Kind[0]);
+        this.cumulativeWeights = cumulative.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Parse a mix like "card-payment=10,dividend=2"; kinds not listed get weight 0
+     */
+    public static Map<Kind, Integer> parseMix(String mix) {
+        Map<Kind, Integer> weights = new EnumMap<>(Kind.class);
+        for (String part : mix.split(",")) {
+            String[] entry = part.trim().split("=", 2);
+            Kind kind = null;
+            for (Kind candidate : Kind.values()) {
+                if (candidate.getMixName().equals(entry[0].trim())) {
+                    kind = candidate;
+                }
+            }
+            if (kind == null || entry.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry '" + part.trim() + "', expected <kind>=<weight>");
+            }
+            try {
+                weights.put(kind, Integer.parseInt(entry[1].trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid weight in mix entry '" + part.trim() + "'");
+            }
+        }
+        return weights;
+    }
+    
+    /**
+     * Timestamp of item 0; later items are older
+     */
+    public void setNewest(Instant newest) {
+        this.newest = newest;
+    }
+    
+    /**
+     * Average time between two items
+     */
+    public void setSpacing(Duration spacing) {
+        this.spacing = spacing;
+    }
+    
+    /**
+     * Items 0 to count - 1, each with "details"
+     */
+    public List<ObjectNode> items(int count) {
+        List<ObjectNode> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(item(i));
+        }
+        return items;
+    }
+    
+    /**
+     * Bound events with details, as delivered by the timeline processor
+     */
+    public List<TransactionEvent> events(int count) throws IOException {
+        List<TransactionEvent> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            events.add(JsonCodec.readEvent(item(i)));
+        }
+        return events;
+    }
+    
+    /**
+     * Write items 0 to count - 1 as a pytr dump (a JSON array of items with details), streamed
+     * and atomically renamed. The dump can be read with {@link PytrImporter}.
+     */
+    public void writeDump(Path file, int count) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (JsonGenerator generator = JsonCodec.factory().createGenerator(tempFile.toFile(), JsonEncoding.UTF8)) {
+            generator.writeStartArray();
+            for (int i = 0; i < count; i++) {
+                generator.writeTree(item(i));
+            }
+            generator.writeEndArray();
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * The timeline list item without details, as in a timeline page
+     */
+    public static ObjectNode listItem(ObjectNode item) {
+        ObjectNode listItem = item.deepCopy();
+        listItem.remove("details");
+        return listItem;
+    }
+    
+    /**
+     * Item with index i, including its "details"
+     */
+    public ObjectNode item(int index) {
+        SplittableRandom random = new SplittableRandom(seed * 0x9E3779B97F4A7C15L + index);
+        Kind kind = pickKind(random);
+        
+        long spacingMillis = Math.max(1, spacing.toMillis());
+        Instant timestamp = newest.minusMillis(spacingMillis * index + random.nextLong(spacingMillis / 2 + 1));
+        String id = String.format("%08x-%04x-4%03x-9%03x-%012d", seed & 0xffffffffL, kind.ordinal(),
+                random.nextInt(0x1000), random.nextInt(0x1000), index);
+        
+        ObjectNode item = NODES.objectNode();
+        item.put("id", id);
+        ObjectNode details = NODES.objectNode();
+        details.put("id", id);
+        
+        Generated generated = new Generated(item, details.putArray("sections"), random, timestamp, kind, id);
+        switch (kind) {
+            case CARD_PAYMENT:
+                cardPayment(generated);
+                break;
+            case CARD_PENDING:
+                cardPending(generated);
+                break;
+            case CARD_CANCELED:
+                cardCanceled(generated);
+                break;
+            case CARD_VERIFICATION:
+                cardVerification(generated);
+                break;
+            case INCOMING_TRANSFER:
+                transfer(generated, true);
+                break;
+            case OUTGOING_TRANSFER:
+                transfer(generated, false);
+                break;
+            case SAVINGS_PLAN:
+                savingsPlan(generated);
+                break;
+            case SAVEBACK:
+                saveback(generated);
+                break;
+            case DIVIDEND:
+                dividend(generated);
+                break;
+            case INTEREST:
+                interest(generated);
+                break;
+            default:
+                legacyOrder(generated);
+                break;
+        }
+        
+        item.set("details", details);
+        return item;
+    }
+    
+    private Kind pickKind(SplittableRandom random) {
+        int value = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < kinds.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return kinds[i];
+            }
+        }
+        return kinds[kinds.length - 1];
+    }
+    
+    private void cardPayment(Generated g) {
+        String merchant = pick(g.random, MERCHANTS);
+        long amount = -g.random.nextLong(150, 15000);
+        g.event(merchant, "Kartenzahlung", "EXECUTED", amount);
+        g.header("Du hast " + euro(-amount) + " ausgegeben", null)
+                .putObject("data").put("icon", "merchant-logos/" + merchant.toLowerCase(Locale.ROOT).replace(' ', '-'));
+        g.table("Übersicht",
+                status("EXECUTED"),
+                text("Zahlung", "Visa ·· " + (1000 + g.random.nextInt(9000))),
+                text("Händler", merchant + " GmbH"));
+    }
+    
+    private void cardPending(Generated g) {
+        String merchant = pick(g.random, MERCHANTS);
+        g.event(merchant, "Ausstehend", null, -g.random.nextLong(150, 15000));
+        g.table("Übersicht", status("PENDING"), text("Händler", merchant));
+    }
+    
+    private void cardCanceled(Generated g) {
+        String merchant = pick(g.random, MERCHANTS);
+        g.event(merchant, "Storniert", "CANCELED", -g.random.nextLong(150, 15000));
+        g.table("Übersicht", status("CANCELED"), text("Händler", merchant));
+    }
+    
+    private void cardVerification(Generated g) {
+        String merchant = pick(g.random, MERCHANTS);
+        g.event(merchant, "Verifizierung", "EXECUTED", 0);
+        g.table("Übersicht", status("EXECUTED"), text("Händler", merchant));
+    }
+    
+    private void transfer(Generated g, boolean incoming) {
+        String[] account = pick(g.random, ACCOUNTS);
+        long amount = g.random.nextLong(1000, 250000);
+        g.event(account[0], incoming ? "Eingang" : "Gesendet", "EXECUTED", incoming ? amount : -amount);
+        g.header("Du hast " + euro(amount) + (incoming ? " erhalten" : " gesendet"), null);
+        g.table("Übersicht",
+                status("EXECUTED"),
+                text("Referenz", pick(g.random, REFERENCES) + " " + DOCUMENT_DATE.format(g.timestamp).substring(3)));
+        g.table(incoming ? "Absender" : "Empfänger", text("Name", account[0]), text("IBAN", account[1]));
+    }
+    
+    private void savingsPlan(Generated g) {
+        String[] instrument = pick(g.random, INSTRUMENTS);
+        long amount = 2500L * (1 + g.random.nextInt(8));
+        long price = price(g.random, instrument);
+        String shares = shares(amount, price);
+        g.event(instrument[0], "Sparplan ausgeführt", "EXECUTED", -amount);
+        g.header("Du hast " + euro(amount) + " investiert", instrument[1]);
+        
+        ObjectNode transaction = text("Transaktion", shares + " × " + euro(price));
+        ObjectNode infoPage = ((ObjectNode) transaction.get("detail")).putObject("action");
+        infoPage.put("type", "infoPage");
+        ObjectNode payload = infoPage.putObject("payload");
+        payload.put("title", "Transaktion");
+        ObjectNode infoTable = payload.putArray("sections").addObject();
+        infoTable.put("type", "table");
+        infoTable.putArray("data")
+                .add(text("Aktien", shares))
+                .add(text("Aktienkurs", euro(price)))
+                .add(text("Summe", euro(amount)));
+        
+        g.table("Übersicht",
+                text("Sparplan", "Ausgeführt"),
+                text("Zahlung", "Lastschrift"),
+                text("Asset", instrument[0]),
+                transaction,
+                text("Gebühr", "Kostenlos"),
+                text("Summe", euro(amount)));
+        ObjectNode plan = text("Sparplan", euro(amount));
+        ((ObjectNode) plan.get("detail")).put("subtitle", pick(g.random, FREQUENCIES));
+        g.table("Sparplan", plan);
+    }
+    
+    private void saveback(Generated g) {
+        String[] instrument = pick(g.random, INSTRUMENTS);
+        long amount = g.random.nextLong(100, 1500);
+        long price = price(g.random, instrument);
+        g.event(instrument[0], "Saveback", "EXECUTED", -amount);
+        g.header("Du hast " + euro(amount) + " investiert", instrument[1]);
+        
+        ObjectNode transaction = NODES.objectNode();
+        transaction.put("title", "Transaktion");
+        ObjectNode ticker = transaction.putObject("detail");
+        ticker.put("type", "embeddedTicker");
+        ticker.putObject("displayValue").put("prefix", shares(amount, price) + " x ").put("text", euro(price));
+        
+        g.table("Übersicht",
+                text("Saveback", "Ausgeführt"),
+                text("Asset", instrument[0]),
+                transaction,
+                text("Gebühr", "Kostenlos"),
+                text("Gesamt", euro(amount)));
+        g.documents("Dokumente", "Abrechnung Ausführung", "Kosteninformation");
+    }
+    
+    private void dividend(Generated g) {
+        String[] instrument = pick(g.random, INSTRUMENTS);
+        int shares = 1 + g.random.nextInt(100);
+        long perShareCents = 5 + g.random.nextInt(200);
+        long gross = shares * perShareCents;
+        long tax = gross / 4;
+        long amount = gross - tax;
+        g.event(instrument[0], "Bardividende", "EXECUTED", amount);
+        ObjectNode data = g.header("Du hast " + euro(amount) + " erhalten", instrument[1]).putObject("data");
+        data.put("icon", "logos/" + instrument[1] + "/v2");
+        data.put("timestamp", TIMESTAMP.format(g.timestamp));
+        data.put("status", "executed");
+        
+        g.table("Übersicht",
+                text("Event", "Bardividende"),
+                text("Wertpapier", instrument[0]),
+                status("EXECUTED"));
+        g.table("Geschäft",
+                text("Aktien", String.valueOf(shares)),
+                text("Dividende pro Aktie", String.format(Locale.GERMANY, "%.2f $", perShareCents / 100.0)),
+                text("Steuer", euro(tax)),
+                text("Gesamt", euro(amount)));
+        g.documents("Dokumente", "Dokumente");
+    }
+    
+    private void interest(Generated g) {
+        long balance = g.random.nextLong(10000, 5000000);
+        int rateBasisPoints = 150 + 25 * g.random.nextInt(8);
+        long accrued = Math.max(1, balance * rateBasisPoints / 10000 / 12);
+        long tax = accrued / 4;
+        long amount = accrued - tax;
+        String rate = String.format(Locale.GERMANY, "%.2f %%", rateBasisPoints / 100.0);
+        // Status only in the details, as with the real interest events
+        g.event("Zinsen", rate + " p.a.", null, amount);
+        g.header("Du hast " + euro(amount) + " erhalten", null);
+        g.table("Übersicht",
+                status("EXECUTED"),
+                text("Durchschnittssaldo", euro(balance)),
+                text("Jährliche Rate", rate),
+                text("Asset", "Euro"));
+        g.table("Transaktion",
+                text("Angesammelt", euro(accrued)),
+                text("Steuern", euro(tax)),
+                text("Gesamt", euro(amount)));
+        g.documents("Dokument", "Abrechnung");
+    }
+    
+    private void legacyOrder(Generated g) {
+        String[] instrument = pick(g.random, INSTRUMENTS);
+        int shares = 1 + g.random.nextInt(20);
+        long price = price(g.random, instrument);
+        long amount = shares * price + 100;
+        g.event(instrument[0], "Kauforder", "EXECUTED", -amount);
+        g.header("Du hast " + euro(amount) + " investiert", instrument[1]);
+        g.table("Übersicht",
+                status("EXECUTED"),
+                text("Orderart", "Kauf"),
+                text("Asset", instrument[0]));
+        g.table("Transaktion",
+                text("Anteile", String.valueOf(shares)),
+                text("Aktienkurs", euro(price)),
+                text("Gebühr", euro(100)),
+                text("Gesamt", euro(amount)));
+        g.documents("Dokumente", "Abrechnung", "Basisinformationsblatt", "Kosteninformation");
+    }
+    
+    private static ObjectNode text(String title, String text) {
+        ObjectNode item = NODES.objectNode();
+        item.put("title", title);
+        item.putObject("detail").put("text", text).put("type", "text");
+        return item;
+    }
+    
+    private static ObjectNode status(String functionalStyle) {
+        String text = "PENDING".equals(functionalStyle) ? "Ausstehend"
+                : "CANCELED".equals(functionalStyle) ? "Storniert" : "Ausgeführt";
+        ObjectNode item = NODES.objectNode();
+        item.put("title", "Status");
+        item.putObject("detail").put("text", text).put("functionalStyle", functionalStyle).put("type", "status");
+        return item;
+    }
+    
+    /**
+     * Price in cents, within 20% of the instrument's base price
+     */
+    private static long price(SplittableRandom random, String[] instrument) {
+        long base = Long.parseLong(instrument[2]);
+        return base * (80 + random.nextInt(41)) / 100;
+    }
+    
+    private static String shares(long amount, long price) {
+        return String.format(Locale.GERMANY, "%.3f", (double) amount / price);
+    }
+    
+    private static String euro(long cents) {
+        return String.format(Locale.GERMANY, "%,.2f €", cents / 100.0);
+    }
+    
+    private static <T> T pick(SplittableRandom random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+    
+    /**
+     * Item and detail sections under construction
+     */
+    private static class Generated {
+        private final ObjectNode item;
+        private final ArrayNode sections;
+        private final SplittableRandom random;
+        private final Instant timestamp;
+        private final Kind kind;
+        private final String id;
+        
+        private Generated(ObjectNode item, ArrayNode sections, SplittableRandom random, Instant timestamp,
+                          Kind kind, String id) {
+            this.item = item;
+            this.sections = sections;
+            this.random = random;
+            this.timestamp = timestamp;
+            this.kind = kind;
+            this.id = id;
+        }
+        
+        /**
+         * Item fields in API order; status null for events that only carry it in the details
+         */
+        private void event(String title, String subtitle, String status, long amountCents) {
+            item.put("title", title);
+            item.put("subtitle", subtitle);
+            item.put("timestamp", TIMESTAMP.format(timestamp));
+            item.put("eventType", kind.getEventType());
+            if (status != null) {
+                item.put("status", status);
+            }
+            item.putObject("amount").put("value", amountCents / 100.0).put("currency", "EUR");
+        }
+        
+        private ObjectNode header(String title, String isin) {
+            ObjectNode header = sections.addObject();
+            header.put("type", "header");
+            header.put("title", title);
+            if (isin != null) {
+                header.putObject("action").put("type", "instrumentDetail").put("payload", isin);
+            }
+            return header;
+        }
+        
+        private void table(String title, ObjectNode... rows) {
+            ObjectNode table = sections.addObject();
+            table.put("type", "table");
+            table.put("title", title);
+            ArrayNode data = table.putArray("data");
+            for (ObjectNode row : rows) {
+                data.add(row);
+            }
+        }
+        
+        private void documents(String title, String... documentTitles) {
+            ObjectNode documents = sections.addObject();
+            documents.put("type", "documents");
+            documents.put("title", title);
+            ArrayNode data = documents.putArray("data");
+            for (int i = 0; i < documentTitles.length; i++) {
+                ObjectNode document = data.addObject();
+                document.put("title", documentTitles[i]);
+                document.putObject("detail").put("text", DOCUMENT_DATE.format(timestamp));
+                document.putObject("action").put("type", "browserModal")
+                        .put("payload", "https://example.invalid/" + id + "/" + (i + 1));
+                document.put("id", id + "-doc-" + (i + 1));
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a timeline feed parsed from the raw subscription payload. Items are bound straight
+ * from the parser to {@link TransactionEvent}; only when the raw items are needed (e.g. for the
+ * archive) or an item cannot be bound is each item read as a tree first.
+ */
+public final class TimelinePage {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TimelinePage.class);
+    
+    private final boolean hasItems;
+    private final List<TransactionEvent> events;
+    private final List<JsonNode> items;
+    private final String afterCursor;
+    
+    private TimelinePage(boolean hasItems, List<TransactionEvent> events, List<JsonNode> items, String afterCursor) {
+        this.hasItems = hasItems;
+        this.events = events;
+        this.items = items;
+        this.afterCursor = afterCursor;
+    }
+    
+    /**
+     * Parse a payload of the form {"items": [...], "cursors": {"after": ...}}; an empty payload gives an empty page
+     * @param keepItems also keep the raw item trees, see {@link #getItems()}
+     */
+    public static TimelinePage parse(String payload, boolean keepItems) throws IOException {
+        if (payload == null || payload.isBlank()) {
+            return new TimelinePage(false, Collections.emptyList(), keepItems ? Collections.emptyList() : null, null);
+        }
+        if (!keepItems) {
+            try {
+                return read(payload, false);
+            } catch (IOException e) {
+                // Bind item by item from trees, skipping the ones that fail
+                logger.debug("Could not bind timeline page directly, falling back to trees", e);
+            }
+        }
+        return read(payload, true);
+    }
+    
+    private static TimelinePage read(String payload, boolean trees) throws IOException {
+        boolean hasItems = false;
+        List<TransactionEvent> events = new ArrayList<>();
+        List<JsonNode> items = trees ? new ArrayList<>() : null;
+        String afterCursor = null;
+        
+        try (JsonParser parser = JsonCodec.factory().createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return new TimelinePage(false, events, items, null);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                    hasItems = true;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        if (trees) {
+                            JsonNode item = JsonCodec.treeReader().readTree(parser);
+                            try {
+                                events.add(JsonCodec.readEvent(item));
+                                items.add(item);
+                            } catch (IOException e) {
+                                logger.warn("Could not parse timeline event", e);
+                            }
+                        } else {
+                            events.add(JsonCodec.eventReader().readValue(parser));
+                        }
+                    }
+                } else if ("cursors".equals(field) && value == JsonToken.START_OBJECT) {
+                    JsonNode cursors = JsonCodec.treeReader().readTree(parser);
+                    JsonNode after = cursors.get("after");
+                    afterCursor = after != null && !after.isNull() ? after.asText() : null;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return new TimelinePage(hasItems, events, items, afterCursor);
+    }
+    
+    /**
+     * Whether the payload had an items array
+     */
+    public boolean hasItems() {
+        return hasItems;
+    }
+    
+    public List<TransactionEvent> getEvents() {
+        return events;
+    }
+    
+    /**
+     * Raw item trees in the order of {@link #getEvents()}, or null if not kept
+     */
+    public List<JsonNode> getItems() {
+        return items;
+    }
+    
+    /**
+     * Cursor of the next page, or null on the last page
+     */
+    public String getAfterCursor() {
+        return afterCursor;
+    }
+}
\ No newline at end of file
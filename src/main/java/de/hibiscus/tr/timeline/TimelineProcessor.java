@@ -1,17 +1,27 @@
 package de.hibiscus.tr.timeline;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import de.hibiscus.tr.api.TradeRepublicApi;
+import de.hibiscus.tr.archive.EventArchive;
+import de.hibiscus.tr.model.PhaseTimer;
 import de.hibiscus.tr.model.TradeRepublicError;
 import de.hibiscus.tr.model.TransactionEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 /**
  * Processes timeline data from Trade Republic API
@@ -20,27 +30,116 @@ public class TimelineProcessor {
     
     private static final Logger logger = LoggerFactory.getLogger(TimelineProcessor.class);
     
+    private static final String FEED_TRANSACTIONS = "timelineTransactions";
+    private static final String FEED_ACTIVITY_LOG = "timelineActivityLog";
+    private static final long CHECKPOINT_INTERVAL_MS = 15_000;
+    private static final int MAX_POLL_PAGES = 20;
+    private static final long WINDOW_TOLERANCE_SECONDS = 24 * 60 * 60;
+    
     private final TradeRepublicApi api;
-    private final ObjectMapper objectMapper;
-    private final long sinceTimestamp;
+    private long sinceTimestamp;
     private final boolean includePending;
     
     private final List<TransactionEvent> events = new ArrayList<>();
     private int requestedDetails = 0;
     private int receivedDetails = 0;
     
+    // Checkpoint state for resumable syncs
+    private Path checkpointFile;
+    private Path journalFile;
+    private SyncJournal journal;
+    private boolean resume;
+    private final Map<String, String> cursors = new HashMap<>();
+    private final Set<String> completedFeeds = new HashSet<>();
+    private final Set<String> resolvedDetails = new HashSet<>();
+    private long lastCheckpointTime = 0;
+    
+    // Event keys (id and status) already handed out, used by polling; after the first poll only the
+    // keys of the last polled pages are kept
+    private final Set<String> seenEventKeys = new HashSet<>();
+    
+    // Applied to each detail payload on arrival, null keeps the raw tree
+    private UnaryOperator<JsonNode> detailProjection;
+    
+    // Events with amounts for which details are fetched, e.g. not yet exported ones
+    private Predicate<TransactionEvent> detailFilter = event -> true;
+    private int skippedDetails = 0;
+    
+    // Open pending transactions refreshed by id, null to rely on the loaded time window only
+    private PendingTracker pendingTracker;
+    private final Set<String> refreshedPending = new HashSet<>();
+    
+    // Local archive of raw items and details, null if disabled
+    private EventArchive archive;
+    
+    // Phase measurements for the benchmark command, null if disabled
+    private PhaseTimer phaseTimer;
+    
     public TimelineProcessor(TradeRepublicApi api, long sinceTimestamp, boolean includePending) {
         this.api = api;
-        this.objectMapper = new ObjectMapper();
         this.sinceTimestamp = sinceTimestamp;
         this.includePending = includePending;
     }
     
+    /**
+     * Enable periodic checkpoints written to the given file
+     * @param resume continue from an existing checkpoint instead of starting from page 1
+     */
+    public void enableCheckpoints(Path checkpointFile, boolean resume) {
+        this.checkpointFile = checkpointFile;
+        this.journalFile = SyncJournal.fileFor(checkpointFile);
+        this.resume = resume;
+    }
+    
+    /**
+     * Reduce detail payloads on arrival so the raw trees can be garbage collected; null retains them
+     */
+    public void setDetailProjection(UnaryOperator<JsonNode> detailProjection) {
+        this.detailProjection = detailProjection;
+    }
+    
+    /**
+     * Only fetch details for events with amounts that match the filter; others are returned without details
+     */
+    public void setDetailFilter(Predicate<TransactionEvent> detailFilter) {
+        this.detailFilter = detailFilter;
+    }
+    
+    /**
+     * Keep raw timeline items and detail payloads in a local archive. Details missing from the
+     * archive are fetched even if the detail filter would skip them.
+     */
+    public void setArchive(EventArchive archive) {
+        this.archive = archive;
+    }
+    
+    /**
+     * Refresh the tracked pending transactions on every run and track new ones
+     */
+    public void setPendingTracker(PendingTracker pendingTracker) {
+        this.pendingTracker = pendingTracker;
+    }
+    
+    /**
+     * Record the page ingestion and detail resolution phases of {@link #processTimeline()}
+     */
+    public void setPhaseTimer(PhaseTimer phaseTimer) {
+        this.phaseTimer = phaseTimer;
+    }
+    
     /**
      * Process timeline and collect transaction events
      */
     public List<TransactionEvent> processTimeline() throws TradeRepublicError {
+        Thread shutdownHook = null;
+        if (checkpointFile != null) {
+            restoreCheckpoint();
+            shutdownHook = new Thread(this::writeCheckpoint, "checkpoint-flush");
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+        
         logger.info("Starting timeline processing from timestamp: {}", sinceTimestamp);
+        phase("ingest");
         
         try {
             // Get all timeline transactions using pagination
@@ -50,12 +149,35 @@ public class TimelineProcessor {
             // Get all activity log using pagination
             logger.info("Requesting timeline activity log with pagination...");
             loadAllTimelineActivityLog();
+            phase("details");
             
-            // Request details for all events that have amounts
+            // Pending transactions of earlier runs outside the loaded window, refreshed by id
             List<CompletableFuture<Void>> detailFutures = new ArrayList<>();
+            if (pendingTracker != null) {
+                List<TransactionEvent> missing = pendingTracker.missingFrom(events, Instant.now());
+                synchronized (this) {
+                    events.addAll(missing);
+                }
+                for (TransactionEvent event : missing) {
+                    refreshedPending.add(event.getId());
+                    requestedDetails++;
+                    detailFutures.add(requestEventDetails(event));
+                }
+                logger.info("Refreshing {} tracked pending transactions", missing.size());
+            }
+            
+            // Request details for all events that have amounts
             for (TransactionEvent event : events) {
-                if (event.hasAmount()) {
+                if (refreshedPending.contains(event.getId())) {
+                    continue;
+                } else if (event.hasAmount() && !needsDetails(event)) {
+                    skippedDetails++;
+                } else if (event.hasAmount()) {
                     requestedDetails++;
+                    if (isDetailResolved(event)) {
+                        receivedDetails++;
+                        continue;
+                    }
                     CompletableFuture<Void> detailFuture = requestEventDetails(event);
                     detailFutures.add(detailFuture);
                 }
@@ -78,10 +200,322 @@ public class TimelineProcessor {
                 throw new TradeRepublicError("Failed to receive any transaction details");
             }
             
+            deleteCheckpoint();
+            for (TransactionEvent event : events) {
+                seenEventKeys.add(eventKey(event));
+            }
+            trackPending(events);
             return new ArrayList<>(events);
             
         } catch (Exception e) {
+            writeCheckpoint();
             throw new TradeRepublicError("Timeline processing failed", e);
+        } finally {
+            if (shutdownHook != null) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException e) {
+                    // JVM is already shutting down, the hook flushes the checkpoint
+                }
+            }
+            closeJournal();
+        }
+    }
+    
+    /**
+     * Poll both timeline feeds for events not seen before, reading pages from the head until one
+     * contains an already seen event, so bursts larger than a page between two polls are not lost.
+     * Events whose status changed since they were last seen (e.g. a settled pending
+     * transaction) are reported again. Details are fetched for all new events with amounts.
+     * Only the keys of the polled pages are remembered, so the seen set stays bounded by the pages
+     * read however long watch mode runs; events that left the head pages are not polled again.
+     */
+    public List<TransactionEvent> pollNewEvents() throws TradeRepublicError {
+        try {
+            List<TransactionEvent> polledEvents = new ArrayList<>();
+            pollFeed(FEED_TRANSACTIONS, polledEvents);
+            pollFeed(FEED_ACTIVITY_LOG, polledEvents);
+            
+            List<TransactionEvent> newEvents = new ArrayList<>();
+            List<CompletableFuture<Void>> detailFutures = new ArrayList<>();
+            Set<String> polledKeys = new HashSet<>();
+            for (TransactionEvent event : polledEvents) {
+                String key = eventKey(event);
+                if (!polledKeys.add(key) || seenEventKeys.contains(key)) {
+                    continue;
+                }
+                newEvents.add(event);
+                if (event.hasAmount() && needsDetails(event)) {
+                    detailFutures.add(requestEventDetails(event));
+                }
+            }
+            
+            try {
+                CompletableFuture.allOf(detailFutures.toArray(new CompletableFuture[0]))
+                    .get(60, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (java.util.concurrent.TimeoutException e) {
+                logger.warn("Timeout waiting for details of {} new events", detailFutures.size());
+            }
+            
+            seenEventKeys.clear();
+            seenEventKeys.addAll(polledKeys);
+            trackPending(newEvents);
+            logger.debug("Poll found {} new of {} events", newEvents.size(), polledEvents.size());
+            return newEvents;
+            
+        } catch (Exception e) {
+            throw new TradeRepublicError("Timeline polling failed", e);
+        }
+    }
+    
+    /**
+     * Read pages of a feed from the head until a page contains a seen event, leaves the time range or is the last one
+     */
+    private void pollFeed(String feed, List<TransactionEvent> polledEvents) throws Exception {
+        boolean transactions = FEED_TRANSACTIONS.equals(feed);
+        String cursor = null;
+        for (int pageCount = 1; pageCount <= MAX_POLL_PAGES; pageCount++) {
+            TimelinePage page = TimelinePage.parse(transactions ? api.getTimelineTransactionsPage(cursor).get()
+                    : api.getTimelineActivityLogPage(cursor).get(), archive != null);
+            List<TransactionEvent> pageEvents = new ArrayList<>();
+            boolean foundRelevantData = transactions ? processTimelineData(page, pageEvents)
+                    : processActivityData(page, pageEvents);
+            polledEvents.addAll(pageEvents);
+            
+            boolean reachedSeen = seenEventKeys.isEmpty()
+                    || pageEvents.stream().anyMatch(event -> seenEventKeys.contains(eventKey(event)));
+            if (reachedSeen || !foundRelevantData || page.getAfterCursor() == null) {
+                return;
+            }
+            cursor = page.getAfterCursor();
+        }
+        logger.warn("No known event in the first {} pages of {}, older new events are not polled", MAX_POLL_PAGES, feed);
+    }
+    
+    /**
+     * Whether details of an event with amount are fetched: for the export or to complete the archive
+     */
+    private boolean needsDetails(TransactionEvent event) {
+        return detailFilter.test(event) || (archive != null && !archive.hasDetails(event.getId()));
+    }
+    
+    /**
+     * Archive a raw timeline item; archive failures do not stop the sync
+     */
+    private void archiveItem(TransactionEvent event, JsonNode item) {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.putItem(event, item);
+        } catch (IOException e) {
+            logger.warn("Could not archive timeline item {}", event.getId(), e);
+        }
+    }
+    
+    /**
+     * Archive a raw detail payload; archive failures do not stop the sync
+     */
+    private void archiveDetails(TransactionEvent event, JsonNode details) {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.putDetails(event.getId(), details);
+        } catch (IOException e) {
+            logger.warn("Could not archive details of {}", event.getId(), e);
+        }
+    }
+    
+    /**
+     * Update and persist the pending tracker with the latest state of the events
+     */
+    private void trackPending(List<TransactionEvent> trackedEvents) {
+        if (pendingTracker == null) {
+            return;
+        }
+        pendingTracker.update(trackedEvents, Instant.now());
+        try {
+            pendingTracker.save();
+        } catch (IOException e) {
+            logger.warn("Could not save pending tracker", e);
+        }
+    }
+    
+    /**
+     * Key identifying an event in a specific state
+     */
+    private String eventKey(TransactionEvent event) {
+        return event.getId() + "|" + event.getStatus();
+    }
+    
+    /**
+     * Restore pagination cursors, events and resolved details from an existing checkpoint and its
+     * journal, and open the journal for the events of this run
+     */
+    private void restoreCheckpoint() {
+        if (!Files.exists(checkpointFile)) {
+            if (resume) {
+                logger.info("No checkpoint found at {}, starting a full sync", checkpointFile);
+            }
+        } else if (!resume) {
+            logger.info("Ignoring existing checkpoint {} (use --resume to continue from it)", checkpointFile);
+        } else {
+            try {
+                SyncCheckpoint checkpoint = SyncCheckpoint.load(checkpointFile);
+                if (checkpoint.getJournal() == null) {
+                    throw new IOException("Checkpoint has no event journal");
+                }
+                journalFile = checkpointFile.toAbsolutePath().resolveSibling(checkpoint.getJournal());
+                // Drops records written after the checkpoint, their pages are loaded again
+                journal = SyncJournal.open(journalFile, checkpoint.getJournalLength());
+                events.addAll(SyncJournal.read(journalFile));
+                warnIfWindowDiffers(checkpoint.getSinceTimestamp());
+                sinceTimestamp = checkpoint.getSinceTimestamp();
+                cursors.putAll(checkpoint.getCursors());
+                completedFeeds.addAll(checkpoint.getCompletedFeeds());
+                resolvedDetails.addAll(checkpoint.getResolvedDetails());
+                logger.info("Resuming from checkpoint: {} events, {} details resolved, completed feeds: {}",
+                        events.size(), resolvedDetails.size(), completedFeeds);
+            } catch (IOException e) {
+                logger.warn("Could not read checkpoint {}, starting a full sync", checkpointFile, e);
+                closeJournal();
+                events.clear();
+                journalFile = SyncJournal.fileFor(checkpointFile);
+            }
+        }
+        
+        if (journal == null) {
+            try {
+                journal = SyncJournal.open(journalFile, 0);
+            } catch (IOException e) {
+                logger.warn("Could not create checkpoint journal {}, no checkpoints are written", journalFile, e);
+            }
+        }
+    }
+    
+    /**
+     * A resumed sync keeps the time window of its checkpoint, so the pages already loaded stay consistent.
+     * Warn if that silently drops older events the requested window includes, or exports noticeably more
+     * than requested; a window that only moved with the time since the interrupted run is not reported.
+     */
+    private void warnIfWindowDiffers(long checkpointSince) {
+        if (sinceTimestamp < checkpointSince || sinceTimestamp - checkpointSince > WINDOW_TOLERANCE_SECONDS) {
+            logger.warn("Resuming with the time window of the checkpoint (since {}) instead of the requested one "
+                    + "(since {}); run without --resume to use the requested window",
+                    describeSince(checkpointSince), describeSince(sinceTimestamp));
+        }
+    }
+    
+    private static String describeSince(long timestamp) {
+        return timestamp <= 0 ? "the beginning" : Instant.ofEpochSecond(timestamp).toString();
+    }
+    
+    /**
+     * Write a checkpoint if the checkpoint interval has elapsed
+     */
+    private void maybeWriteCheckpoint() {
+        if (checkpointFile != null && System.currentTimeMillis() - lastCheckpointTime >= CHECKPOINT_INTERVAL_MS) {
+            writeCheckpoint();
+        }
+    }
+    
+    /**
+     * Write the current sync state to the checkpoint file
+     */
+    private synchronized void writeCheckpoint() {
+        if (checkpointFile == null || journal == null) {
+            return;
+        }
+        
+        try {
+            SyncCheckpoint checkpoint = new SyncCheckpoint(sinceTimestamp, new HashMap<>(cursors),
+                    new HashSet<>(completedFeeds), journalFile.getFileName().toString(), journal.flush(),
+                    new HashSet<>(resolvedDetails));
+            checkpoint.save(checkpointFile);
+            lastCheckpointTime = System.currentTimeMillis();
+            logger.debug("Wrote checkpoint with {} events, {} details resolved", events.size(), resolvedDetails.size());
+        } catch (IOException e) {
+            logger.warn("Could not write checkpoint {}", checkpointFile, e);
+        }
+    }
+    
+    /**
+     * Remove the checkpoint after a completed sync; later head-page polls are not checkpointed
+     */
+    private synchronized void deleteCheckpoint() {
+        if (checkpointFile == null) {
+            return;
+        }
+        
+        closeJournal();
+        try {
+            Files.deleteIfExists(checkpointFile);
+            Files.deleteIfExists(journalFile);
+        } catch (IOException e) {
+            logger.warn("Could not delete checkpoint {}", checkpointFile, e);
+        }
+        checkpointFile = null;
+    }
+    
+    /**
+     * Append loaded events to the checkpoint journal
+     */
+    private synchronized void journalEvents(List<TransactionEvent> loadedEvents) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.appendEvents(loadedEvents);
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+    
+    /**
+     * Append the details of an event to the checkpoint journal
+     */
+    private synchronized void journalDetails(TransactionEvent event) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.appendDetails(event.getId(), event.getDetails());
+        } catch (IOException e) {
+            journalFailed(e);
+        }
+    }
+    
+    /**
+     * Stop writing checkpoints, so the last one stays consistent with the journal
+     */
+    private void journalFailed(IOException e) {
+        logger.warn("Could not write checkpoint journal {}, no further checkpoints are written", journalFile, e);
+        closeJournal();
+    }
+    
+    private synchronized void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Could not close checkpoint journal {}", journalFile, e);
+        }
+        journal = null;
+    }
+    
+    /**
+     * Check if details for the event were already resolved by a previous run
+     */
+    private synchronized boolean isDetailResolved(TransactionEvent event) {
+        return resolvedDetails.contains(event.getId()) && event.getDetails() != null;
+    }
+    
+    private void phase(String name) {
+        if (phaseTimer != null) {
+            phaseTimer.enter(name);
         }
     }
     
@@ -89,49 +523,44 @@ public class TimelineProcessor {
      * Load all timeline transactions using pagination
      */
     private void loadAllTimelineTransactions() throws Exception {
-        String cursor = null;
+        if (completedFeeds.contains(FEED_TRANSACTIONS)) {
+            logger.info("Timeline transactions already loaded by checkpoint, skipping pagination");
+            return;
+        }
+        
+        String cursor = cursors.get(FEED_TRANSACTIONS);
         int pageCount = 0;
         boolean hasMoreData = true;
         boolean foundRelevantData = true;
         
         while (hasMoreData && foundRelevantData) {
             pageCount++;
+            List<TransactionEvent> pageEvents = new ArrayList<>();
             logger.info("Loading timeline transactions page {}{}", pageCount, 
                        cursor != null ? " (cursor: " + cursor.substring(0, Math.min(cursor.length(), 8)) + "...)" : "");
             
-            CompletableFuture<JsonNode> timelineFuture = api.getTimelineTransactions(cursor);
-            JsonNode timelineResponse = timelineFuture.get();
-            
-            if (timelineResponse.has("data")) {
-                JsonNode data = timelineResponse.get("data");
-                if (data.has("items")) {
-                    JsonNode items = data.get("items");
-                    logger.info("Processing {} timeline items from page {}", items.isArray() ? items.size() : 0, pageCount);
-                    
-                    foundRelevantData = processTimelineData(items);
-                    
-                    // Check for next page cursor
-                    if (data.has("cursors") && data.get("cursors").has("after")) {
-                        JsonNode afterCursor = data.get("cursors").get("after");
-                        if (afterCursor != null && !afterCursor.isNull()) {
-                            cursor = afterCursor.asText();
-                            hasMoreData = true;
-                        } else {
-                            hasMoreData = false;
-                        }
-                    } else {
-                        hasMoreData = false;
-                    }
+            TimelinePage page = TimelinePage.parse(api.getTimelineTransactionsPage(cursor).get(), archive != null);
+            if (page.hasItems()) {
+                logger.info("Processing {} timeline items from page {}", page.getEvents().size(), pageCount);
+                
+                foundRelevantData = processTimelineData(page, pageEvents);
+                
+                // Check for next page cursor
+                if (page.getAfterCursor() != null) {
+                    cursor = page.getAfterCursor();
+                    hasMoreData = true;
                 } else {
-                    logger.warn("No 'items' field in timeline data");
                     hasMoreData = false;
                 }
             } else {
-                logger.warn("No 'data' field in timeline response");
+                logger.warn("No 'items' field in timeline data");
                 hasMoreData = false;
             }
+            
+            recordFeedProgress(FEED_TRANSACTIONS, cursor, pageEvents);
         }
         
+        markFeedCompleted(FEED_TRANSACTIONS);
         logger.info("Timeline transactions pagination completed after {} pages", pageCount);
     }
     
@@ -139,77 +568,91 @@ public class TimelineProcessor {
      * Load all timeline activity log using pagination
      */
     private void loadAllTimelineActivityLog() throws Exception {
-        String cursor = null;
+        if (completedFeeds.contains(FEED_ACTIVITY_LOG)) {
+            logger.info("Timeline activity log already loaded by checkpoint, skipping pagination");
+            return;
+        }
+        
+        String cursor = cursors.get(FEED_ACTIVITY_LOG);
         int pageCount = 0;
         boolean hasMoreData = true;
         boolean foundRelevantData = true;
         
         while (hasMoreData && foundRelevantData) {
             pageCount++;
+            List<TransactionEvent> pageEvents = new ArrayList<>();
             logger.info("Loading timeline activity log page {}{}", pageCount,
                        cursor != null ? " (cursor: " + cursor.substring(0, Math.min(cursor.length(), 8)) + "...)" : "");
             
-            CompletableFuture<JsonNode> activityFuture = api.getTimelineActivityLog(cursor);
-            JsonNode activityResponse = activityFuture.get();
-            
-            if (activityResponse.has("data")) {
-                JsonNode data = activityResponse.get("data");
-                if (data.has("items")) {
-                    JsonNode items = data.get("items");
-                    logger.info("Processing {} activity log items from page {}", items.isArray() ? items.size() : 0, pageCount);
-                    
-                    foundRelevantData = processActivityData(items);
-                    
-                    // Check for next page cursor
-                    if (data.has("cursors") && data.get("cursors").has("after")) {
-                        JsonNode afterCursor = data.get("cursors").get("after");
-                        if (afterCursor != null && !afterCursor.isNull()) {
-                            cursor = afterCursor.asText();
-                            hasMoreData = true;
-                        } else {
-                            hasMoreData = false;
-                        }
-                    } else {
-                        hasMoreData = false;
-                    }
+            TimelinePage page = TimelinePage.parse(api.getTimelineActivityLogPage(cursor).get(), archive != null);
+            if (page.hasItems()) {
+                logger.info("Processing {} activity log items from page {}", page.getEvents().size(), pageCount);
+                
+                foundRelevantData = processActivityData(page, pageEvents);
+                
+                // Check for next page cursor
+                if (page.getAfterCursor() != null) {
+                    cursor = page.getAfterCursor();
+                    hasMoreData = true;
                 } else {
-                    logger.warn("No 'items' field in activity log data");
                     hasMoreData = false;
                 }
             } else {
-                logger.warn("No 'data' field in activity log response");
+                logger.warn("No 'items' field in activity log data");
                 hasMoreData = false;
             }
+            
+            recordFeedProgress(FEED_ACTIVITY_LOG, cursor, pageEvents);
         }
         
+        markFeedCompleted(FEED_ACTIVITY_LOG);
         logger.info("Timeline activity log pagination completed after {} pages", pageCount);
     }
     
+    /**
+     * Add the events of a loaded page and remember the cursor of the next page to load for a feed
+     */
+    private synchronized void recordFeedProgress(String feed, String cursor, List<TransactionEvent> pageEvents) {
+        events.addAll(pageEvents);
+        journalEvents(pageEvents);
+        if (cursor != null) {
+            cursors.put(feed, cursor);
+        }
+        maybeWriteCheckpoint();
+    }
+    
+    /**
+     * Mark a feed as fully paginated
+     */
+    private synchronized void markFeedCompleted(String feed) {
+        completedFeeds.add(feed);
+        cursors.remove(feed);
+        writeCheckpoint();
+    }
+    
     /**
      * Process timeline data
      * @return true if any relevant events were found (not filtered out by timestamp)
      */
-    private boolean processTimelineData(JsonNode data) {
+    private boolean processTimelineData(TimelinePage page, List<TransactionEvent> pageEvents) {
         boolean foundRelevantData = false;
         
-        if (data.isArray()) {
-            for (JsonNode item : data) {
-                try {
-                    TransactionEvent event = objectMapper.treeToValue(item, TransactionEvent.class);
-                    
-                    // Check if this event is within our time range
-                    boolean isWithinTimeRange = isEventWithinTimeRange(event);
-                    if (isWithinTimeRange) {
-                        foundRelevantData = true;
-                    }
-                    
-                    if (shouldIncludeEvent(event)) {
-                        events.add(event);
-                        logger.debug("Added timeline event: {}", event.getId());
-                    }
-                } catch (Exception e) {
-                    logger.warn("Could not parse timeline event", e);
-                }
+        List<TransactionEvent> events = page.getEvents();
+        for (int i = 0; i < events.size(); i++) {
+            TransactionEvent event = events.get(i);
+            if (page.getItems() != null) {
+                archiveItem(event, page.getItems().get(i));
+            }
+            
+            // Check if this event is within our time range
+            boolean isWithinTimeRange = isEventWithinTimeRange(event);
+            if (isWithinTimeRange) {
+                foundRelevantData = true;
+            }
+            
+            if (shouldIncludeEvent(event)) {
+                pageEvents.add(event);
+                logger.debug("Added timeline event: {}", event.getId());
             }
         }
         
@@ -220,27 +663,25 @@ public class TimelineProcessor {
      * Process activity log data
      * @return true if any relevant events were found (not filtered out by timestamp)
      */
-    private boolean processActivityData(JsonNode data) {
+    private boolean processActivityData(TimelinePage page, List<TransactionEvent> pageEvents) {
         boolean foundRelevantData = false;
         
-        if (data.isArray()) {
-            for (JsonNode item : data) {
-                try {
-                    TransactionEvent event = objectMapper.treeToValue(item, TransactionEvent.class);
-                    
-                    // Check if this event is within our time range
-                    boolean isWithinTimeRange = isEventWithinTimeRange(event);
-                    if (isWithinTimeRange) {
-                        foundRelevantData = true;
-                    }
-                    
-                    if (shouldIncludeEvent(event)) {
-                        events.add(event);
-                        logger.debug("Added activity event: {}", event.getId());
-                    }
-                } catch (Exception e) {
-                    logger.warn("Could not parse activity event", e);
-                }
+        List<TransactionEvent> events = page.getEvents();
+        for (int i = 0; i < events.size(); i++) {
+            TransactionEvent event = events.get(i);
+            if (page.getItems() != null) {
+                archiveItem(event, page.getItems().get(i));
+            }
+            
+            // Check if this event is within our time range
+            boolean isWithinTimeRange = isEventWithinTimeRange(event);
+            if (isWithinTimeRange) {
+                foundRelevantData = true;
+            }
+            
+            if (shouldIncludeEvent(event)) {
+                pageEvents.add(event);
+                logger.debug("Added activity event: {}", event.getId());
             }
         }
         
@@ -254,8 +695,21 @@ public class TimelineProcessor {
         return api.getTimelineDetail(event.getId())
                 .thenAccept(response -> {
                     if (response.has("data")) {
-                        event.setDetails(response.get("data"));
-                        receivedDetails++;
+                        archiveDetails(event, response.get("data"));
+                        JsonNode details = detailProjection != null
+                                ? detailProjection.apply(response.get("data")) : response.get("data");
+                        synchronized (this) {
+                            event.setDetails(details);
+                            if (refreshedPending.contains(event.getId())) {
+                                // The snapshot status is stale, the details carry the current one
+                                PendingTracker.applyDetailStatus(event);
+                            } else {
+                                journalDetails(event);
+                            }
+                            resolvedDetails.add(event.getId());
+                            receivedDetails++;
+                            maybeWriteCheckpoint();
+                        }
                         logger.debug("Received details for event: {}", event.getId());
                     }
                 })
@@ -273,13 +727,11 @@ public class TimelineProcessor {
             return true; // No time filter, all events are relevant for pagination
         }
         
-        try {
-            Instant eventTime = event.getTimestampAsInstant();
-            return eventTime.getEpochSecond() >= sinceTimestamp;
-        } catch (Exception e) {
+        if (!event.hasValidTimestamp()) {
             logger.warn("Could not parse timestamp for event: {}", event.getId());
             return true; // Include if we can't parse timestamp
         }
+        return event.getEpochMillis() >= sinceTimestamp * 1000;
     }
     
     /**
@@ -288,15 +740,12 @@ public class TimelineProcessor {
     private boolean shouldIncludeEvent(TransactionEvent event) {
         // Check timestamp
         if (sinceTimestamp > 0) {
-            try {
-                Instant eventTime = event.getTimestampAsInstant();
-                if (eventTime.getEpochSecond() < sinceTimestamp) {
-                    logger.debug("Filtering out event {} from {} (before since timestamp {})", 
-                               event.getId(), eventTime, java.time.Instant.ofEpochSecond(sinceTimestamp));
-                    return false;
-                }
-            } catch (Exception e) {
+            if (!event.hasValidTimestamp()) {
                 logger.warn("Could not parse timestamp for event: {}", event.getId());
+            } else if (event.getEpochMillis() < sinceTimestamp * 1000) {
+                logger.debug("Filtering out event {} from {} (before since timestamp {})", 
+                           event.getId(), event.getTimestamp(), Instant.ofEpochSecond(sinceTimestamp));
+                return false;
             }
         }
         
@@ -308,7 +757,8 @@ public class TimelineProcessor {
      * Get processing statistics
      */
     public String getStatistics() {
-        return String.format("Events: %d, Details requested: %d, Details received: %d", 
-                events.size(), requestedDetails, receivedDetails);
+        return String.format("Events: %d, Details requested: %d, Details received: %d, Details skipped: %d, "
+                + "Pending refreshed: %d", events.size(), requestedDetails, receivedDetails, skippedDetails,
+                refreshedPending.size());
     }
 }
\ No newline at end of file
@@ -0,0 +1,144 @@
+package de.hibiscus.tr.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventArchiveTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testItemsAndDetailsAreArchivedByMonth() throws Exception {
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            put(archive, "b", "2024-02-03T10:00:00.000+0000", "PENDING");
+            put(archive, "a", "2024-01-15T10:00:00.000+0000", "EXECUTED");
+            archive.putDetails("a", objectMapper.readTree("{\"sections\":[{\"title\":\"Übersicht\"}]}"));
+        }
+        
+        assertTrue(Files.exists(tempDir.resolve("archive/2024-01/segment-00001.ndjson")));
+        assertTrue(Files.exists(tempDir.resolve("archive/2024-02/segment-00001.ndjson")));
+        
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            assertEquals(2, archive.size());
+            assertTrue(archive.hasDetails("a"));
+            assertFalse(archive.hasDetails("b"));
+            assertEquals(Arrays.asList("a", "b"), archive.idsBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+            assertEquals(Arrays.asList("b"), archive.idsBetween(event("x", "2024-02-01T00:00:00.000+0000", null).getEpochMillis(), Long.MAX_VALUE));
+            
+            List<TransactionEvent> events = archive.loadEvents(0);
+            assertEquals("a", events.get(0).getId());
+            assertEquals(-1250, events.get(0).getAmount().getMinorUnits());
+            assertEquals("Übersicht", events.get(0).getDetails().path("sections").path(0).path("title").asText());
+            assertNull(events.get(1).getDetails());
+        }
+    }
+    
+    @Test
+    void testUnchangedRecordsAreNotAppendedAgain() throws Exception {
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            put(archive, "a", "2024-01-15T10:00:00.000+0000", "PENDING");
+        }
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            put(archive, "a", "2024-01-15T10:00:00.000+0000", "PENDING");
+        }
+        assertEquals(1, Files.readAllLines(tempDir.resolve("archive").resolve(EventArchive.INDEX_FILE)).size());
+        
+        // A changed item is appended and replaces the earlier one
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            put(archive, "a", "2024-01-15T10:00:00.000+0000", "EXECUTED");
+            assertEquals("EXECUTED", archive.getItem("a").path("status").asText());
+        }
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            assertEquals(1, archive.size());
+            assertEquals("EXECUTED", archive.loadEvents(0).get(0).getStatus());
+        }
+    }
+    
+    @Test
+    void testQueryUsesSecondaryIndexes() throws Exception {
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            putTyped(archive, "div-1", "2024-03-01T10:00:00.000+0000", "CREDIT", "Apple");
+            putTyped(archive, "div-2", "2023-03-01T10:00:00.000+0000", "CREDIT", "Apple");
+            putTyped(archive, "div-3", "2024-06-01T10:00:00.000+0000", "CREDIT", "Microsoft");
+            putTyped(archive, "card-1", "2024-02-01T10:00:00.000+0000", "card_successful_transaction", "REWE");
+            putTyped(archive, "card-2", "2024-01-01T10:00:00.000+0000", "card_successful_transaction", "Rewe");
+            archive.putDetails("div-1", isinDetails("US0378331005"));
+            archive.putDetails("div-2", isinDetails("US0378331005"));
+            archive.putDetails("div-3", isinDetails("US5949181045"));
+        }
+        
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            ArchiveQuery dividends = new ArchiveQuery();
+            dividends.setEventType("CREDIT");
+            dividends.setIsin("US0378331005");
+            dividends.setFromMillis(event("x", "2024-01-01T00:00:00.000+0000", null).getEpochMillis());
+            dividends.setToMillis(event("x", "2025-01-01T00:00:00.000+0000", null).getEpochMillis());
+            assertEquals(Arrays.asList("div-1"), archive.query(dividends));
+            assertEquals("US0378331005", archive.getIsin("div-1"));
+            
+            ArchiveQuery merchant = new ArchiveQuery();
+            merchant.setCounterparty("rewe");
+            assertEquals(Arrays.asList("card-2", "card-1"), archive.query(merchant));
+            
+            ArchiveQuery unknown = new ArchiveQuery();
+            unknown.setIsin("DE0000000000");
+            assertTrue(archive.query(unknown).isEmpty());
+        }
+    }
+    
+    @Test
+    void testIncompleteIndexLineIsIgnored() throws Exception {
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            put(archive, "a", "2024-01-15T10:00:00.000+0000", "EXECUTED");
+        }
+        Files.write(tempDir.resolve("archive").resolve(EventArchive.INDEX_FILE), "b\t17".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        
+        try (EventArchive archive = EventArchive.open(tempDir)) {
+            assertEquals(1, archive.size());
+            assertTrue(archive.contains("a"));
+            assertFalse(archive.contains("b"));
+        }
+    }
+    
+    private void put(EventArchive archive, String id, String timestamp, String status) throws Exception {
+        TransactionEvent event = event(id, timestamp, status);
+        JsonNode item = objectMapper.readTree("{\"id\":\"" + id + "\",\"timestamp\":\"" + timestamp + "\",\"title\":\"REWE\","
+                + "\"status\":\"" + status + "\",\"amount\":{\"value\":-12.5,\"currency\":\"EUR\"}}");
+        archive.putItem(event, item);
+    }
+    
+    private void putTyped(EventArchive archive, String id, String timestamp, String eventType, String title) throws Exception {
+        TransactionEvent event = event(id, timestamp, "EXECUTED");
+        event.setEventType(eventType);
+        event.setTitle(title);
+        archive.putItem(event, objectMapper.valueToTree(event));
+    }
+    
+    private JsonNode isinDetails(String isin) throws Exception {
+        return objectMapper.readTree("{\"sections\":[{\"type\":\"header\",\"action\":{\"payload\":\"" + isin + "\"}}]}");
+    }
+    
+    private static TransactionEvent event(String id, String timestamp, String status) {
+        TransactionEvent event = new TransactionEvent();
+        event.setId(id);
+        event.setTimestamp(timestamp);
+        event.setStatus(status);
+        return event;
+    }
+}
\ No newline at end of file
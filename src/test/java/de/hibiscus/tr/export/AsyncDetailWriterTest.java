@@ -0,0 +1,123 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncDetailWriterTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    void testFilesFormatWritesOneFilePerEntry() throws Exception {
+        try (AsyncDetailWriter writer = new AsyncDetailWriter(tempDir, AsyncDetailWriter.Format.FILES)) {
+            writer.submit("_id-1", Map.of("id", "id-1"), false);
+            writer.submit("debug/transaction_id-1.json", Map.of("id", "id-1"), true);
+        }
+        
+        assertEquals("{\"id\":\"id-1\"}", Files.readString(tempDir.resolve("_id-1")));
+        assertEquals("id-1", objectMapper.readTree(tempDir.resolve("debug/transaction_id-1.json").toFile()).get("id").asText());
+    }
+    
+    @Test
+    void testFullQueueWaitsInsteadOfDropping() throws Exception {
+        int count = AsyncDetailWriter.QUEUE_CAPACITY + 5000;
+        try (AsyncDetailWriter writer = new AsyncDetailWriter(tempDir, AsyncDetailWriter.Format.FILES)) {
+            for (int i = 0; i < count; i++) {
+                writer.submit("debug/transaction_id-" + i + ".json", Map.of("id", "id-" + i), false);
+            }
+        }
+        
+        try (Stream<Path> files = Files.list(tempDir.resolve("debug"))) {
+            assertEquals(count, files.count());
+        }
+    }
+    
+    @Test
+    void testFailingValueDoesNotStopWriter() throws Exception {
+        Path target;
+        try (AsyncDetailWriter writer = new AsyncDetailWriter(tempDir, AsyncDetailWriter.Format.ZIP)) {
+            writer.submit("_broken", new Unserializable(), false);
+            writer.submit("_id-1", Map.of("id", "id-1"), false);
+            target = writer.getTarget("_id-1");
+        }
+        
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(target))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        assertEquals(List.of("_id-1"), names);
+    }
+    
+    @Test
+    void testSubmitAfterCloseFails() {
+        AsyncDetailWriter writer = new AsyncDetailWriter(tempDir, AsyncDetailWriter.Format.NDJSON);
+        writer.close();
+        
+        assertThrows(IllegalStateException.class, () -> writer.submit("_id-1", Map.of("id", "id-1"), false));
+    }
+    
+    @Test
+    void testNdjsonFormatWritesOneLinePerEntry() throws Exception {
+        Path target;
+        try (AsyncDetailWriter writer = new AsyncDetailWriter(tempDir, AsyncDetailWriter.Format.NDJSON)) {
+            for (int i = 0; i < 100; i++) {
+                writer.submit("_id-" + i, Map.of("id", "id-" + i), true);
+            }
+            target = writer.getTarget("_id-0");
+        }
+        
+        List<String> lines = Files.readAllLines(target);
+        assertEquals(100, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertEquals("_id-0", first.get("name").asText());
+        assertEquals("id-0", first.get("value").get("id").asText());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+    
+    @Test
+    void testZipFormatKeepsRepeatedNames() throws Exception {
+        Path target;
+        try (AsyncDetailWriter writer = new AsyncDetailWriter(tempDir, AsyncDetailWriter.Format.ZIP)) {
+            writer.submit("debug/all_transactions_summary.json", Map.of("run", 1), true);
+            writer.submit("debug/all_transactions_summary.json", Map.of("run", 2), true);
+            target = writer.getTarget("debug/all_transactions_summary.json");
+        }
+        
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(target))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        assertEquals(List.of("debug/all_transactions_summary.json", "debug/all_transactions_summary-2.json"), names);
+    }
+    
+    /**
+     * Value whose serialization fails with a runtime exception
+     */
+    public static class Unserializable {
+        public String getValue() {
+            throw new IllegalStateException("not serializable");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,59 @@
+package de.hibiscus.tr.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testNoFalseNegativesAndLowFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10000);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(key("known-" + i));
+        }
+        
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain(key("known-" + i)));
+        }
+        
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(key("new-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "False positives: " + falsePositives);
+    }
+    
+    @Test
+    void testWriteAndRead() throws Exception {
+        BloomFilter filter = BloomFilter.create(100);
+        filter.put(key("a"));
+        filter.put(key("b"));
+        Path file = tempDir.resolve("filter.bloom");
+        filter.write(file);
+        
+        BloomFilter read = BloomFilter.read(file);
+        assertNotNull(read);
+        assertEquals(2, read.getEntryCount());
+        assertTrue(read.mightContain(key("a")));
+        assertTrue(read.mightContain(key("b")));
+        
+        Files.writeString(file, "garbage");
+        assertNull(BloomFilter.read(file));
+        assertNull(BloomFilter.read(tempDir.resolve("missing.bloom")));
+    }
+    
+    private static byte[] key(String id) {
+        return id.getBytes(StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
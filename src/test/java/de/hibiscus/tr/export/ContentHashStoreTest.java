@@ -0,0 +1,75 @@
+package de.hibiscus.tr.export;
+
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashStoreTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testHashCoversStatusAmountDateAndCounterparty() {
+        TransactionEvent event = event();
+        long hash = ContentHashStore.hash(event);
+        assertEquals(hash, ContentHashStore.hash(event()));
+        
+        event.setStatus("EXECUTED");
+        assertNotEquals(hash, ContentHashStore.hash(event));
+        event = event();
+        event.getAmount().setValue(-8.00);
+        assertNotEquals(hash, ContentHashStore.hash(event));
+        event = event();
+        event.setTimestamp("2024-01-02T12:00:00.000+0000");
+        assertNotEquals(hash, ContentHashStore.hash(event));
+        event = event();
+        event.setTitle("EDEKA");
+        assertNotEquals(hash, ContentHashStore.hash(event));
+        
+        long checksum = ContentHashStore.checksum(event);
+        assertTrue(checksum >= 0 && String.valueOf(checksum).length() <= 16);
+    }
+    
+    @Test
+    void testHashesArePersistedOnSave() throws Exception {
+        ContentHashStore store = ContentHashStore.open(tempDir);
+        TransactionEvent event = event();
+        assertFalse(store.isUnchanged(event));
+        store.put(event);
+        store.put(otherEvent());
+        store.remove("other-id");
+        store.save();
+        assertTrue(Files.exists(tempDir.resolve(ContentHashStore.FILE)));
+        
+        ContentHashStore reopened = ContentHashStore.open(tempDir);
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.isUnchanged(event));
+        event.setStatus("EXECUTED");
+        assertFalse(reopened.isUnchanged(event));
+    }
+    
+    private static TransactionEvent event() {
+        TransactionEvent event = new TransactionEvent();
+        event.setId("pending-id");
+        event.setTitle("REWE");
+        event.setTimestamp("2024-01-01T12:00:00.000+0000");
+        event.setStatus("PENDING");
+        TransactionEvent.Amount amount = new TransactionEvent.Amount();
+        amount.setValue(-7.99);
+        amount.setCurrency("EUR");
+        event.setAmount(amount);
+        return event;
+    }
+    
+    private static TransactionEvent otherEvent() {
+        TransactionEvent event = event();
+        event.setId("other-id");
+        return event;
+    }
+}
\ No newline at end of file
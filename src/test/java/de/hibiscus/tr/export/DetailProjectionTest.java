@@ -0,0 +1,82 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetailProjectionTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testProjectedExportMatchesRawExport() throws Exception {
+        List<TransactionEvent> raw = readFixture();
+        List<TransactionEvent> projected = readFixture();
+        DetailProjection projection = HibiscusExporter.detailProjection(FieldMapping.builtIn());
+        int rawNodes = 0;
+        int projectedNodes = 0;
+        for (TransactionEvent event : projected) {
+            rawNodes += countNodes(event.getDetails());
+            event.setDetails(projection.apply(event.getDetails()));
+            projectedNodes += countNodes(event.getDetails());
+        }
+        
+        assertEquals(export(raw, tempDir.resolve("raw")), export(projected, tempDir.resolve("projected")));
+        assertTrue(projectedNodes < rawNodes, projectedNodes + " < " + rawNodes);
+    }
+    
+    @Test
+    void testOnlyRequestedFieldsAreKept() throws Exception {
+        JsonNode details = new ObjectMapper().readTree("{\"sections\":["
+                + "{\"type\":\"header\",\"title\":\"Kauf\",\"icon\":\"logos/x.png\",\"action\":{\"type\":\"instrumentDetail\",\"payload\":\"US0378331005\"}},"
+                + "{\"title\":\"Übersicht\",\"data\":["
+                + "{\"title\":\"Status\",\"detail\":{\"text\":\"Ausgeführt\",\"functionalStyle\":\"EXECUTED\",\"icon\":\"x\"}},"
+                + "{\"title\":\"Asset\",\"detail\":{\"text\":\"Apple\",\"action\":{\"type\":\"x\"}}}]},"
+                + "{\"title\":\"Übersicht\",\"data\":[{\"title\":\"Status\",\"detail\":{\"text\":\"ignored\"}}]},"
+                + "{\"title\":\"Dokumente\",\"data\":[{\"title\":\"Abrechnung\",\"detail\":{\"text\":\"01.01.2024\",\"action\":{}}}]}]}");
+        
+        DetailProjection projection = new DetailProjection()
+                .keepHeaderIsin()
+                .keepItemField("Übersicht", "Status", "functionalStyle");
+        
+        assertEquals("{\"sections\":[{\"type\":\"header\",\"action\":{\"payload\":\"US0378331005\"}},"
+                + "{\"title\":\"Übersicht\",\"data\":[{\"title\":\"Status\",\"detail\":{\"functionalStyle\":\"EXECUTED\"}}]}]}",
+                projection.apply(details).toString());
+    }
+    
+    private List<TransactionEvent> readFixture() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/timeline-events.json")) {
+            return new ObjectMapper().readValue(in, new TypeReference<List<TransactionEvent>>() {});
+        }
+    }
+    
+    private String export(List<TransactionEvent> events, Path dir) throws Exception {
+        new HibiscusExporter(dir, true, false, false).exportTransactions(events);
+        try (Stream<Path> files = Files.list(dir)) {
+            return Files.readString(files.filter(p -> p.getFileName().toString().endsWith(".xml")).findFirst().orElseThrow());
+        }
+    }
+    
+    private int countNodes(JsonNode node) {
+        if (node == null) {
+            return 0;
+        }
+        int count = 1;
+        for (JsonNode child : node) {
+            count += countNodes(child);
+        }
+        return count;
+    }
+}
\ No newline at end of file
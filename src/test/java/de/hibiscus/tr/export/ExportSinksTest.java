@@ -0,0 +1,217 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExportSinksTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testAllFormatsAreDiscovered() {
+        assertEquals(List.of("camt053", "csv", "hibiscus", "mt940"), List.copyOf(ExportSinks.available().keySet()));
+        assertThrows(IllegalArgumentException.class, () -> ExportSinks.get("qif"));
+    }
+    
+    @Test
+    void testOneExportWritesAllFormats() throws Exception {
+        List<TransactionEvent> events;
+        try (InputStream in = getClass().getResourceAsStream("/timeline-events.json")) {
+            events = new ObjectMapper().readValue(in, new TypeReference<List<TransactionEvent>>() {});
+        }
+        
+        HibiscusExporter exporter = new HibiscusExporter(tempDir, true, false, false);
+        exporter.setFormats(List.of("hibiscus", "csv", "camt053", "mt940"));
+        exporter.exportTransactions(events);
+        
+        Document hibiscus = parse(find(".xml", "hibiscus-"));
+        int objects = hibiscus.getElementsByTagName("object").getLength();
+        int pending = 0;
+        for (int i = 0; i < objects; i++) {
+            if (((Element) hibiscus.getElementsByTagName("object").item(i)).getElementsByTagName("flags").getLength() > 0) {
+                pending++;
+            }
+        }
+        assertTrue(objects > 0);
+        
+        // Comments may span several lines inside quotes, records start with the booking date
+        List<String> csv = Files.readAllLines(find(".csv", "transactions-"), StandardCharsets.UTF_8);
+        assertEquals(objects, csv.stream().filter(line -> line.matches("\\d{4}-\\d{2}-\\d{2};.*")).count());
+        
+        Document camt = parse(find(".xml", "camt053-"));
+        assertEquals(objects, camt.getElementsByTagName("Ntry").getLength());
+        assertEquals(pending, count(camt, "Sts", "PDNG"));
+        
+        List<String> mt940 = Files.readAllLines(find(".sta", "mt940-"), StandardCharsets.ISO_8859_1);
+        assertEquals(objects - pending, mt940.stream().filter(line -> line.startsWith(":61:")).count());
+        assertEquals("-", mt940.get(mt940.size() - 1));
+    }
+    
+    @Test
+    void testCsvQuotesSpecialCharacters() throws Exception {
+        ExportContext context = new ExportContext(tempDir, "test", false, 0);
+        try (CsvSink sink = new CsvSink(context)) {
+            sink.write(new ExportRecord(event("e-1", "2024-03-05T10:15:30.000+0000", -12.5), "DE02120300000000202051",
+                    "Müller; Söhne", "Rechnung \"42\"", -1250, false, "line1\nline2\n"));
+        }
+        
+        String content = Files.readString(context.resolveFile("transactions", "csv"), StandardCharsets.UTF_8);
+        assertTrue(content.startsWith("\uFEFFDatum;Zeitstempel;"));
+        assertTrue(content.contains("\r\n2024-03-05;2024-03-05T10:15:30.000+0000;\"Müller; Söhne\";DE02120300000000202051;"
+                + "\"Rechnung \"\"42\"\"\";TEST;-12.50;EUR;EXECUTED;\"line1\nline2\";e-1\r\n"));
+    }
+    
+    @Test
+    void testCamt053BalancesAndReferenceLengths() throws Exception {
+        ExportContext context = new ExportContext(tempDir, "2024-06-01T10.00.00", false, 0);
+        String id = "d1a7c3e0-0001-4c1e-9c1a-000000000001";
+        try (Camt053Sink sink = new Camt053Sink(context)) {
+            sink.write(new ExportRecord(event(id, "2024-03-05T10:15:30.000+0000", 100), "DE02120300000000202051",
+                    "Max Mustermann", "Miete", 10000, false, ""));
+            sink.write(new ExportRecord(event("e-2", "2024-03-06T08:00:00.000+0000", -30.25), "", "REWE", "", -3025, false, ""));
+            sink.write(new ExportRecord(event("e-3", "2024-03-07T08:00:00.000+0000", -5), "", "Pending", "", -500, true, ""));
+        }
+        
+        Path file = context.resolveFile("camt053", "xml");
+        Document camt = parse(file);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+        
+        // Balances precede the entries: zero opening balance, closing balance over the booked entries
+        List<String> statement = new ArrayList<>();
+        for (Node child = camt.getElementsByTagName("Stmt").item(0).getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                statement.add(child.getNodeName());
+            }
+        }
+        assertEquals(List.of("Id", "CreDtTm", "Acct", "Bal", "Bal", "Ntry", "Ntry", "Ntry"), statement);
+        assertEquals(List.of("OPBD", "0.00", "CRDT", "2024-03-05"), balance(camt, 0));
+        assertEquals(List.of("CLBD", "69.75", "CRDT", "2024-03-06"), balance(camt, 1));
+        
+        // Max35Text elements
+        for (String tag : List.of("MsgId", "Id", "AcctSvcrRef", "Cd", "Issr")) {
+            for (int i = 0; i < camt.getElementsByTagName(tag).getLength(); i++) {
+                assertTrue(camt.getElementsByTagName(tag).item(i).getTextContent().trim().length() <= 35, tag);
+            }
+        }
+        assertEquals("d1a7c3e000014c1e9c1a000000000001", camt.getElementsByTagName("AcctSvcrRef").item(0).getTextContent());
+        assertEquals("Trade Republic ID " + id, camt.getElementsByTagName("AddtlTxInf").item(0).getTextContent());
+    }
+    
+    @Test
+    void testMt940BalancesAndStructuredDetails() throws Exception {
+        ExportContext context = new ExportContext(tempDir, "2024-06-01T10.00.00", false, 0);
+        try (Mt940Sink sink = new Mt940Sink(context)) {
+            sink.write(new ExportRecord(event("e-1", "2024-03-05T10:15:30.000+0000", 100), "DE02120300000000202051",
+                    "Max Mustermann", "Miete März? 5€", 10000, false, ""));
+            sink.write(new ExportRecord(event("e-2", "2024-03-06T08:00:00.000+0000", -30.25), "", "REWE", "", -3025, false, ""));
+            sink.write(new ExportRecord(event("e-3", "2024-03-07T08:00:00.000+0000", -5), "", "Pending", "", -500, true, ""));
+        }
+        
+        List<String> lines = Files.readAllLines(context.resolveFile("mt940", "sta"), StandardCharsets.ISO_8859_1);
+        assertEquals(List.of(
+                ":20:TR20240601100000",
+                ":25:TRADEREPUBLIC",
+                ":28C:00001",
+                ":60F:C240305EUR0,00",
+                ":61:2403050305C100,00NTRFNONREF",
+                ":86:051?00TEST?20Miete März  5EUR?31DE02120300000000202051",
+                "?32Max Mustermann",
+                ":61:2403060306D30,25NTRFNONREF",
+                ":86:020?00TEST?32REWE",
+                ":62F:C240306EUR69,75",
+                "-"), lines);
+    }
+    
+    @Test
+    void testMt940DetailsStayWithinSixLines() throws Exception {
+        ExportContext context = new ExportContext(tempDir, "2024-06-01T10.00.00", false, 0);
+        String purpose = "Rechnung 2024-0815 Abschlag Strom und Gas fuer die Wohnung in der Musterstrasse 12, "
+                .repeat(4);
+        String name = "Hausverwaltung Beispiel GmbH und Co. KG Musterstadt";
+        try (Mt940Sink sink = new Mt940Sink(context)) {
+            sink.write(new ExportRecord(event("e-1", "2024-03-05T10:15:30.000+0000", -850), "DE75512108001245126199",
+                    name, purpose, -85000, false, ""));
+        }
+        
+        List<String> lines = Files.readAllLines(context.resolveFile("mt940", "sta"), StandardCharsets.ISO_8859_1);
+        int first = lines.indexOf(lines.stream().filter(line -> line.startsWith(":86:")).findFirst().orElseThrow());
+        List<String> details = lines.subList(first, lines.size() - 2);
+        assertTrue(details.size() <= 6, details.toString());
+        for (int i = 0; i < details.size(); i++) {
+            assertTrue(details.get(i).length() <= 65, details.get(i));
+            // Continuation lines start with a complete subfield tag
+            assertTrue(i == 0 || details.get(i).matches("\\?\\d\\d.*"), details.get(i));
+        }
+        String joined = String.join("", details);
+        assertTrue(joined.contains("?20Rechnung 2024-0815 Abschlag?21"));
+        assertTrue(joined.contains("?31DE75512108001245126199"));
+        assertTrue(joined.contains("?32Hausverwaltung Beispiel Gmb?33H und Co. KG Musterstadt"));
+        assertFalse(joined.contains("?29"));
+    }
+    
+    private TransactionEvent event(String id, String timestamp, double value) {
+        TransactionEvent event = new TransactionEvent();
+        event.setId(id);
+        event.setTimestamp(timestamp);
+        event.setEventType("TEST");
+        TransactionEvent.Amount amount = new TransactionEvent.Amount();
+        amount.setValue(value);
+        amount.setCurrency("EUR");
+        event.setAmount(amount);
+        return event;
+    }
+    
+    private Path find(String extension, String prefix) throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            List<Path> matches = files.filter(p -> p.getFileName().toString().startsWith(prefix)
+                    && p.getFileName().toString().endsWith(extension)).collect(Collectors.toList());
+            assertEquals(1, matches.size(), "files " + prefix + "*" + extension);
+            return matches.get(0);
+        }
+    }
+    
+    private Document parse(Path file) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(file.toFile());
+    }
+    
+    private List<String> balance(Document doc, int index) {
+        Element balance = (Element) doc.getElementsByTagName("Bal").item(index);
+        return List.of(balance.getElementsByTagName("Cd").item(0).getTextContent(),
+                balance.getElementsByTagName("Amt").item(0).getTextContent(),
+                balance.getElementsByTagName("CdtDbtInd").item(0).getTextContent(),
+                balance.getElementsByTagName("Dt").item(1).getTextContent());
+    }
+    
+    private int count(Document doc, String tag, String text) {
+        int count = 0;
+        for (int i = 0; i < doc.getElementsByTagName(tag).getLength(); i++) {
+            if (text.equals(doc.getElementsByTagName(tag).item(i).getTextContent())) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
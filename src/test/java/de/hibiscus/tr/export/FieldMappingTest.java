@@ -0,0 +1,80 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldMappingTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    @Test
+    void testBuiltInMappingFallsBackToDefaultColumns() throws Exception {
+        TransactionEvent event = cardEvent();
+        FieldMapping.EventMapping mapping = FieldMapping.builtIn().forEventType(event.getEventType());
+        
+        assertEquals("REWE Markt GmbH", mapping.getColumn("empfaenger_name", event));
+        assertEquals("REWE Markt", mapping.getColumn("zweck", event));
+        assertNull(mapping.getColumn("empfaenger_konto", event));
+        assertNull(mapping.getAmountInPurpose());
+        assertEquals("", mapping.buildComment(event));
+    }
+    
+    @Test
+    void testMappingFileAddsEventTypeWithoutCodeChanges() throws Exception {
+        Path file = tempDir.resolve("mapping.json");
+        Files.writeString(file, "{"
+                + "\"columns\": { \"zweck\": [ { \"event\": \"title\" } ] },"
+                + "\"events\": { \"card_successful_transaction\": {"
+                + "  \"columns\": { \"zweck\": [ { \"section\": \"Übersicht\", \"item\": \"Händler\" } ] },"
+                + "  \"comment\": ["
+                + "    { \"label\": \"Karte\", \"section\": \"Übersicht\", \"item\": \"Karte\" },"
+                + "    { \"label\": \"Status\", \"section\": \"Übersicht\", \"item\": \"Status\", \"field\": \"functionalStyle\" },"
+                + "    { \"text\": \"Beleg verfügbar\", \"section\": \"Dokumente\", \"item\": \"Beleg\" }"
+                + "  ] } } }");
+        
+        FieldMapping fieldMapping = FieldMapping.load(file);
+        TransactionEvent event = cardEvent();
+        FieldMapping.EventMapping mapping = fieldMapping.forEventType(event.getEventType());
+        
+        assertEquals("REWE Markt GmbH", mapping.getColumn("zweck", event));
+        assertEquals("Karte: •••• 1234\nStatus: EXECUTED\n", mapping.buildComment(event));
+        assertEquals("REWE Markt", fieldMapping.forEventType("OTHER").getColumn("zweck", event));
+    }
+    
+    @Test
+    void testInvalidMappingReportsAllErrors() throws Exception {
+        Path file = tempDir.resolve("invalid.json");
+        Files.writeString(file, "{ \"events\": { \"X\": { \"comment\": ["
+                + "{ \"section\": \"Übersicht\", \"item\": \"Status\" },"
+                + "{ \"label\": \"ISIN\", \"header\": \"wkn\" } ] } } }");
+        
+        ValidationException e = assertThrows(ValidationException.class, () -> FieldMapping.load(file));
+        assertEquals(2, e.getValidationErrors().size());
+        assertTrue(e.getValidationErrors().get(0).startsWith("events.X.comment[0]"));
+        assertTrue(e.getValidationErrors().get(1).contains("wkn"));
+    }
+    
+    private TransactionEvent cardEvent() throws Exception {
+        TransactionEvent event = new TransactionEvent();
+        event.setId("card-1");
+        event.setTitle("REWE Markt");
+        event.setEventType("card_successful_transaction");
+        event.setDetails(objectMapper.readTree("{ \"sections\": [ { \"title\": \"Übersicht\", \"data\": ["
+                + "{ \"title\": \"Händler\", \"detail\": { \"text\": \"REWE Markt GmbH\" } },"
+                + "{ \"title\": \"Karte\", \"detail\": { \"text\": \"•••• 1234\" } },"
+                + "{ \"title\": \"Status\", \"detail\": { \"text\": \"Ausgeführt\", \"functionalStyle\": \"EXECUTED\" } }"
+                + "] } ] }"));
+        return event;
+    }
+}
\ No newline at end of file
@@ -1,14 +1,30 @@
 package de.hibiscus.tr.export;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.hibiscus.tr.model.TransactionEvent;
+import de.hibiscus.tr.model.TransactionStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -73,4 +89,266 @@ class HibiscusExporterTest {
         // Check if XML file was created (note: without proper details, transaction might be filtered out)
         // This is more of a smoke test to ensure no exceptions are thrown
     }
+    
+    @Test
+    void testExportExecutedTransactionWritesUtf8Xml() throws Exception {
+        TransactionEvent event = new TransactionEvent();
+        event.setId("executed-id");
+        event.setTitle("Bäckerei Müller");
+        event.setTimestamp("2024-01-01T12:00:00.000+0000");
+        event.setEventType("card_successful_transaction");
+        event.setStatus("EXECUTED");
+        
+        TransactionEvent.Amount amount = new TransactionEvent.Amount();
+        amount.setValue(-12.5);
+        amount.setCurrency("EUR");
+        event.setAmount(amount);
+        
+        exporter.exportTransactions(Arrays.asList(event));
+        
+        List<Path> xmlFiles;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            xmlFiles = files.filter(p -> p.getFileName().toString().endsWith(".xml")).collect(Collectors.toList());
+        }
+        assertEquals(1, xmlFiles.size());
+        
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlFiles.get(0).toFile());
+        assertEquals("objects", doc.getDocumentElement().getTagName());
+        
+        NodeList objects = doc.getElementsByTagName("object");
+        assertEquals(1, objects.getLength());
+        Element object = (Element) objects.item(0);
+        assertEquals("0", object.getAttribute("id"));
+        assertEquals("de.willuhn.jameica.hbci.server.UmsatzImpl", object.getAttribute("type"));
+        assertEquals("01.01.2024 12:00:00", object.getElementsByTagName("datum").item(0).getTextContent());
+        assertEquals("Bäckerei Müller", object.getElementsByTagName("zweck").item(0).getTextContent());
+        assertEquals("java.lang.Double", ((Element) object.getElementsByTagName("betrag").item(0)).getAttribute("type"));
+        assertEquals("", object.getElementsByTagName("primanota").item(0).getTextContent());
+    }
+    
+    @Test
+    void testExportsWithinOneSecondWriteSeparateFiles() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            TransactionEvent event = new TransactionEvent();
+            event.setId("delta-" + i);
+            event.setTitle("REWE");
+            event.setTimestamp("2024-01-01T12:00:0" + i + ".000+0000");
+            event.setEventType("card_successful_transaction");
+            event.setStatus("EXECUTED");
+            TransactionEvent.Amount amount = new TransactionEvent.Amount();
+            amount.setValue(-1.0 - i);
+            amount.setCurrency("EUR");
+            event.setAmount(amount);
+            exporter.exportTransactions(Arrays.asList(event));
+        }
+        
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(3, files.filter(p -> p.getFileName().toString().endsWith(".xml")).count());
+        }
+    }
+    
+    @Test
+    void testUnchangedPendingTransactionIsSkipped() throws Exception {
+        TransactionEvent event = new TransactionEvent();
+        event.setId("pending-id");
+        event.setTitle("REWE");
+        event.setTimestamp("2024-01-01T12:00:00.000+0000");
+        event.setEventType("card_successful_transaction");
+        event.setStatus("PENDING");
+        TransactionEvent.Amount amount = new TransactionEvent.Amount();
+        amount.setValue(-7.99);
+        amount.setCurrency("EUR");
+        event.setAmount(amount);
+        
+        HibiscusExporter first = new HibiscusExporter(tempDir, true, false, false);
+        assertTrue(first.needsDetails(event));
+        first.exportTransactions(Arrays.asList(event));
+        
+        Path xmlFile;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            xmlFile = files.filter(p -> p.getFileName().toString().endsWith(".xml")).findFirst().orElseThrow();
+        }
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlFile.toFile());
+        assertEquals(String.valueOf(ContentHashStore.checksum(event)),
+                doc.getElementsByTagName("checksum").item(0).getTextContent());
+        
+        // Next run: same content is skipped, a status change is processed again
+        HibiscusExporter second = new HibiscusExporter(tempDir, true, false, false);
+        assertFalse(second.needsDetails(event));
+        event.setStatus("EXECUTED");
+        assertTrue(second.needsDetails(event));
+    }
+    
+    @Test
+    void testSkippedPendingTransactionIsNotFetchedAgain() throws Exception {
+        TransactionEvent event = new TransactionEvent();
+        event.setId("pending-id");
+        event.setTitle("REWE");
+        event.setTimestamp("2024-01-01T12:00:00.000+0000");
+        event.setEventType("card_successful_transaction");
+        event.setStatus("PENDING");
+        TransactionEvent.Amount amount = new TransactionEvent.Amount();
+        amount.setValue(-7.99);
+        amount.setCurrency("EUR");
+        event.setAmount(amount);
+        
+        HibiscusExporter first = new HibiscusExporter(tempDir, false, false, false);
+        assertTrue(first.needsDetails(event));
+        first.exportTransactions(Arrays.asList(event));
+        
+        // Next run without pending: no refetch until the content changes
+        HibiscusExporter second = new HibiscusExporter(tempDir, false, false, false);
+        assertFalse(second.needsDetails(event));
+        event.setStatus("EXECUTED");
+        assertTrue(second.needsDetails(event));
+        event.setStatus("PENDING");
+        
+        // Including pending transactions later still exports it
+        HibiscusExporter withPending = new HibiscusExporter(tempDir, true, false, false);
+        assertTrue(withPending.needsDetails(event));
+    }
+    
+    @Test
+    void testFixtureColumns() throws Exception {
+        List<Element> objects = exportFixture();
+        assertEquals(8, objects.size());
+        
+        // Sorted chronologically: legacy, dividend, savings plan, saveback, interest, card, transfer, pending card
+        assertColumns(objects.get(0), "10.06.2021 13:45:00", "", "", "Tesla", "timeline_legacy_migrated_events", "-1001.00");
+        assertColumns(objects.get(1), "15.02.2024 09:12:44", "", "", "Apple", "ssp_corporate_action_invoice_cash", "12.34");
+        assertColumns(objects.get(2), "02.03.2024 07:30:10", "", "", "iShares Core MSCI World", "trading_savingsplan_executed", "-50.00");
+        assertColumns(objects.get(3), "04.03.2024 08:00:00", "", "", "iShares Core MSCI World - " + String.format("Saveback %.2f €", 4.56),
+                "benefits_saveback_execution", "0.00");
+        assertColumns(objects.get(4), "01.04.2024 06:00:00", "", "", "Zinsen", "INTEREST_PAYOUT", "7.89");
+        assertColumns(objects.get(5), "20.05.2024 17:02:33", "", "REWE Markt GmbH", "REWE Markt", "card_successful_transaction", "-23.47");
+        assertColumns(objects.get(6), "21.05.2024 10:15:00", "DE02120300000000202051", "Max Mustermann", "Miete Mai",
+                "INCOMING_TRANSFER_DELEGATION", "250.00");
+        assertColumns(objects.get(7), "22.05.2024 19:40:00", "", "Lieferando", "Lieferando", "card_successful_transaction", "-18.90");
+        
+        assertEquals(0, objects.get(6).getElementsByTagName("flags").getLength());
+        assertEquals("2", text(objects.get(7), "flags"));
+    }
+    
+    @Test
+    void testFixtureComments() throws Exception {
+        List<Element> objects = exportFixture();
+        
+        assertEquals("Status: Ausgeführt\nOrderart: Kauf\nAsset: Tesla\nISIN: US88160R1014\nAnteile: 2\n"
+                + "Aktienkurs: 500,00 €\nGebühr: 1,00 €\nGesamt: 1.001,00 €\nAbrechnungen: 2\n"
+                + "Basisinformationsblätter: 1\nKosteninformationen: 1", text(objects.get(0), "kommentar"));
+        assertEquals("Event: Bardividende\nWertpapier: Apple\nISIN: US0378331005\nAktien: 10\n"
+                + "Dividende pro Aktie: 0,24 $\nSteuer: 1,00 €\nGesamt: 12,34 €\nDokumentdatum: 15.02.2024",
+                text(objects.get(1), "kommentar"));
+        assertEquals("Sparplan: Ausgeführt\nZahlung: Lastschrift\nAsset: iShares Core MSCI World\nISIN: IE00B4L5Y983\n"
+                + "Aktien: 0,583\nAktienkurs: 85,70 €\nTransaktionssumme: 50,00 €\nGebühr: Kostenlos\n"
+                + "Summe: 50,00 €\nHäufigkeit: Monatlich", text(objects.get(2), "kommentar"));
+        assertEquals("Saveback: Ausgeführt\nAsset: iShares Core MSCI World\nISIN: IE00B4L5Y983\nAktien: 0,053\n"
+                + "Aktienkurs: 86,03 €\nGebühr: Kostenlos\nGesamt: 4,56 €\nAbrechnung verfügbar\n"
+                + "Kosteninformation verfügbar", text(objects.get(3), "kommentar"));
+        assertEquals("Status: Ausgeführt\nDurchschnittssaldo: 4.734,00 €\nJährliche Rate: 2,00 %\nAsset: Euro\n"
+                + "Angesammelt: 10,72 €\nSteuern: 2,83 €\nGesamt: 7,89 €\nAbrechnung verfügbar",
+                text(objects.get(4), "kommentar"));
+        assertEquals(0, objects.get(5).getElementsByTagName("kommentar").getLength());
+    }
+    
+    @Test
+    void testParallelRenderKeepsChronologicalOrder() throws Exception {
+        List<TransactionEvent> events = new ArrayList<>();
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        for (int i = 0; i < 5000; i++) {
+            TransactionEvent event = new TransactionEvent();
+            event.setId("event-" + i);
+            event.setTitle("Transaction " + i);
+            event.setTimestamp(base.plusSeconds(i * 60L).toString().replace("Z", ".000+0000"));
+            event.setEventType("card_successful_transaction");
+            event.setStatus("EXECUTED");
+            TransactionEvent.Amount amount = new TransactionEvent.Amount();
+            amount.setValue(-i);
+            amount.setCurrency("EUR");
+            event.setAmount(amount);
+            events.add(event);
+        }
+        Collections.shuffle(events, new Random(42));
+        
+        exporter.exportTransactions(events);
+        
+        Path xmlFile;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            xmlFile = files.filter(p -> p.getFileName().toString().endsWith(".xml")).findFirst().orElseThrow();
+        }
+        NodeList objects = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlFile.toFile())
+                .getElementsByTagName("object");
+        assertEquals(5000, objects.getLength());
+        for (int i = 0; i < objects.getLength(); i++) {
+            Element object = (Element) objects.item(i);
+            assertEquals(String.valueOf(i), object.getAttribute("id"));
+            assertEquals("Transaction " + i, text(object, "zweck"));
+        }
+    }
+    
+    @Test
+    void testDerivedFieldsFromEventAndDetails() throws Exception {
+        List<TransactionEvent> events;
+        try (InputStream in = getClass().getResourceAsStream("/timeline-events.json")) {
+            events = new ObjectMapper().readValue(in, new TypeReference<List<TransactionEvent>>() {});
+        }
+        Map<String, DerivedFields> derived = exporter.deriveFields(events).stream()
+                .collect(Collectors.toMap(d -> d.getEvent().getEventType() + "|" + d.getEvent().getAmount().getMinorUnits(), d -> d));
+        
+        DerivedFields dividend = derived.get("ssp_corporate_action_invoice_cash|1234");
+        assertEquals(TransactionStatus.EXECUTED, dividend.getStatus());
+        assertEquals("US0378331005", dividend.getIsin());
+        assertEquals(1234, dividend.getAmount());
+        
+        // Status only in the details
+        assertEquals(TransactionStatus.EXECUTED, derived.get("INTEREST_PAYOUT|789").getStatus());
+        assertEquals(TransactionStatus.PENDING, derived.get("card_successful_transaction|-1890").getStatus());
+        
+        DerivedFields saveback = derived.get("benefits_saveback_execution|-456");
+        assertEquals(0, saveback.getAmount());
+        assertTrue(saveback.getPurpose().endsWith(String.format("Saveback %.2f €", 4.56)));
+        
+        DerivedFields transfer = derived.get("INCOMING_TRANSFER_DELEGATION|25000");
+        assertEquals("DE02120300000000202051", transfer.getCounterpartyIban());
+        assertEquals("Max Mustermann", transfer.getCounterpartyName());
+    }
+    
+    /**
+     * Export the timeline-events.json fixture including pending transactions and return the objects
+     */
+    private List<Element> exportFixture() throws Exception {
+        List<TransactionEvent> events;
+        try (InputStream in = getClass().getResourceAsStream("/timeline-events.json")) {
+            events = new ObjectMapper().readValue(in, new TypeReference<List<TransactionEvent>>() {});
+        }
+        
+        new HibiscusExporter(tempDir, true, false, false).exportTransactions(events);
+        
+        Path xmlFile;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            xmlFile = files.filter(p -> p.getFileName().toString().endsWith(".xml")).findFirst().orElseThrow();
+        }
+        
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlFile.toFile());
+        NodeList nodes = doc.getElementsByTagName("object");
+        List<Element> objects = new ArrayList<>();
+        for (int i = 0; i < nodes.getLength(); i++) {
+            objects.add((Element) nodes.item(i));
+        }
+        return objects;
+    }
+    
+    private void assertColumns(Element object, String datum, String konto, String name, String zweck, String art, String betrag) {
+        assertEquals(datum, text(object, "datum"));
+        assertEquals(datum, text(object, "valuta"));
+        assertEquals(konto, text(object, "empfaenger_konto"));
+        assertEquals(name, text(object, "empfaenger_name"));
+        assertEquals(zweck, text(object, "zweck"));
+        assertEquals(art, text(object, "art"));
+        assertEquals(betrag, text(object, "betrag"));
+    }
+    
+    private String text(Element object, String field) {
+        return object.getElementsByTagName(field).item(0).getTextContent();
+    }
 }
\ No newline at end of file
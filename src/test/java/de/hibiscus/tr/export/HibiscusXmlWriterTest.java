@@ -0,0 +1,43 @@
+package de.hibiscus.tr.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HibiscusXmlWriterTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testWritesPrettyPrintedUtf8Objects() throws Exception {
+        Path file = tempDir.resolve("out.xml");
+        
+        try (HibiscusXmlWriter writer = new HibiscusXmlWriter(file)) {
+            writer.writeObject(new HibiscusObject(HibiscusObject.UMSATZ_TYPE)
+                    .addField("zweck", "java.lang.String", "Überweisung <A&B>")
+                    .addField("primanota", "java.lang.String", ""));
+            writer.writeObject(new HibiscusObject(HibiscusObject.UMSATZ_TYPE)
+                    .addField("kommentar", "java.lang.String", "Event: Dividende\nISIN: DE0001\n"));
+            assertEquals(2, writer.getObjectCount());
+        }
+        
+        String xml = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n"
+                + "<objects>\r\n"
+                + "  <object type=\"de.willuhn.jameica.hbci.server.UmsatzImpl\" id=\"0\">\r\n"
+                + "    <zweck type=\"java.lang.String\">Überweisung &lt;A&amp;B&gt;</zweck>\r\n"
+                + "    <primanota type=\"java.lang.String\"/>\r\n"
+                + "  </object>\r\n"
+                + "  <object type=\"de.willuhn.jameica.hbci.server.UmsatzImpl\" id=\"1\">\r\n"
+                + "    <kommentar type=\"java.lang.String\">Event: Dividende\nISIN: DE0001</kommentar>\r\n"
+                + "  </object>\r\n"
+                + "</objects>\r\n";
+        assertEquals(expected, xml);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package de.hibiscus.tr.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistoryStoreTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testMigratesLegacyJsonHistory() throws Exception {
+        Files.writeString(tempDir.resolve(HistoryStore.LEGACY_FILE),
+                "{\"known_transactions\":[\"b-2\",\"a-1\",\"c:3\",\"ä-4\"]}");
+        
+        HistoryStore store = HistoryStore.open(tempDir);
+        
+        assertEquals(4, store.size());
+        assertTrue(store.contains("a-1"));
+        assertTrue(store.contains("c:3"));
+        assertTrue(store.contains("ä-4"));
+        assertFalse(store.contains("a-"));
+        assertFalse(store.contains("d-5"));
+        assertTrue(Files.exists(tempDir.resolve(HistoryStore.INDEX_FILE)));
+        assertTrue(Files.exists(tempDir.resolve(HistoryStore.BLOOM_FILE)));
+        assertFalse(Files.exists(tempDir.resolve(HistoryStore.LEGACY_FILE)));
+    }
+    
+    @Test
+    void testMissingBloomFilterIsRebuilt() throws Exception {
+        Files.writeString(tempDir.resolve(HistoryStore.LEGACY_FILE), "{\"known_transactions\":[\"a-1\",\"b-2\"]}");
+        HistoryStore.open(tempDir);
+        Files.delete(tempDir.resolve(HistoryStore.BLOOM_FILE));
+        
+        HistoryStore store = HistoryStore.open(tempDir);
+        assertTrue(store.contains("a-1"));
+        assertTrue(store.contains("b-2"));
+        assertFalse(store.contains("c-3"));
+        assertEquals(2, BloomFilter.read(tempDir.resolve(HistoryStore.BLOOM_FILE)).getEntryCount());
+    }
+    
+    @Test
+    void testAddedIdsArePersistedOnCommitOnly() throws Exception {
+        HistoryStore store = HistoryStore.open(tempDir);
+        store.add("first");
+        store.commit();
+        store.add("second");
+        assertTrue(store.contains("second"));
+        
+        HistoryStore reopened = HistoryStore.open(tempDir);
+        assertTrue(reopened.contains("first"));
+        assertFalse(reopened.contains("second"));
+        assertEquals(1, reopened.size());
+    }
+    
+    @Test
+    void testJournalIsCompactedIntoIndexOnOpen() throws Exception {
+        HistoryStore store = HistoryStore.open(tempDir);
+        for (int i = 0; i < HistoryStore.COMPACTION_THRESHOLD; i++) {
+            store.add("id-" + i);
+        }
+        store.commit();
+        assertTrue(Files.exists(tempDir.resolve(HistoryStore.JOURNAL_FILE)));
+        
+        HistoryStore compacted = HistoryStore.open(tempDir);
+        assertFalse(Files.exists(tempDir.resolve(HistoryStore.JOURNAL_FILE)));
+        assertEquals(HistoryStore.COMPACTION_THRESHOLD, compacted.size());
+        for (int i = 0; i < HistoryStore.COMPACTION_THRESHOLD; i++) {
+            assertTrue(compacted.contains("id-" + i));
+        }
+        
+        // Further ids go to a new journal on top of the index
+        compacted.add("id-new");
+        compacted.add("id-5");
+        compacted.commit();
+        HistoryStore reopened = HistoryStore.open(tempDir);
+        assertEquals(HistoryStore.COMPACTION_THRESHOLD + 1, reopened.size());
+        assertTrue(reopened.contains("id-new"));
+    }
+    
+    @Test
+    void testIncompleteJournalLineIsDiscarded() throws Exception {
+        HistoryStore store = HistoryStore.open(tempDir);
+        store.add("complete");
+        store.commit();
+        Files.write(tempDir.resolve(HistoryStore.JOURNAL_FILE), "torn".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+        
+        HistoryStore reopened = HistoryStore.open(tempDir);
+        assertTrue(reopened.contains("complete"));
+        assertFalse(reopened.contains("torn"));
+        
+        reopened.add("next");
+        reopened.commit();
+        assertEquals("complete\nnext\n", Files.readString(tempDir.resolve(HistoryStore.JOURNAL_FILE)));
+    }
+}
\ No newline at end of file
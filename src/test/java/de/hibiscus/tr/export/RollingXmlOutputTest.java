@@ -0,0 +1,71 @@
+package de.hibiscus.tr.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollingXmlOutputTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    private static final List<String> TIMESTAMPS = List.of(
+            "2024-04-30T23:00:00.000+0000",
+            "2024-05-01T08:00:00.000+0000",
+            "2024-05-02T08:00:00.000+0000",
+            "2024-05-03T08:00:00.000+0000",
+            "2024-06-01T08:00:00.000+0000");
+    
+    @Test
+    void testSingleFileWithoutRolling() throws Exception {
+        RollingXmlOutput output = write(false, 0);
+        
+        assertEquals(List.of("hibiscus-test.xml"), fileNames(output));
+        assertNull(output.getManifestFile());
+    }
+    
+    @Test
+    void testRollByMonthAndObjectCount() throws Exception {
+        RollingXmlOutput output = write(true, 2);
+        
+        assertEquals(List.of("hibiscus-test-2024-04-001.xml", "hibiscus-test-2024-05-001.xml",
+                "hibiscus-test-2024-05-002.xml", "hibiscus-test-2024-06-001.xml"), fileNames(output));
+        
+        JsonNode manifest = new ObjectMapper().readTree(output.getManifestFile().toFile());
+        assertEquals(5, manifest.get("totalObjects").asInt());
+        assertEquals(4, manifest.get("files").size());
+        JsonNode may = manifest.get("files").get(1);
+        assertEquals("hibiscus-test-2024-05-001.xml", may.get("file").asText());
+        assertEquals(2, may.get("objects").asInt());
+        assertEquals(TIMESTAMPS.get(1), may.get("from").asText());
+        assertEquals(TIMESTAMPS.get(2), may.get("to").asText());
+    }
+    
+    @Test
+    void testRollByObjectCountOnly() throws Exception {
+        RollingXmlOutput output = write(false, 3);
+        
+        assertEquals(List.of("hibiscus-test-001.xml", "hibiscus-test-002.xml"), fileNames(output));
+    }
+    
+    private RollingXmlOutput write(boolean byMonth, int maxObjectsPerFile) throws Exception {
+        RollingXmlOutput output = new RollingXmlOutput(tempDir, "hibiscus-test", byMonth, maxObjectsPerFile);
+        try (output) {
+            for (String timestamp : TIMESTAMPS) {
+                output.write(timestamp, new HibiscusObject(HibiscusObject.UMSATZ_TYPE).addField("datum", "java.sql.Date", timestamp));
+            }
+        }
+        return output;
+    }
+    
+    private static List<String> fileNames(RollingXmlOutput output) {
+        return output.getFiles().stream().map(p -> p.getFileName().toString()).collect(Collectors.toList());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package de.hibiscus.tr.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+    
+    @Test
+    void testParseAndFormat() {
+        assertEquals(-1250, Money.parse("-12.5"));
+        assertEquals(700, Money.parse("7"));
+        assertEquals(1, Money.parse("0.005"));
+        assertEquals(0, Money.parse("0.0049"));
+        assertEquals(-1001, Money.parse("-10.005"));
+        assertEquals(123400, Money.parse("1.234E3"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+        
+        assertEquals("-12.50", Money.format(-1250));
+        assertEquals("0.00", Money.format(0));
+        assertEquals("-0.05", Money.format(-5));
+        assertEquals("92233720368547758.07", Money.format(Long.MAX_VALUE));
+        assertEquals("-92233720368547758.08", Money.format(Long.MIN_VALUE));
+        assertEquals("1234,05", Money.appendTo(new StringBuilder(), 123405, ',').toString());
+    }
+    
+    @Test
+    void testSumsAreExact() {
+        long sum = 0;
+        for (int i = 0; i < 10; i++) {
+            sum += Money.parse("0.1");
+        }
+        assertEquals("1.00", Money.format(sum));
+    }
+    
+    @Test
+    void testAmountJsonRoundTrip() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        TransactionEvent event = mapper.readValue(
+                "{\"id\":\"a\",\"amount\":{\"value\":-1001.1,\"currency\":\"EUR\"}}", TransactionEvent.class);
+        assertEquals(-100110, event.getAmount().getMinorUnits());
+        assertEquals(-1001.1, event.getAmount().getValue());
+        
+        String json = mapper.writeValueAsString(event.getAmount());
+        assertEquals("{\"value\":-1001.10,\"currency\":\"EUR\"}", json);
+        
+        TransactionEvent.Amount fromString = mapper.readValue("{\"value\":\"2.5\"}", TransactionEvent.Amount.class);
+        assertEquals(250, fromString.getMinorUnits());
+    }
+}
\ No newline at end of file
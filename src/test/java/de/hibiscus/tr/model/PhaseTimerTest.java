@@ -0,0 +1,47 @@
+package de.hibiscus.tr.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseTimerTest {
+    
+    @Test
+    void testRepeatedPhasesAccumulate() throws Exception {
+        PhaseTimer timer = new PhaseTimer();
+        timer.enter("render");
+        Thread.sleep(5);
+        timer.enter("write");
+        timer.enter("render");
+        Thread.sleep(5);
+        timer.stop();
+        timer.stop();
+        
+        List<PhaseTimer.Phase> phases = timer.getPhases();
+        assertEquals(2, phases.size());
+        assertEquals("render", phases.get(0).getName());
+        assertEquals(2, phases.get(0).getEntries());
+        assertTrue(phases.get(0).getWallNanos() >= 10_000_000L);
+        assertEquals("write", phases.get(1).getName());
+        assertEquals(1, phases.get(1).getEntries());
+        assertTrue(phases.get(0).getPeakHeapBytes() > 0);
+    }
+    
+    @Test
+    void testAllocationIsMeasured() {
+        PhaseTimer timer = new PhaseTimer();
+        timer.enter("allocate");
+        byte[][] blocks = new byte[64][];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = new byte[64 * 1024];
+        }
+        timer.stop();
+        
+        assertEquals(64, blocks.length);
+        if (timer.isAllocationSupported()) {
+            assertTrue(timer.getPhases().get(0).getAllocatedBytes() >= 64L * 64 * 1024);
+        }
+    }
+}
\ No newline at end of file
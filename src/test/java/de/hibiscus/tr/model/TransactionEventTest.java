@@ -0,0 +1,46 @@
+package de.hibiscus.tr.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionEventTest {
+    
+    @Test
+    void testTimestampIsParsedOnce() {
+        assertEquals(Instant.parse("2025-07-16T12:37:00.707Z").toEpochMilli(),
+                TransactionEvent.parseEpochMillis("2025-07-16T12:37:00.707+0000"));
+        assertEquals(Instant.parse("2024-01-01T12:00:00Z").toEpochMilli(),
+                TransactionEvent.parseEpochMillis("2024-01-01T12:00:00Z"));
+        assertEquals(Instant.parse("1969-12-31T23:59:59.5Z").toEpochMilli(),
+                TransactionEvent.parseEpochMillis("1969-12-31T23:59:59.5+00:00"));
+        assertEquals(OffsetDateTime.parse("2024-03-01T10:00:00+02:00").toInstant().toEpochMilli(),
+                TransactionEvent.parseEpochMillis("2024-03-01T10:00:00+02:00"));
+        assertEquals(TransactionEvent.UNKNOWN_TIME, TransactionEvent.parseEpochMillis("2024-02-30T10:00:00Z"));
+        assertEquals(TransactionEvent.UNKNOWN_TIME, TransactionEvent.parseEpochMillis("yesterday"));
+        assertEquals(TransactionEvent.UNKNOWN_TIME, TransactionEvent.parseEpochMillis(null));
+        
+        TransactionEvent event = new TransactionEvent();
+        assertFalse(event.hasValidTimestamp());
+        event.setTimestamp("2025-07-16T12:37:00.707+0000");
+        assertEquals(Instant.parse("2025-07-16T12:37:00.707Z"), event.getTimestampAsInstant());
+    }
+    
+    @Test
+    void testDeserializationPrecomputesFields() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String json = "{\"id\":\"%s\",\"timestamp\":\"2024-05-20T17:02:33.000+0000\",\"eventType\":\"%s\","
+                + "\"status\":\"EXECUTED\",\"amount\":{\"value\":-23.47,\"currency\":\"EUR\"}}";
+        TransactionEvent first = mapper.readValue(String.format(json, "a", "card_successful_transaction"), TransactionEvent.class);
+        TransactionEvent second = mapper.readValue(String.format(json, "b", "card_successful_transaction"), TransactionEvent.class);
+        
+        assertEquals(Instant.parse("2024-05-20T17:02:33Z").toEpochMilli(), first.getEpochMillis());
+        assertEquals(TransactionStatus.EXECUTED, first.getStatusCode());
+        assertSame(first.getEventType(), second.getEventType());
+        assertEquals(-2347, first.getAmount().getMinorUnits());
+    }
+}
\ No newline at end of file
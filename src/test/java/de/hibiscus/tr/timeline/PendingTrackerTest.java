@@ -0,0 +1,76 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PendingTrackerTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testPendingEventsAreTrackedUntilSettled() throws Exception {
+        Instant firstRun = Instant.parse("2024-01-01T12:00:00Z");
+        PendingTracker tracker = PendingTracker.open(tempDir);
+        tracker.update(Arrays.asList(event("pending-1", "PENDING"), event("booked-1", "EXECUTED")), firstRun);
+        tracker.save();
+        
+        // Next run: the pending event is outside the loaded window and restored from its snapshot
+        PendingTracker reopened = PendingTracker.open(tempDir);
+        assertEquals(1, reopened.size());
+        assertEquals(firstRun, reopened.getFirstSeen("pending-1"));
+        List<TransactionEvent> missing = reopened.missingFrom(Collections.emptyList(), firstRun.plusSeconds(3600));
+        assertEquals(1, missing.size());
+        assertEquals("pending-1", missing.get(0).getId());
+        assertEquals(-799, missing.get(0).getAmount().getMinorUnits());
+        assertNull(missing.get(0).getDetails());
+        
+        // Loaded again while still pending: not refreshed separately, first-seen time is kept
+        assertTrue(reopened.missingFrom(Arrays.asList(event("pending-1", "PENDING")), firstRun).isEmpty());
+        reopened.update(Arrays.asList(event("pending-1", "PENDING")), firstRun.plusSeconds(7200));
+        assertEquals(firstRun, reopened.getFirstSeen("pending-1"));
+        
+        TransactionEvent settled = missing.get(0);
+        settled.setDetails(new ObjectMapper().readTree("{\"sections\":[{\"title\":\"Übersicht\",\"data\":["
+                + "{\"title\":\"Status\",\"detail\":{\"functionalStyle\":\"EXECUTED\"}}]}]}"));
+        PendingTracker.applyDetailStatus(settled);
+        assertEquals("EXECUTED", settled.getStatus());
+        reopened.update(Arrays.asList(settled), firstRun.plusSeconds(7200));
+        assertFalse(reopened.isTracked("pending-1"));
+    }
+    
+    @Test
+    void testStaleEntriesAreDropped() {
+        Instant firstRun = Instant.parse("2024-01-01T12:00:00Z");
+        PendingTracker tracker = PendingTracker.inMemory();
+        tracker.update(Arrays.asList(event("pending-1", "PENDING")), firstRun);
+        
+        Instant later = firstRun.plus(PendingTracker.MAX_AGE).plusSeconds(1);
+        assertTrue(tracker.missingFrom(Collections.emptyList(), later).isEmpty());
+        assertEquals(0, tracker.size());
+    }
+    
+    private static TransactionEvent event(String id, String status) {
+        TransactionEvent event = new TransactionEvent();
+        event.setId(id);
+        event.setTitle("REWE");
+        event.setTimestamp("2024-01-01T11:00:00.000+0000");
+        event.setEventType("card_successful_transaction");
+        event.setStatus(status);
+        TransactionEvent.Amount amount = new TransactionEvent.Amount();
+        amount.setValue(-7.99);
+        amount.setCurrency("EUR");
+        event.setAmount(amount);
+        return event;
+    }
+}
\ No newline at end of file
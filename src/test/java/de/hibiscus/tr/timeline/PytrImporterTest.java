@@ -0,0 +1,48 @@
+package de.hibiscus.tr.timeline;
+
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PytrImporterTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testImportsEventsAndAttachesDetailsAcrossFiles() throws Exception {
+        Files.writeString(tempDir.resolve("all_events.json"), "[\n"
+                + "{\"id\":\"a\",\"timestamp\":\"2024-01-15T10:00:00.000+0000\",\"title\":\"REWE\",\"eventType\":\"card_successful_transaction\","
+                + "\"status\":\"EXECUTED\",\"amount\":{\"value\":-12.5,\"currency\":\"EUR\"},"
+                + "\"details\":{\"id\":\"a\",\"sections\":[{\"title\":\"Übersicht\"}]}},\n"
+                + "{\"id\":\"b\",\"timestamp\":\"2024-02-01T10:00:00.000+0000\",\"title\":\"Zinsen\",\"eventType\":\"INTEREST_PAYOUT\","
+                + "\"status\":\"EXECUTED\",\"amount\":{\"value\":7.89,\"currency\":\"EUR\"}},\n"
+                + "{\"id\":\"old\",\"timestamp\":\"2019-01-01T10:00:00.000+0000\",\"title\":\"Alt\",\"status\":\"EXECUTED\"}\n"
+                + "]");
+        Files.createDirectories(tempDir.resolve("details"));
+        Files.writeString(tempDir.resolve("details/b.json"), "{\"id\":\"b\",\"sections\":[{\"title\":\"Übersicht\"}]}");
+        Files.writeString(tempDir.resolve("other_events.json"), "[{\"id\":\"a\",\"timestamp\":\"2024-01-15T10:00:00.000+0000\","
+                + "\"title\":\"REWE\",\"status\":\"EXECUTED\",\"amount\":{\"value\":-12.5,\"currency\":\"EUR\"}}]");
+        
+        PytrImporter importer = new PytrImporter(Instant.parse("2020-01-01T00:00:00Z").getEpochSecond());
+        List<TransactionEvent> events = importer.importEvents(tempDir);
+        Map<String, TransactionEvent> byId = events.stream().collect(Collectors.toMap(TransactionEvent::getId, Function.identity()));
+        
+        assertEquals(2, events.size());
+        assertFalse(byId.containsKey("old"));
+        assertEquals(-1250, byId.get("a").getAmount().getMinorUnits());
+        assertNotNull(byId.get("a").getDetails(), "occurrence with details wins");
+        assertEquals("Übersicht", byId.get("b").getDetails().path("sections").path(0).path("title").asText());
+        assertTrue(importer.getStatistics().contains("Details attached by id: 1"));
+    }
+}
\ No newline at end of file
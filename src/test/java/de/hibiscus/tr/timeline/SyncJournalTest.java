@@ -0,0 +1,88 @@
+package de.hibiscus.tr.timeline;
+
+import de.hibiscus.tr.api.ReplayApi;
+import de.hibiscus.tr.model.JsonCodec;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncJournalTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testRecordsAfterCheckpointAreDropped() throws Exception {
+        Path file = tempDir.resolve("checkpoint.json.events");
+        List<TransactionEvent> events = new SyntheticTimeline(1).events(3);
+        
+        long checkpointLength;
+        try (SyncJournal journal = SyncJournal.open(file, 0)) {
+            journal.appendEvents(withoutDetails(events.subList(0, 2)));
+            journal.appendDetails(events.get(0).getId(), events.get(0).getDetails());
+            checkpointLength = journal.flush();
+            journal.appendEvents(withoutDetails(events.subList(2, 3)));
+            journal.appendDetails(events.get(1).getId(), events.get(1).getDetails());
+        }
+        assertEquals(3, SyncJournal.read(file).size());
+        
+        SyncJournal.open(file, checkpointLength).close();
+        List<TransactionEvent> restored = SyncJournal.read(file);
+        assertEquals(2, restored.size());
+        assertEquals(events.get(0).getId(), restored.get(0).getId());
+        assertEquals(events.get(0).getDetails(), restored.get(0).getDetails());
+        assertNull(restored.get(1).getDetails());
+        
+        assertThrows(IOException.class, () -> SyncJournal.open(file, checkpointLength + 1));
+    }
+    
+    @Test
+    void testResumeRestoresEventsFromJournal() throws Exception {
+        Path checkpointFile = tempDir.resolve("tr2hibiscus-checkpoint.json");
+        Path journalFile = SyncJournal.fileFor(checkpointFile);
+        List<TransactionEvent> events = new SyntheticTimeline(2).events(2);
+        
+        long length;
+        try (SyncJournal journal = SyncJournal.open(journalFile, 0)) {
+            journal.appendEvents(withoutDetails(events));
+            for (TransactionEvent event : events) {
+                journal.appendDetails(event.getId(), event.getDetails());
+            }
+            length = journal.flush();
+        }
+        new SyncCheckpoint(0, new HashMap<>(), Set.of("timelineTransactions", "timelineActivityLog"),
+                journalFile.getFileName().toString(), length, Set.of(events.get(0).getId(), events.get(1).getId()))
+                .save(checkpointFile);
+        
+        ReplayApi api = new ReplayApi(Collections.emptyList(), 50);
+        TimelineProcessor processor = new TimelineProcessor(api, 0, true);
+        processor.enableCheckpoints(checkpointFile, true);
+        List<TransactionEvent> restored = processor.processTimeline();
+        
+        assertEquals(2, restored.size());
+        assertEquals(0, api.getDetailRequests());
+        assertFalse(Files.exists(checkpointFile));
+        assertFalse(Files.exists(journalFile));
+    }
+    
+    private static List<TransactionEvent> withoutDetails(List<TransactionEvent> events) {
+        List<TransactionEvent> copies = new ArrayList<>();
+        for (TransactionEvent event : events) {
+            TransactionEvent copy = JsonCodec.mapper().convertValue(event, TransactionEvent.class);
+            copy.setDetails(null);
+            copies.add(copy);
+        }
+        return copies;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package de.hibiscus.tr.timeline;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import de.hibiscus.tr.export.HibiscusExporter;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.Document;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticTimelineTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    void testSameSeedGivesSameTimeline() {
+        assertEquals(new SyntheticTimeline(7).items(50), new SyntheticTimeline(7).items(50));
+        assertNotEquals(new SyntheticTimeline(7).items(50), new SyntheticTimeline(8).items(50));
+        
+        // Items are independent of each other and newest first
+        List<ObjectNode> items = new SyntheticTimeline(7).items(50);
+        assertEquals(items.get(42), new SyntheticTimeline(7).item(42));
+        for (int i = 1; i < items.size(); i++) {
+            assertTrue(items.get(i - 1).path("timestamp").asText().compareTo(items.get(i).path("timestamp").asText()) > 0);
+        }
+    }
+    
+    @Test
+    void testMixSelectsKinds() {
+        SyntheticTimeline timeline = new SyntheticTimeline(1);
+        timeline.setMix(SyntheticTimeline.parseMix("dividend=1, interest=1"));
+        
+        Set<String> eventTypes = timeline.items(100).stream()
+                .map(item -> item.path("eventType").asText())
+                .collect(Collectors.toSet());
+        assertEquals(Set.of("ssp_corporate_action_invoice_cash", "INTEREST_PAYOUT"), eventTypes);
+        
+        assertThrows(IllegalArgumentException.class, () -> SyntheticTimeline.parseMix("dividend"));
+        assertThrows(IllegalArgumentException.class, () -> SyntheticTimeline.parseMix("unknown=1"));
+        assertThrows(IllegalArgumentException.class, () -> timeline.setMix(Map.of()));
+    }
+    
+    @Test
+    void testEveryKindIsExported() throws Exception {
+        Map<SyntheticTimeline.Kind, Integer> uniform = new EnumMap<>(SyntheticTimeline.Kind.class);
+        for (SyntheticTimeline.Kind kind : SyntheticTimeline.Kind.values()) {
+            uniform.put(kind, 1);
+        }
+        SyntheticTimeline timeline = new SyntheticTimeline(3);
+        timeline.setMix(uniform);
+        List<TransactionEvent> events = timeline.events(300);
+        
+        Set<String> eventTypes = events.stream().map(TransactionEvent::getEventType).collect(Collectors.toSet());
+        for (SyntheticTimeline.Kind kind : SyntheticTimeline.Kind.values()) {
+            assertTrue(eventTypes.contains(kind.getEventType()), kind.name());
+        }
+        
+        HibiscusExporter exporter = new HibiscusExporter(tempDir, false, false, false);
+        exporter.exportTransactions(events);
+        exporter.close();
+        
+        // Everything but pending, canceled and card verification events is booked
+        long booked = events.stream()
+                .filter(event -> !"card_successful_verification".equals(event.getEventType()))
+                .filter(event -> !event.getSubtitle().equals("Ausstehend") && !event.getSubtitle().equals("Storniert"))
+                .count();
+        Path xmlFile;
+        try (Stream<Path> files = Files.list(tempDir)) {
+            xmlFile = files.filter(p -> p.getFileName().toString().endsWith(".xml")).findFirst().orElseThrow();
+        }
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(xmlFile.toFile());
+        assertEquals(booked, doc.getElementsByTagName("object").getLength());
+    }
+    
+    @Test
+    void testDumpIsReadByPytrImporter() throws Exception {
+        SyntheticTimeline timeline = new SyntheticTimeline(5);
+        timeline.writeDump(tempDir.resolve("all_events.json"), 200);
+        
+        List<TransactionEvent> events = new PytrImporter(0).importEvents(tempDir);
+        assertEquals(200, events.size());
+        for (TransactionEvent event : events) {
+            assertNotNull(event.getDetails(), event.getId());
+            if (event.getEventType().equals("ssp_corporate_action_invoice_cash")) {
+                assertNotNull(event.getDetailIndex().getHeaderIsin());
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,53 @@
+package de.hibiscus.tr.timeline;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelinePageTest {
+    
+    private static final String PAYLOAD = "{\"items\":["
+            + "{\"id\":\"a\",\"timestamp\":\"2024-01-15T10:00:00.000+0000\",\"title\":\"REWE\",\"eventType\":\"card_successful_transaction\","
+            + "\"status\":\"EXECUTED\",\"amount\":{\"value\":-12.5,\"currency\":\"EUR\",\"fractionDigits\":2},\"icon\":{\"asset\":\"x\"}},"
+            + "{\"id\":\"b\",\"timestamp\":\"2024-01-14T10:00:00.000+0000\",\"title\":\"Zinsen\",\"eventType\":\"INTEREST_PAYOUT\"}"
+            + "],\"cursors\":{\"before\":\"x\",\"after\":\"next-page\"},\"startingTransactionId\":null}";
+    
+    @Test
+    void testDirectBindingMatchesTreeBinding() throws Exception {
+        TimelinePage direct = TimelinePage.parse(PAYLOAD, false);
+        TimelinePage trees = TimelinePage.parse(PAYLOAD, true);
+        
+        assertTrue(direct.hasItems());
+        assertNull(direct.getItems());
+        assertEquals("next-page", direct.getAfterCursor());
+        assertEquals(2, direct.getEvents().size());
+        assertEquals(2, trees.getItems().size());
+        assertEquals("REWE", trees.getItems().get(0).path("title").asText());
+        for (int i = 0; i < 2; i++) {
+            assertEquals(trees.getEvents().get(i).getId(), direct.getEvents().get(i).getId());
+            assertEquals(trees.getEvents().get(i).getEpochMillis(), direct.getEvents().get(i).getEpochMillis());
+            assertEquals(trees.getEvents().get(i).getEventType(), direct.getEvents().get(i).getEventType());
+        }
+        assertEquals(-1250, direct.getEvents().get(0).getAmount().getMinorUnits());
+        assertFalse(direct.getEvents().get(1).hasAmount());
+    }
+    
+    @Test
+    void testLastAndEmptyPages() throws Exception {
+        TimelinePage last = TimelinePage.parse("{\"items\":[],\"cursors\":{\"after\":null}}", false);
+        assertTrue(last.hasItems());
+        assertTrue(last.getEvents().isEmpty());
+        assertNull(last.getAfterCursor());
+        
+        TimelinePage completed = TimelinePage.parse("", false);
+        assertFalse(completed.hasItems());
+        assertNull(completed.getAfterCursor());
+    }
+    
+    @Test
+    void testUnbindableItemIsSkipped() throws Exception {
+        TimelinePage page = TimelinePage.parse("{\"items\":[{\"id\":\"a\",\"amount\":{\"value\":\"abc\"}},{\"id\":\"b\"}]}", false);
+        assertEquals(1, page.getEvents().size());
+        assertEquals("b", page.getEvents().get(0).getId());
+    }
+}
\ No newline at end of file
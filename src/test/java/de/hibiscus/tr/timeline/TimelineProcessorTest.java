@@ -0,0 +1,33 @@
+package de.hibiscus.tr.timeline;
+
+import de.hibiscus.tr.api.ReplayApi;
+import de.hibiscus.tr.model.TransactionEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimelineProcessorTest {
+    
+    @Test
+    void testPollReadsPagesUntilKnownEvent() throws Exception {
+        ReplayApi api = new ReplayApi(new SyntheticTimeline(1).items(30), 10);
+        TimelineProcessor processor = new TimelineProcessor(api, 0, true);
+        assertEquals(30, processor.processTimeline().size());
+        assertTrue(processor.pollNewEvents().isEmpty());
+        
+        // More new events than fit on the head page arrive between two polls
+        SyntheticTimeline newer = new SyntheticTimeline(2);
+        newer.setNewest(Instant.parse("2024-07-01T12:00:00Z"));
+        api.prepend(newer.items(25));
+        
+        List<TransactionEvent> polled = processor.pollNewEvents();
+        Set<String> expected = newer.events(25).stream().map(TransactionEvent::getId).collect(Collectors.toSet());
+        assertEquals(expected, polled.stream().map(TransactionEvent::getId).collect(Collectors.toSet()));
+        assertTrue(processor.pollNewEvents().isEmpty());
+    }
+}
\ No newline at end of file